@@ -0,0 +1,70 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.AuthConfig;
+import cd.go.authorization.github.models.GitHubUser;
+import cd.go.authorization.github.models.Role;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static cd.go.authorization.github.utils.Util.GSON;
+
+/**
+ * Measures {@link GitHubAuthorizer#authorize} for a user against 1, 50 and 500 role configs, checking memberships
+ * with the personal access token against a {@link GitHubStandIn}. After warmup the memberships are cached, so this is
+ * the cost of matching the user to the role configs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GitHubAuthorizerBenchmark {
+    @Param({"1", "50", "500"})
+    public int roles;
+
+    private GitHubStandIn gitHub;
+    private GitHubAuthorizer authorizer;
+    private GitHubUser user;
+    private AuthConfig authConfig;
+    private List<Role> roleConfigs;
+
+    @Setup
+    public void setUp() throws IOException {
+        gitHub = new GitHubStandIn(Set.of("acme", "org-7"));
+        authorizer = new GitHubServices().authorizer();
+        user = new GitHubUser(GitHubStandIn.LOGIN, 1, null, null);
+        authConfig = AuthConfig.fromJSON(gitHub.authConfigJson("github", "acme"));
+        roleConfigs = List.of(GSON.fromJson(GitHubStandIn.roleConfigsJson("github", roles), Role[].class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        gitHub.close();
+    }
+
+    @Benchmark
+    public List<String> authorize() throws IOException {
+        return authorizer.authorize(user, authConfig, roleConfigs);
+    }
+}
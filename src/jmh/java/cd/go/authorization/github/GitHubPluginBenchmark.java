@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.executors.RequestFromServer;
+import com.thoughtworks.go.plugin.api.request.DefaultGoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link GitHubPlugin#handle} for every request the GoCD server sends, with a realistic request body and
+ * GitHub answered by a {@link GitHubStandIn}, so that the numbers are the overhead of the plugin itself: parsing the
+ * request, its caches and the JSON of the response. Role lookups and authentication carry 50 role configs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GitHubPluginBenchmark {
+    private static final int ROLES = 50;
+
+    @Param
+    public RequestFromServer requestFromServer;
+
+    private GitHubStandIn gitHub;
+    private GitHubPlugin plugin;
+    private DefaultGoPluginApiRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        gitHub = new GitHubStandIn(Set.of("acme", "org-7"));
+        plugin = new GitHubPlugin();
+        request = new DefaultGoPluginApiRequest("authorization", "2.0", requestFromServer.requestName());
+        request.setRequestBody(requestBody());
+        if (requestFromServer == RequestFromServer.REQUEST_ACCESS_TOKEN) {
+            request.setRequestParams(Map.of("code", "authorization-code", "state", "state"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        gitHub.close();
+    }
+
+    @Benchmark
+    public GoPluginApiResponse handle() {
+        return plugin.handle(request);
+    }
+
+    private String requestBody() {
+        final String authConfig = gitHub.authConfigJson("github", "acme");
+        final String roleConfigs = GitHubStandIn.roleConfigsJson("github", ROLES);
+        return switch (requestFromServer) {
+            case REQUEST_GET_PLUGIN_ICON, REQUEST_GET_CAPABILITIES, REQUEST_GET_AUTH_CONFIG_METADATA, REQUEST_AUTH_CONFIG_VIEW,
+                 REQUEST_GET_ROLE_CONFIG_METADATA, REQUEST_ROLE_CONFIG_VIEW -> null;
+            case REQUEST_VALIDATE_AUTH_CONFIG, REQUEST_VERIFY_CONNECTION ->
+                    authConfig.substring(authConfig.indexOf("\"configuration\": ") + "\"configuration\": ".length(), authConfig.length() - 1);
+            case REQUEST_VALIDATE_ROLE_CONFIG -> "{\"Organizations\": \"acme\", \"Teams\": \"acme:devs, ops\", \"Users\": \"alice, bob\"}";
+            case REQUEST_GET_USER_ROLES -> "{\"auth_config\": " + authConfig + ", \"role_configs\": " + roleConfigs + ", \"username\": \"bob\"}";
+            case REQUEST_IS_VALID_USER -> "{\"auth_config\": " + authConfig + ", \"username\": \"bob\"}";
+            case REQUEST_AUTHENTICATE_USER -> "{\"credentials\": {\"access_token\": \"user-access-token\", \"token_type\": \"bearer\", "
+                    + "\"scope\": \"user:email\"}, \"auth_configs\": [" + authConfig + "], \"role_configs\": " + roleConfigs + "}";
+            case REQUEST_SEARCH_USERS -> "{\"search_term\": \"bob\", \"auth_configs\": [" + authConfig + "]}";
+            case REQUEST_AUTHORIZATION_SERVER_REDIRECT_URL -> "{\"auth_configs\": [" + authConfig + "], "
+                    + "\"authorization_server_callback_url\": \"https://gocd.example.com/go/plugin/cd.go.authorization.github/authenticate\"}";
+            case REQUEST_ACCESS_TOKEN -> "{\"auth_configs\": [" + authConfig + "], "
+                    + "\"auth_session\": {\"oauth2_state\": \"state\", \"oauth2_code_verifier_encoded\": \"code-verifier\"}}";
+        };
+    }
+}
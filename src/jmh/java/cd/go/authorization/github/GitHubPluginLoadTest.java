@@ -0,0 +1,252 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.executors.RequestFromServer;
+import com.thoughtworks.go.plugin.api.request.DefaultGoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static cd.go.authorization.github.executors.RequestFromServer.*;
+
+/**
+ * Drives {@link GitHubPlugin#handle} from many threads, the way a GoCD server does while many users log in, against a
+ * {@link GitHubStandIn} with the given latency, error rate and rate limit. Every thread keeps sending a mix of logins,
+ * role lookups and user searches for a pool of users, and the throughput, latency percentiles and GitHub calls per
+ * plugin request are reported once the run is over. Options are passed as {@code --name=value}:
+ * <pre>
+ * threads=200 duration.seconds=60 warmup.seconds=10 users=1000 roles=50
+ * latency.millis=50 error.rate=0 rate.limit=0 mix=authenticate:50,roles:35,search:15
+ * </pre>
+ */
+public class GitHubPluginLoadTest {
+    private static final List<RequestFromServer> REQUESTS = List.of(REQUEST_AUTHENTICATE_USER, REQUEST_GET_USER_ROLES, REQUEST_SEARCH_USERS);
+    private static final Map<String, RequestFromServer> MIX_NAMES = Map.of(
+            "authenticate", REQUEST_AUTHENTICATE_USER,
+            "roles", REQUEST_GET_USER_ROLES,
+            "search", REQUEST_SEARCH_USERS);
+
+    private final int threads;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int users;
+    private final int[] cumulativeWeights = new int[REQUESTS.size()];
+    private final GitHubStandIn gitHub;
+    private final GitHubPlugin plugin = new GitHubPlugin();
+    private final String authConfig;
+    private final String roleConfigs;
+
+    private GitHubPluginLoadTest(Map<String, String> options) throws Exception {
+        threads = Integer.parseInt(options.getOrDefault("threads", "200"));
+        duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration.seconds", "60")));
+        warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup.seconds", "10")));
+        users = Integer.parseInt(options.getOrDefault("users", "1000"));
+
+        int total = 0;
+        final Map<RequestFromServer, Integer> weights = parseMix(options.getOrDefault("mix", "authenticate:50,roles:35,search:15"));
+        for (int i = 0; i < REQUESTS.size(); i++) {
+            total += weights.getOrDefault(REQUESTS.get(i), 0);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The request mix must have a positive weight");
+        }
+
+        gitHub = new GitHubStandIn(Set.of("acme", "org-7"),
+                Duration.ofMillis(Long.parseLong(options.getOrDefault("latency.millis", "50"))),
+                Double.parseDouble(options.getOrDefault("error.rate", "0")),
+                Integer.parseInt(options.getOrDefault("rate.limit", "0")));
+        authConfig = gitHub.authConfigJson("github", "acme");
+        roleConfigs = GitHubStandIn.roleConfigsJson("github", Integer.parseInt(options.getOrDefault("roles", "50")));
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            final String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Expected an option as --name=value, but got `" + arg + "`");
+            }
+            options.put(option[0], option[1]);
+        }
+
+        // Outside GoCD the plugin logs to the standard streams, which would hold up every request
+        final PrintStream report = System.out;
+        final PrintStream errors = System.err;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        final GitHubPluginLoadTest loadTest = new GitHubPluginLoadTest(options);
+        try {
+            loadTest.run(report);
+        } finally {
+            loadTest.gitHub.close();
+            System.setOut(report);
+            System.setErr(errors);
+        }
+        System.exit(0);
+    }
+
+    private void run(PrintStream report) throws InterruptedException {
+        report.printf("Running %d threads for %d s after a %d s warmup against a stand-in at %s%n", threads, duration.toSeconds(), warmup.toSeconds(), gitHub.url());
+
+        final long start = System.nanoTime();
+        final long measureFrom = start + warmup.toNanos();
+        final long measureUntil = measureFrom + duration.toNanos();
+        final List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final Worker worker = new Worker(measureFrom, measureUntil);
+            worker.setName("load-test-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        Thread.sleep(Math.max(0, (measureFrom - System.nanoTime()) / 1_000_000));
+        final long callsBefore = gitHub.calls();
+        final long failedCallsBefore = gitHub.failedCalls();
+        final long rateLimitedCallsBefore = gitHub.rateLimitedCalls();
+        for (Worker worker : workers) {
+            worker.join();
+        }
+        final long calls = gitHub.calls() - callsBefore;
+
+        final Map<RequestFromServer, Latencies> latencies = new EnumMap<>(RequestFromServer.class);
+        final Latencies all = new Latencies();
+        for (Worker worker : workers) {
+            worker.latencies.forEach((request, workerLatencies) -> {
+                latencies.computeIfAbsent(request, ignored -> new Latencies()).addAll(workerLatencies);
+                all.addAll(workerLatencies);
+            });
+        }
+
+        final double seconds = duration.toNanos() / 1e9;
+        report.printf("%nPlugin requests: %d in %.1f s, %.1f/s, %d failed%n", all.size, seconds, all.size / seconds, all.failed);
+        report.printf("GitHub calls: %d, %.2f per plugin request, %d failed, %d rate limited%n%n",
+                calls, all.size == 0 ? 0 : (double) calls / all.size, gitHub.failedCalls() - failedCallsBefore, gitHub.rateLimitedCalls() - rateLimitedCallsBefore);
+        report.printf("%-50s %9s %8s %10s %10s %10s %10s%n", "request", "count", "failed", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        latencies.forEach((request, requestLatencies) -> requestLatencies.print(report, request.requestName()));
+        all.print(report, "all");
+    }
+
+    private RequestFromServer nextRequest(ThreadLocalRandom random) {
+        final int weight = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (weight < cumulativeWeights[i]) {
+                return REQUESTS.get(i);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private DefaultGoPluginApiRequest requestFor(RequestFromServer requestFromServer, String login) {
+        final DefaultGoPluginApiRequest request = new DefaultGoPluginApiRequest("authorization", "2.0", requestFromServer.requestName());
+        request.setRequestBody(switch (requestFromServer) {
+            case REQUEST_AUTHENTICATE_USER -> "{\"credentials\": {\"access_token\": \"" + GitHubStandIn.accessTokenOf(login) + "\", "
+                    + "\"token_type\": \"bearer\", \"scope\": \"user:email\"}, \"auth_configs\": [" + authConfig + "], \"role_configs\": " + roleConfigs + "}";
+            case REQUEST_GET_USER_ROLES -> "{\"auth_config\": " + authConfig + ", \"role_configs\": " + roleConfigs + ", \"username\": \"" + login + "\"}";
+            case REQUEST_SEARCH_USERS -> "{\"search_term\": \"" + login.substring(0, Math.min(login.length(), 6)) + "\", \"auth_configs\": [" + authConfig + "]}";
+            default -> throw new IllegalArgumentException("Request " + requestFromServer + " is not part of the load test");
+        });
+        return request;
+    }
+
+    private static Map<RequestFromServer, Integer> parseMix(String mix) {
+        final Map<RequestFromServer, Integer> weights = new EnumMap<>(RequestFromServer.class);
+        for (String entry : mix.split(",")) {
+            final String[] weight = entry.trim().split(":", 2);
+            final RequestFromServer request = MIX_NAMES.get(weight[0]);
+            if (request == null || weight.length != 2) {
+                throw new IllegalArgumentException("Expected a request mix like `authenticate:50,roles:35,search:15`, but got `" + mix + "`");
+            }
+            weights.put(request, Integer.parseInt(weight[1]));
+        }
+        return weights;
+    }
+
+    private class Worker extends Thread {
+        private final long measureFrom;
+        private final long measureUntil;
+        private final Map<RequestFromServer, Latencies> latencies = new EnumMap<>(RequestFromServer.class);
+
+        private Worker(long measureFrom, long measureUntil) {
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        @Override
+        public void run() {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < measureUntil) {
+                final RequestFromServer requestFromServer = nextRequest(random);
+                final DefaultGoPluginApiRequest request = requestFor(requestFromServer, "user-" + random.nextInt(users));
+
+                boolean failed;
+                try {
+                    final GoPluginApiResponse response = plugin.handle(request);
+                    failed = response == null || response.responseCode() != 200;
+                } catch (RuntimeException e) {
+                    failed = true;
+                }
+
+                if (now >= measureFrom) {
+                    latencies.computeIfAbsent(requestFromServer, ignored -> new Latencies()).add(System.nanoTime() - now, failed);
+                }
+            }
+        }
+    }
+
+    private static class Latencies {
+        private long[] nanos = new long[1024];
+        private int size;
+        private int failed;
+
+        void add(long latency, boolean failed) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = latency;
+            this.failed += failed ? 1 : 0;
+        }
+
+        void addAll(Latencies other) {
+            nanos = Arrays.copyOf(nanos, Math.max(nanos.length, size + other.size));
+            System.arraycopy(other.nanos, 0, nanos, size, other.size);
+            size += other.size;
+            failed += other.failed;
+        }
+
+        void print(PrintStream report, String name) {
+            final long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            report.printf("%-50s %9d %8d %10.1f %10.1f %10.1f %10.1f%n", name, size, failed,
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 100));
+        }
+
+        private static double percentile(long[] sorted, int percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import mockwebserver3.Dispatcher;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-process GitHub Enterprise that answers the REST calls of the plugin from memory, so that benchmarks measure
+ * the plugin rather than the network. Every user exists and belongs to the given organizations only, and
+ * organizations have no teams. The authenticated user is the one an access token was {@linkplain #accessTokenOf issued
+ * for}, or {@value #LOGIN} for any other token. It has no GraphQL API, so the plugin uses the REST API instead.
+ * <p>
+ * For load tests it can delay every response, fail a share of the calls and enforce a rate limit per token.
+ */
+class GitHubStandIn implements Closeable {
+    static final String LOGIN = "bob";
+
+    private static final String ACCESS_TOKEN_PREFIX = "access-token-of-";
+    private static final Duration RATE_LIMIT_WINDOW = Duration.ofMinutes(1);
+    private static final Pattern USER = Pattern.compile("/api/v3/users/([^/]+)");
+    private static final Pattern ORGANIZATION = Pattern.compile("/api/v3/orgs/([^/]+)");
+    private static final Pattern ORGANIZATION_MEMBERS = Pattern.compile("/api/v3/orgs/([^/]+)/members");
+    private static final Pattern ORGANIZATION_MEMBER = Pattern.compile("/api/v3/orgs/([^/]+)/members/([^/]+)");
+    private static final Pattern ORGANIZATION_TEAMS = Pattern.compile("/api/v3/orgs/([^/]+)/teams");
+
+    private final MockWebServer server = new MockWebServer();
+    private final Set<String> memberOf;
+    private final Duration latency;
+    private final double errorRate;
+    private final int rateLimit;
+    private final Map<String, RateLimitWindow> rateLimitWindows = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+    private final AtomicLong rateLimitedCalls = new AtomicLong();
+    private final Thread requestDrainer;
+
+    GitHubStandIn(Set<String> memberOf) throws IOException {
+        this(memberOf, Duration.ZERO, 0, 0);
+    }
+
+    /**
+     * @param latency   delay of every response
+     * @param errorRate share of the calls answered with a {@code 502}
+     * @param rateLimit calls allowed per token and minute, announced with {@code X-RateLimit-*} headers, or {@code 0}
+     *                  for no rate limit
+     */
+    GitHubStandIn(Set<String> memberOf, Duration latency, double errorRate, int rateLimit) throws IOException {
+        this.memberOf = memberOf;
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.rateLimit = rateLimit;
+        server.setDispatcher(new StandInDispatcher());
+        server.start();
+
+        // The server keeps every request it received until taken, which a long run cannot afford
+        requestDrainer = new Thread(() -> {
+            try {
+                while (true) {
+                    server.takeRequest();
+                }
+            } catch (InterruptedException ignored) {
+            }
+        }, "github-stand-in-requests");
+        requestDrainer.setDaemon(true);
+        requestDrainer.start();
+    }
+
+    static String accessTokenOf(String login) {
+        return ACCESS_TOKEN_PREFIX + login;
+    }
+
+    String url() {
+        return server.url("/").toString().replaceAll("/$", "");
+    }
+
+    long calls() {
+        return calls.get();
+    }
+
+    long failedCalls() {
+        return failedCalls.get();
+    }
+
+    long rateLimitedCalls() {
+        return rateLimitedCalls.get();
+    }
+
+    String authConfigJson(String id, String allowedOrganizations) {
+        return "{\"id\": \"" + id + "\", \"configuration\": {"
+                + "\"ClientId\": \"client-id\", \"ClientSecret\": \"client-secret\", \"AuthenticateWith\": \"GitHubEnterprise\", "
+                + "\"GitHubEnterpriseUrl\": \"" + url() + "\", \"AllowedOrganizations\": \"" + allowedOrganizations + "\", "
+                + "\"PersonalAccessToken\": \"personal-access-token\", \"AuthorizeUsing\": \"PersonalAccessToken\"}}";
+    }
+
+    /**
+     * @return role configs of the auth config, each allowing two users, an organization and a team, where every 25th
+     * role also allows {@value #LOGIN}
+     */
+    static String roleConfigsJson(String authConfigId, int roles) {
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < roles; i++) {
+            json.append(i == 0 ? "" : ", ")
+                    .append("{\"name\": \"role-").append(i).append("\", \"auth_config_id\": \"").append(authConfigId).append("\", \"configuration\": {")
+                    .append("\"Users\": \"user-").append(i).append(i % 25 == 0 ? ", " + LOGIN : ", user-" + (i + 1)).append("\", ")
+                    .append("\"Organizations\": \"org-").append(i % 100).append("\", ")
+                    .append("\"Teams\": \"org-").append(i % 100).append(":team-").append(i).append(", ops\\norg-").append((i + 1) % 100).append(":devs\"}}");
+        }
+        return json.append("]").toString();
+    }
+
+    @Override
+    public void close() {
+        requestDrainer.interrupt();
+        server.close();
+    }
+
+    private class StandInDispatcher extends Dispatcher {
+        @NotNull
+        @Override
+        public MockResponse dispatch(@NotNull RecordedRequest request) {
+            calls.incrementAndGet();
+            final MockResponse.Builder response = new MockResponse.Builder();
+            if (!latency.isZero()) {
+                response.headersDelay(latency.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failedCalls.incrementAndGet();
+                return response.code(502).build();
+            }
+
+            final String path = request.getUrl().encodedPath();
+            if (path.equals("/login/oauth/access_token")) {
+                return json(response, "{\"access_token\": \"user-access-token\", \"token_type\": \"bearer\", \"scope\": \"user:email,read:org\"}");
+            }
+
+            final String token = tokenOf(request);
+            if (rateLimit > 0 && !rateLimitWindows.computeIfAbsent(token, ignored -> new RateLimitWindow()).admit(response)) {
+                rateLimitedCalls.incrementAndGet();
+                return json(response.code(403), "{\"message\": \"API rate limit exceeded\"}");
+            }
+
+            Matcher matcher;
+            if (path.equals("/api/v3/user")) {
+                return json(response, user(token.startsWith(ACCESS_TOKEN_PREFIX) ? token.substring(ACCESS_TOKEN_PREFIX.length()) : LOGIN, 1));
+            }
+            if (path.equals("/api/v3/search/users")) {
+                return json(response, "{\"total_count\": 2, \"incomplete_results\": false, \"items\": [" + user(LOGIN, 1) + ", " + user("bobby", 2) + "]}");
+            }
+            if ((matcher = USER.matcher(path)).matches()) {
+                return json(response, user(matcher.group(1), Math.abs(matcher.group(1).hashCode())));
+            }
+            if ((matcher = ORGANIZATION.matcher(path)).matches()) {
+                return json(response, "{\"login\": \"" + matcher.group(1) + "\", \"id\": " + Math.abs(matcher.group(1).hashCode()) + "}");
+            }
+            if ((matcher = ORGANIZATION_MEMBERS.matcher(path)).matches()) {
+                return json(response, memberOf.contains(matcher.group(1)) ? "[" + user(LOGIN, 1) + "]" : "[]");
+            }
+            if ((matcher = ORGANIZATION_MEMBER.matcher(path)).matches()) {
+                return response.code(memberOf.contains(matcher.group(1)) ? 204 : 404).build();
+            }
+            if (ORGANIZATION_TEAMS.matcher(path).matches()) {
+                return json(response, "[]");
+            }
+            return response.code(404).build();
+        }
+
+        private static String tokenOf(RecordedRequest request) {
+            final String authorization = request.getHeaders().get("Authorization");
+            return authorization == null ? "" : authorization.substring(authorization.indexOf(' ') + 1);
+        }
+
+        private static String user(String login, int id) {
+            return "{\"login\": \"" + login + "\", \"id\": " + id + ", \"name\": \"" + login + "\", \"email\": \"" + login + "@example.com\"}";
+        }
+
+        private static MockResponse json(MockResponse.Builder response, String body) {
+            return response
+                    .addHeader("Content-Type", "application/json")
+                    .body(body)
+                    .build();
+        }
+    }
+
+    private class RateLimitWindow {
+        private long resetAtMillis;
+        private int used;
+
+        synchronized boolean admit(MockResponse.Builder response) {
+            final long now = System.currentTimeMillis();
+            if (now >= resetAtMillis) {
+                resetAtMillis = now + RATE_LIMIT_WINDOW.toMillis();
+                used = 0;
+            }
+            final boolean admitted = used < rateLimit;
+            if (admitted) {
+                used++;
+            }
+            response.addHeader("X-RateLimit-Limit", rateLimit)
+                    .addHeader("X-RateLimit-Remaining", rateLimit - used)
+                    .addHeader("X-RateLimit-Used", used)
+                    .addHeader("X-RateLimit-Reset", TimeUnit.MILLISECONDS.toSeconds(resetAtMillis))
+                    .addHeader("X-RateLimit-Resource", "core");
+            return admitted;
+        }
+    }
+}
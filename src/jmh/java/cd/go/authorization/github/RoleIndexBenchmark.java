@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.Role;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding the roles of a user among 500 role configurations by parsing every role configuration, as every
+ * authorization used to, with looking them up in the compiled {@link RoleIndex}. The user is listed in a few roles
+ * and is a member of a single organization and team.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleIndexBenchmark {
+    private static final int ROLES = 500;
+    private static final String LOGIN = "user-7";
+    private static final Set<MembershipQuery> MEMBERSHIPS = Set.of(
+            MembershipQuery.ofOrganization("org-42"),
+            MembershipQuery.ofTeam("org-13", "team-13"));
+
+    private final RoleIndexCache roleIndexes = new RoleIndexCache(1);
+    private List<Role> roles;
+
+    @Setup
+    public void setUp() {
+        roles = new ArrayList<>(ROLES);
+        for (int i = 0; i < ROLES; i++) {
+            roles.add(Role.fromJSON("{\"name\": \"role-" + i + "\", \"configuration\": {"
+                    + "\"Users\": \"user-" + i % 50 + ", User-" + (i + 1) % 50 + "\", "
+                    + "\"Organizations\": \"Org-" + i % 100 + "\", "
+                    + "\"Teams\": \"org-" + i % 100 + ":team-" + i % 100 + ", Ops\\norg-" + (i + 1) % 100 + ":Devs\"}}"));
+        }
+        roleIndexes.indexOf(roles);
+    }
+
+    @Benchmark
+    public List<String> parseRoleConfigurations() {
+        final List<String> assignedRoles = new ArrayList<>();
+        for (Role role : roles) {
+            if (role.roleConfiguration().users().contains(LOGIN)) {
+                assignedRoles.add(role.name());
+            } else if (MembershipQuery.allOf(role.roleConfiguration().organizations(), role.roleConfiguration().teams()).stream().anyMatch(MEMBERSHIPS::contains)) {
+                assignedRoles.add(role.name());
+            }
+        }
+        return assignedRoles;
+    }
+
+    @Benchmark
+    public List<String> compiledIndex() {
+        final RoleIndex index = roleIndexes.indexOf(roles);
+        final boolean[] assigned = new boolean[index.size()];
+        for (int role : index.rolesOfUser(LOGIN)) {
+            assigned[role] = true;
+        }
+        for (MembershipQuery membership : MEMBERSHIPS) {
+            for (int role : index.rolesGrantedBy(membership)) {
+                assigned[role] = true;
+            }
+        }
+
+        final List<String> assignedRoles = new ArrayList<>();
+        for (int role = 0; role < index.size(); role++) {
+            if (assigned[role]) {
+                assignedRoles.add(index.role(role).name());
+            }
+        }
+        return assignedRoles;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import cd.go.authorization.github.models.AuthenticateWith;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import mockwebserver3.Dispatcher;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+import org.jetbrains.annotations.NotNull;
+import org.kohsuke.github.GHUser;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.GitHubRateLimitHandler;
+import org.kohsuke.github.extras.okhttp3.OkHttpGitHubConnector;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares an organization membership check against a local HTTPS GitHub Enterprise stand-in when every call builds
+ * its own client (and so its own connections and TLS handshakes) with the same check through the pooled connector.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GitHubEnterpriseConnectionBenchmark {
+    private static final String ACCESS_TOKEN = "access-token";
+
+    private MockWebServer gitHubEnterprise;
+    private OkHttpClient trustingHttpClient;
+    private GitHubConfiguration gitHubConfiguration;
+    private GitHubClientBuilder pooledClientBuilder;
+
+    @Setup
+    public void setUp() throws IOException {
+        final HeldCertificate certificate = new HeldCertificate.Builder()
+                .addSubjectAlternativeName("localhost")
+                .build();
+        final HandshakeCertificates serverCertificates = new HandshakeCertificates.Builder()
+                .heldCertificate(certificate)
+                .build();
+        final HandshakeCertificates clientCertificates = new HandshakeCertificates.Builder()
+                .addTrustedCertificate(certificate.certificate())
+                .build();
+
+        gitHubEnterprise = new MockWebServer();
+        gitHubEnterprise.useHttps(serverCertificates.sslSocketFactory());
+        gitHubEnterprise.setDispatcher(new GitHubEnterpriseDispatcher());
+        gitHubEnterprise.start();
+
+        trustingHttpClient = GitHubClientBuilder.HTTP_CLIENT.newBuilder()
+                .sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager())
+                .build();
+
+        final String gitHubEnterpriseUrl = gitHubEnterprise.url("/").toString().replaceAll("/$", "");
+        gitHubConfiguration = new GitHubConfiguration("client-id", "client-secret", AuthenticateWith.GITHUB_ENTERPRISE, gitHubEnterpriseUrl, "acme");
+        pooledClientBuilder = new GitHubClientBuilder(new GitHubClientRegistry(trustingHttpClient, 10, Duration.ofMinutes(10), Duration.ofHours(1), System::nanoTime));
+    }
+
+    @TearDown
+    public void tearDown() {
+        gitHubEnterprise.close();
+    }
+
+    @Benchmark
+    public boolean clientPerCall() throws IOException {
+        final OkHttpClient unpooledHttpClient = trustingHttpClient.newBuilder()
+                .connectionPool(new ConnectionPool())
+                .build();
+        final GitHub gitHub = new GitHubBuilder()
+                .withEndpoint(gitHubConfiguration.apiUrl())
+                .withConnector(new OkHttpGitHubConnector(unpooledHttpClient))
+                .withOAuthToken(ACCESS_TOKEN)
+                .withRateLimitHandler(GitHubRateLimitHandler.FAIL)
+                .build();
+        try {
+            return isMember(gitHub);
+        } finally {
+            unpooledHttpClient.connectionPool().evictAll();
+        }
+    }
+
+    @Benchmark
+    public boolean pooledConnector() throws IOException {
+        return isMember(pooledClientBuilder.fromUserOAuthAccessToken(ACCESS_TOKEN, gitHubConfiguration));
+    }
+
+    private static boolean isMember(GitHub gitHub) throws IOException {
+        final GHUser user = new GHUser() {
+            @Override
+            public String getLogin() {
+                return "bob";
+            }
+        };
+        return gitHub.getOrganization("acme").hasMember(user);
+    }
+
+    private static class GitHubEnterpriseDispatcher extends Dispatcher {
+        @NotNull
+        @Override
+        public MockResponse dispatch(@NotNull RecordedRequest request) {
+            final String path = request.getUrl().encodedPath();
+            if (path.equals("/api/v3/user")) {
+                return json("{\"login\": \"bob\", \"id\": 1}");
+            }
+            if (path.equals("/api/v3/orgs/acme")) {
+                return json("{\"login\": \"acme\", \"id\": 2}");
+            }
+            if (path.equals("/api/v3/orgs/acme/members/bob")) {
+                return new MockResponse.Builder().code(204).build();
+            }
+            return new MockResponse.Builder().code(404).build();
+        }
+
+        private static MockResponse json(String body) {
+            return new MockResponse.Builder()
+                    .code(200)
+                    .addHeader("Content-Type", "application/json")
+                    .body(body)
+                    .build();
+        }
+    }
+}
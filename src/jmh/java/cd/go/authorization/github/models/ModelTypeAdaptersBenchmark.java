@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.models;
+
+import cd.go.authorization.github.requests.GetRolesRequest;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reflective Gson with the hand-written model type adapters on a role lookup request with 500 role configs
+ * and on a user search response with 100 users. After the first read the hand-written adapters hand out the auth and
+ * role configs read before, so reading the request measures streaming and fingerprinting the configs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelTypeAdaptersBenchmark {
+    private static final int ROLES = 500;
+    private static final int USERS = 100;
+
+    private final Gson reflective = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    private final Gson streaming = new GsonBuilder()
+            .excludeFieldsWithoutExposeAnnotation()
+            .registerTypeAdapter(AuthConfig.class, AuthConfig.TYPE_ADAPTER)
+            .registerTypeAdapter(GitHubConfiguration.class, GitHubConfiguration.TYPE_ADAPTER)
+            .registerTypeAdapter(Role.class, Role.TYPE_ADAPTER)
+            .registerTypeAdapter(GitHubRoleConfiguration.class, GitHubRoleConfiguration.TYPE_ADAPTER)
+            .registerTypeAdapter(User.class, User.TYPE_ADAPTER)
+            .create();
+
+    private String getRolesRequestBody;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder body = new StringBuilder("""
+                {"username": "bob", "auth_config": {"id": "github", "configuration": {\
+                "ClientId": "client-id", "ClientSecret": "client-secret", "AuthenticateWith": "GitHubEnterprise", \
+                "GitHubEnterpriseUrl": "https://ghe.example.com", "AllowedOrganizations": "acme, widgets", \
+                "PersonalAccessToken": "token", "AuthorizeUsing": "PersonalAccessToken"}}, "role_configs": [""");
+        for (int i = 0; i < ROLES; i++) {
+            body.append(i == 0 ? "" : ", ")
+                    .append("{\"name\": \"role-").append(i).append("\", \"auth_config_id\": \"github\", \"configuration\": {")
+                    .append("\"Users\": \"user-").append(i).append(", user-").append(i + 1).append("\", ")
+                    .append("\"Organizations\": \"org-").append(i % 100).append("\", ")
+                    .append("\"Teams\": \"org-").append(i % 100).append(":team-").append(i).append(", ops\\\\norg-").append((i + 1) % 100).append(":devs\"}}");
+        }
+        getRolesRequestBody = body.append("]}").toString();
+
+        users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User("user-" + i, "User " + i, "user-" + i + "@example.com"));
+        }
+    }
+
+    @Benchmark
+    public GetRolesRequest readRolesRequestReflectively() {
+        return reflective.fromJson(getRolesRequestBody, GetRolesRequest.class);
+    }
+
+    @Benchmark
+    public GetRolesRequest readRolesRequestStreaming() {
+        return streaming.fromJson(getRolesRequestBody, GetRolesRequest.class);
+    }
+
+    @Benchmark
+    public String writeUsersReflectively() {
+        return reflective.toJson(users);
+    }
+
+    @Benchmark
+    public String writeUsersStreaming() {
+        return streaming.toJson(users);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.models;
+
+import cd.go.authorization.github.utils.Util;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing the users, organizations and teams of a role config with 20 users, 5 organizations and 10 lines
+ * of teams, which happens whenever a role config is validated or compiled into a role index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleConfigurationParsingBenchmark {
+    private String users;
+    private GitHubRoleConfiguration roleConfiguration;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder users = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            users.append(i == 0 ? "" : ", ").append("User-").append(i);
+        }
+        final StringBuilder teams = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            teams.append(i == 0 ? "" : "\\n").append("Org-").append(i % 5).append(": Team-").append(i).append(", Ops, Release Managers");
+        }
+
+        this.users = users.toString();
+        roleConfiguration = GitHubRoleConfiguration.fromJSON("{\"Users\": \"" + users + "\", "
+                + "\"Organizations\": \"Org-0, Org-1 ,Org-2, Org-3,Org-4\", \"Teams\": \"" + teams + "\"}");
+    }
+
+    @Benchmark
+    public List<String> listFromCommaSeparatedString() {
+        return Util.listFromCommaSeparatedString(users);
+    }
+
+    @Benchmark
+    public List<String> users() {
+        return roleConfiguration.users();
+    }
+
+    @Benchmark
+    public List<String> organizations() {
+        return roleConfiguration.organizations();
+    }
+
+    @Benchmark
+    public Map<String, List<String>> teams() {
+        return roleConfiguration.teams();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.GitHubConfiguration;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Answers many membership queries for a user in as few calls as possible. Queries it cannot answer are left out of
+ * the result, and are then asked one by one over the REST API.
+ */
+@FunctionalInterface
+public interface BatchMembershipResolver {
+    String STRATEGY_PROPERTY = "plugin.cd.go.authorization.github.membership.strategy";
+
+    BatchMembershipResolver NONE = (gitHubConfiguration, login, queries) -> Map.of();
+
+    Map<MembershipQuery, Boolean> resolve(GitHubConfiguration gitHubConfiguration, String login, Collection<MembershipQuery> queries) throws IOException;
+
+    static BatchMembershipResolver fromSystemProperties(GraphQLClient graphQLClient) {
+        return "graphql".equalsIgnoreCase(System.getProperty(STRATEGY_PROPERTY, "rest"))
+                ? new GraphQLMembershipResolver(graphQLClient)
+                : NONE;
+    }
+}
@@ -17,9 +17,7 @@
 package cd.go.authorization.github;
 
 import cd.go.authorization.github.client.GitHubClientBuilder;
-import cd.go.authorization.github.models.AuthConfig;
-import cd.go.authorization.github.models.LoggedInUserInfo;
-import cd.go.authorization.github.models.OAuthTokenInfo;
+import cd.go.authorization.github.models.*;
 import com.thoughtworks.go.plugin.api.logging.Logger;
 import org.kohsuke.github.GitHub;
 
@@ -28,28 +26,26 @@ import java.util.List;
 
 public class GitHubAuthenticator {
     private static final Logger LOG = Logger.getLoggerFor(GitHubAuthenticator.class);
+    private static final String READ_ORGANIZATIONS_SCOPE = "read:org";
 
     private final MembershipChecker membershipChecker;
     private final GitHubClientBuilder gitHubClientBuilder;
 
-    public GitHubAuthenticator() {
-        this(new MembershipChecker(), new GitHubClientBuilder());
-    }
-
     GitHubAuthenticator(MembershipChecker membershipChecker, GitHubClientBuilder gitHubClientBuilder) {
         this.membershipChecker = membershipChecker;
         this.gitHubClientBuilder = gitHubClientBuilder;
     }
 
     public LoggedInUserInfo authenticate(OAuthTokenInfo tokenInfo, AuthConfig authConfig) throws IOException {
-        final GitHub gitHub = gitHubClientBuilder.fromUserOAuthAccessToken(tokenInfo.oauthAccessToken(),authConfig.gitHubConfiguration());
-        final List<String> allowedOrganizations = authConfig.gitHubConfiguration().organizationsAllowed();
-        final LoggedInUserInfo loggedInUserInfo = new LoggedInUserInfo(gitHub);
+        final GitHubConfiguration gitHubConfiguration = authConfig.gitHubConfiguration();
+        final GitHub gitHub = gitHubClientBuilder.fromUserOAuthAccessToken(tokenInfo.oauthAccessToken(), gitHubConfiguration);
+        final List<String> allowedOrganizations = gitHubConfiguration.organizationsAllowed();
+        final LoggedInUserInfo loggedInUserInfo = new LoggedInUserInfo(gitHub, membershipsOf(gitHub, tokenInfo, gitHubConfiguration));
 
         if (allowedOrganizations.isEmpty()) {
             LOG.info("User `{}` authenticated successfully, organisation membership not required.", loggedInUserInfo.getUser().username());
             return loggedInUserInfo;
-        } else if (membershipChecker.isAMemberOfAtLeastOneOrganization(loggedInUserInfo.getGitHubUser(), authConfig, allowedOrganizations)) {
+        } else if (isAMemberOfAtLeastOneOrganization(loggedInUserInfo, authConfig, allowedOrganizations)) {
             LOG.info("User `{}` authenticated successfully as member of an allowed organisation.", loggedInUserInfo.getUser().username());
             return loggedInUserInfo;
         }
@@ -57,4 +53,23 @@ public class GitHubAuthenticator {
         return null;
     }
 
+    private Memberships membershipsOf(GitHub gitHub, OAuthTokenInfo tokenInfo, GitHubConfiguration gitHubConfiguration) throws IOException {
+        if (gitHubConfiguration.authorizeUsing() != AuthorizeUsing.USER_ACCESS_TOKEN) {
+            return null;
+        }
+
+        if (!tokenInfo.hasScope(READ_ORGANIZATIONS_SCOPE)) {
+            LOG.warn("Access token was not granted the `{}` scope, checking memberships with the personal access token instead.", READ_ORGANIZATIONS_SCOPE);
+            return null;
+        }
+
+        return Memberships.of(gitHub);
+    }
+
+    private boolean isAMemberOfAtLeastOneOrganization(LoggedInUserInfo loggedInUserInfo, AuthConfig authConfig, List<String> allowedOrganizations) throws IOException {
+        if (loggedInUserInfo.getMemberships() != null) {
+            return loggedInUserInfo.getMemberships().isAMemberOfAtLeastOneOrganization(allowedOrganizations);
+        }
+        return membershipChecker.isAMemberOfAtLeastOneOrganization(loggedInUserInfo.getGitHubUser(), authConfig, allowedOrganizations);
+    }
 }
@@ -17,60 +17,99 @@
 package cd.go.authorization.github;
 
 import cd.go.authorization.github.models.AuthConfig;
+import cd.go.authorization.github.models.GitHubUser;
 import cd.go.authorization.github.models.Role;
+import cd.go.authorization.github.snapshot.MembershipSnapshotCrawler;
 import com.thoughtworks.go.plugin.api.logging.Logger;
-import org.kohsuke.github.GHUser;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 public class GitHubAuthorizer {
     private static final Logger LOG = Logger.getLoggerFor(GitHubAuthorizer.class);
 
     private final MembershipChecker membershipChecker;
+    private final RoleIndexCache roleIndexes;
+    private final MembershipSnapshotCrawler snapshotCrawler;
 
-    public GitHubAuthorizer() {
-        this(new MembershipChecker());
+    public GitHubAuthorizer(MembershipChecker membershipChecker, RoleIndexCache roleIndexes, MembershipSnapshotCrawler snapshotCrawler) {
+        this.membershipChecker = membershipChecker;
+        this.roleIndexes = roleIndexes;
+        this.snapshotCrawler = snapshotCrawler;
     }
 
-    public GitHubAuthorizer(MembershipChecker membershipChecker) {
-        this.membershipChecker = membershipChecker;
+    public List<String> authorize(GitHubUser user, AuthConfig authConfig, List<Role> roles) throws IOException {
+        return authorize(user, authConfig, roles, null);
     }
 
-    public List<String> authorize(GHUser user, AuthConfig authConfig, List<Role> roles) throws IOException {
+    /**
+     * @param knownMemberships memberships listed with the user's own access token, or {@code null} to check them with
+     *                         the personal access token
+     */
+    public List<String> authorize(GitHubUser user, AuthConfig authConfig, List<Role> roles, Memberships knownMemberships) throws IOException {
         if (roles == null || roles.isEmpty()) {
-            LOG.debug("User `{}` is authorized for no specific GoCD roles. No role configurations defined for plugin; so no authorizations can be inferred.", user.getLogin());
+            registerForCrawling(authConfig, Set.of());
+            LOG.debug("User `{}` is authorized for no specific GoCD roles. No role configurations defined for plugin; so no authorizations can be inferred.", user.login());
             return Collections.emptyList();
         }
 
-        final List<String> assignedRoles = new ArrayList<>();
+        LOG.debug("Authorizing user `{}`", user.login());
 
-        LOG.debug("Authorizing user `{}`", user.getLogin());
+        final RoleIndex index = roleIndexes.indexOf(roles);
+        registerForCrawling(authConfig, index.memberships());
+        final boolean[] allowedUser = new boolean[index.size()];
+        for (int role : index.rolesOfUser(user.login().toLowerCase())) {
+            allowedUser[role] = true;
+        }
 
-        for (Role role : roles) {
-            final List<String> allowedUsers = role.roleConfiguration().users();
-            if (!allowedUsers.isEmpty() && allowedUsers.contains(user.getLogin().toLowerCase())) {
-                LOG.info("Assigning GoCD role `{}` to user `{}` as user belongs to allowed users list.", role.name(), user.getLogin());
-                assignedRoles.add(role.name());
-                continue;
+        final List<Set<MembershipQuery>> requirements = new ArrayList<>();
+        for (int role = 0; role < index.size(); role++) {
+            if (!allowedUser[role] && !index.requirementOf(role).isEmpty()) {
+                requirements.add(index.requirementOf(role));
             }
+        }
 
-            if (membershipChecker.isAMemberOfAtLeastOneOrganization(user, authConfig, role.roleConfiguration().organizations())) {
-                LOG.info("Assigning GoCD role `{}` to user `{}` as user is a member of at least one allowed organization.", role.name(), user.getLogin());
-                assignedRoles.add(role.name());
-                continue;
+        final Set<MembershipQuery> memberships;
+        if (requirements.isEmpty()) {
+            memberships = Collections.emptySet();
+        } else if (knownMemberships != null) {
+            memberships = knownMemberships.matching(requirements);
+        } else {
+            memberships = membershipChecker.resolve(user, authConfig, requirements);
+        }
+
+        final MembershipQuery[] grantedBy = new MembershipQuery[index.size()];
+        for (MembershipQuery membership : memberships) {
+            for (int role : index.rolesGrantedBy(membership)) {
+                if (grantedBy[role] == null || (grantedBy[role].isTeamQuery() && !membership.isTeamQuery())) {
+                    grantedBy[role] = membership;
+                }
             }
+        }
 
-            if (membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(user, authConfig, role.roleConfiguration().teams())) {
-                LOG.info("Assigning role GoCD `{}` to user `{}` as user is a member of at least one allowed team + organisation combination.", role.name(), user.getLogin());
-                assignedRoles.add(role.name());
+        final List<String> assignedRoles = new ArrayList<>();
+        for (int role = 0; role < index.size(); role++) {
+            final String name = index.role(role).name();
+            if (allowedUser[role]) {
+                LOG.info("Assigning GoCD role `{}` to user `{}` as user belongs to allowed users list.", name, user.login());
+            } else if (grantedBy[role] == null) {
+                continue;
+            } else if (grantedBy[role].isTeamQuery()) {
+                LOG.info("Assigning role GoCD `{}` to user `{}` as user is a member of at least one allowed team + organisation combination.", name, user.login());
+            } else {
+                LOG.info("Assigning GoCD role `{}` to user `{}` as user is a member of at least one allowed organization.", name, user.login());
             }
+            assignedRoles.add(name);
         }
 
-        LOG.debug("User `{}` is authorized with `{}` GoCD role(s).", user.getLogin(), assignedRoles);
+        LOG.debug("User `{}` is authorized with `{}` GoCD role(s).", user.login(), assignedRoles);
 
         return assignedRoles;
     }
+
+    private void registerForCrawling(AuthConfig authConfig, Set<MembershipQuery> roleMemberships) {
+        if (snapshotCrawler.isEnabled()) {
+            snapshotCrawler.registerConfigured(authConfig.gitHubConfiguration(), roleMemberships);
+        }
+    }
 }
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github;
 
+import cd.go.authorization.github.client.RequestPriority;
 import cd.go.authorization.github.exceptions.NoSuchRequestHandlerException;
 import cd.go.authorization.github.executors.*;
 import cd.go.authorization.github.requests.*;
@@ -23,6 +24,8 @@ import com.thoughtworks.go.plugin.api.GoApplicationAccessor;
 import com.thoughtworks.go.plugin.api.GoPlugin;
 import com.thoughtworks.go.plugin.api.GoPluginIdentifier;
 import com.thoughtworks.go.plugin.api.annotation.Extension;
+import com.thoughtworks.go.plugin.api.annotation.UnLoad;
+import com.thoughtworks.go.plugin.api.info.PluginContext;
 import com.thoughtworks.go.plugin.api.logging.Logger;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
@@ -40,29 +43,35 @@ public class GitHubPlugin implements GoPlugin {
         SLF4JBridgeHandler.install();
     }
 
+    private final GitHubServices services;
+    private final GetPluginIconRequestExecutor pluginIconExecutor = new GetPluginIconRequestExecutor();
+    private final GetCapabilitiesRequestExecutor capabilitiesExecutor = new GetCapabilitiesRequestExecutor();
+    private final GetAuthConfigMetadataRequestExecutor authConfigMetadataExecutor = new GetAuthConfigMetadataRequestExecutor();
+    private final GetAuthConfigViewRequestExecutor authConfigViewExecutor = new GetAuthConfigViewRequestExecutor();
+    private final GetRoleConfigMetadataRequestExecutor roleConfigMetadataExecutor = new GetRoleConfigMetadataRequestExecutor();
+    private final GetRoleConfigViewRequestExecutor roleConfigViewExecutor = new GetRoleConfigViewRequestExecutor();
+
+    public GitHubPlugin() {
+        this(new GitHubServices());
+    }
+
+    GitHubPlugin(GitHubServices services) {
+        this.services = services;
+    }
+
     @Override
     public void initializeGoApplicationAccessor(GoApplicationAccessor accessor) {}
 
+    @UnLoad
+    public void onUnload(PluginContext context) {
+        services.stop();
+    }
+
     @Override
     public GoPluginApiResponse handle(GoPluginApiRequest request) {
         try {
-            return switch (RequestFromServer.fromString(request.requestName())) {
-                case REQUEST_GET_PLUGIN_ICON -> new GetPluginIconRequestExecutor().execute();
-                case REQUEST_GET_CAPABILITIES -> new GetCapabilitiesRequestExecutor().execute();
-                case REQUEST_GET_AUTH_CONFIG_METADATA -> new GetAuthConfigMetadataRequestExecutor().execute();
-                case REQUEST_AUTH_CONFIG_VIEW -> new GetAuthConfigViewRequestExecutor().execute();
-                case REQUEST_VALIDATE_AUTH_CONFIG -> AuthConfigValidateRequest.from(request).execute();
-                case REQUEST_VERIFY_CONNECTION -> VerifyConnectionRequest.from(request).execute();
-                case REQUEST_GET_ROLE_CONFIG_METADATA -> new GetRoleConfigMetadataRequestExecutor().execute();
-                case REQUEST_ROLE_CONFIG_VIEW -> new GetRoleConfigViewRequestExecutor().execute();
-                case REQUEST_VALIDATE_ROLE_CONFIG -> RoleConfigValidateRequest.from(request).execute();
-                case REQUEST_AUTHORIZATION_SERVER_REDIRECT_URL -> GetAuthorizationServerUrlRequest.from(request).execute();
-                case REQUEST_ACCESS_TOKEN -> FetchAccessTokenRequest.from(request).execute();
-                case REQUEST_IS_VALID_USER -> ValidateUserRequest.from(request).execute();
-                case REQUEST_AUTHENTICATE_USER -> UserAuthenticationRequest.from(request).execute();
-                case REQUEST_SEARCH_USERS -> SearchUsersRequest.from(request).execute();
-                case REQUEST_GET_USER_ROLES -> GetRolesRequest.from(request).execute();
-            };
+            final RequestFromServer requestFromServer = RequestFromServer.fromString(request.requestName());
+            return requestFromServer.priority().call(() -> handle(requestFromServer, request));
         } catch (NoSuchRequestHandlerException e) {
             LOG.warn(e.getMessage());
             return null;
@@ -72,6 +81,26 @@ public class GitHubPlugin implements GoPlugin {
         }
     }
 
+    private GoPluginApiResponse handle(RequestFromServer requestFromServer, GoPluginApiRequest request) throws Exception {
+        return switch (requestFromServer) {
+            case REQUEST_GET_PLUGIN_ICON -> pluginIconExecutor.execute();
+            case REQUEST_GET_CAPABILITIES -> capabilitiesExecutor.execute();
+            case REQUEST_GET_AUTH_CONFIG_METADATA -> authConfigMetadataExecutor.execute();
+            case REQUEST_AUTH_CONFIG_VIEW -> authConfigViewExecutor.execute();
+            case REQUEST_VALIDATE_AUTH_CONFIG -> AuthConfigValidateRequest.from(request).execute(services);
+            case REQUEST_VERIFY_CONNECTION -> VerifyConnectionRequest.from(request).execute(services);
+            case REQUEST_GET_ROLE_CONFIG_METADATA -> roleConfigMetadataExecutor.execute();
+            case REQUEST_ROLE_CONFIG_VIEW -> roleConfigViewExecutor.execute();
+            case REQUEST_VALIDATE_ROLE_CONFIG -> RoleConfigValidateRequest.from(request).execute(services);
+            case REQUEST_AUTHORIZATION_SERVER_REDIRECT_URL -> GetAuthorizationServerUrlRequest.from(request).execute(services);
+            case REQUEST_ACCESS_TOKEN -> FetchAccessTokenRequest.from(request).execute(services);
+            case REQUEST_IS_VALID_USER -> ValidateUserRequest.from(request).execute(services);
+            case REQUEST_AUTHENTICATE_USER -> UserAuthenticationRequest.from(request).execute(services);
+            case REQUEST_SEARCH_USERS -> SearchUsersRequest.from(request).execute(services);
+            case REQUEST_GET_USER_ROLES -> GetRolesRequest.from(request).execute(services);
+        };
+    }
+
     @Override
     public GoPluginIdentifier pluginIdentifier() {
         return PLUGIN_IDENTIFIER;
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.cache.MembershipCache;
+import cd.go.authorization.github.cache.RoleCache;
+import cd.go.authorization.github.cache.SearchResultCache;
+import cd.go.authorization.github.cache.UserCache;
+import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.client.LookupExecutor;
+import cd.go.authorization.github.directory.UserDirectory;
+import cd.go.authorization.github.snapshot.MembershipSnapshotCrawler;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The long-lived services of a plugin instance, built once from system properties and shared by all requests. The
+ * caches, resolvers and background crawlers belong to the plugin instance that owns this graph. The HTTP client, its
+ * response cache and rate limit budgets are shared by the whole JVM, because they track GitHub hosts and tokens.
+ */
+public class GitHubServices {
+    private final GitHubClientBuilder clientBuilder;
+    private final ExecutorService lookupExecutor;
+    private final GitHubAuthorizer authorizer;
+    private final GitHubAuthenticator authenticator;
+    private final UserCache userCache;
+    private final RoleCache roleCache;
+    private final UserProfileResolver profileResolver;
+    private final UserDirectory userDirectory;
+    private final SearchResultCache searchResults;
+    private final MembershipSnapshotCrawler snapshotCrawler;
+
+    public GitHubServices() {
+        this(new GitHubClientBuilder(), LookupExecutor.SHARED, GraphQLClient.SHARED);
+    }
+
+    GitHubServices(GitHubClientBuilder clientBuilder, ExecutorService lookupExecutor, GraphQLClient graphQLClient) {
+        final TeamResolver teamResolver = TeamResolver.fromSystemProperties();
+        this.snapshotCrawler = MembershipSnapshotCrawler.fromSystemProperties(clientBuilder, teamResolver);
+        final MembershipChecker membershipChecker = new MembershipChecker(clientBuilder, MembershipCache.fromSystemProperties(), teamResolver,
+                MembershipClient.SHARED, lookupExecutor, BatchMembershipResolver.fromSystemProperties(graphQLClient), snapshotCrawler);
+
+        this.clientBuilder = clientBuilder;
+        this.lookupExecutor = lookupExecutor;
+        this.authorizer = new GitHubAuthorizer(membershipChecker, RoleIndexCache.fromSystemProperties(), snapshotCrawler);
+        this.authenticator = new GitHubAuthenticator(membershipChecker, clientBuilder);
+        this.userCache = UserCache.fromSystemProperties();
+        this.roleCache = RoleCache.fromSystemProperties(lookupExecutor);
+        this.profileResolver = UserProfileResolver.fromSystemProperties(graphQLClient, lookupExecutor);
+        this.userDirectory = UserDirectory.fromSystemProperties(clientBuilder, profileResolver);
+        this.searchResults = SearchResultCache.fromSystemProperties();
+    }
+
+    public GitHubClientBuilder clientBuilder() {
+        return clientBuilder;
+    }
+
+    public ExecutorService lookupExecutor() {
+        return lookupExecutor;
+    }
+
+    public GitHubAuthorizer authorizer() {
+        return authorizer;
+    }
+
+    public GitHubAuthenticator authenticator() {
+        return authenticator;
+    }
+
+    public UserCache userCache() {
+        return userCache;
+    }
+
+    public RoleCache roleCache() {
+        return roleCache;
+    }
+
+    public UserProfileResolver profileResolver() {
+        return profileResolver;
+    }
+
+    public UserDirectory userDirectory() {
+        return userDirectory;
+    }
+
+    public SearchResultCache searchResults() {
+        return searchResults;
+    }
+
+    /**
+     * Stops the background threads of the crawlers; the shared transport is left alone.
+     */
+    public void stop() {
+        snapshotCrawler.stop();
+        userDirectory.stop();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.cache.ExpiringCache;
+import cd.go.authorization.github.client.GitHubClientRegistry;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static cd.go.authorization.github.utils.Util.GSON;
+
+/**
+ * Sends queries to the GitHub GraphQL API with the personal access token of an auth config, over the pooled HTTP
+ * client of the GitHub host. GitHub Enterprise servers without the GraphQL API are remembered for a while, so that
+ * callers can fall back to the REST API without asking again until GraphQL may have been enabled.
+ */
+public class GraphQLClient {
+    private static final Logger LOG = Logger.getLoggerFor(GraphQLClient.class);
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String ENTERPRISE_API_SUFFIX = "/api/v3";
+
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.";
+
+    public static final GraphQLClient SHARED = new GraphQLClient(GitHubClientRegistry.SHARED::httpClientFor,
+            Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "graphql.unavailable.ttl.seconds", 3600)), System::nanoTime);
+
+    private final Function<String, OkHttpClient> httpClients;
+    private final ExpiringCache<String, Boolean> unavailableEndpoints;
+    private final Duration unavailableFor;
+    private final AtomicLong queryCount = new AtomicLong();
+    private final AtomicLong totalCost = new AtomicLong();
+    private volatile long remainingPoints = -1;
+
+    GraphQLClient(Function<String, OkHttpClient> httpClients) {
+        this(httpClients, Duration.ofHours(1), System::nanoTime);
+    }
+
+    GraphQLClient(Function<String, OkHttpClient> httpClients, Duration unavailableFor, LongSupplier nanoClock) {
+        this.httpClients = httpClients;
+        this.unavailableEndpoints = new ExpiringCache<>(1_000, nanoClock);
+        this.unavailableFor = unavailableFor;
+    }
+
+    public boolean isAvailable(String apiUrl) {
+        return unavailableEndpoints.getIfPresent(endpointFor(apiUrl)) == null;
+    }
+
+    /**
+     * @return the {@code data} of the response with the paths of the fields GitHub reported errors for, or
+     * {@code null} if the query could not be answered at all
+     */
+    public Result query(GitHubConfiguration gitHubConfiguration, String query, Map<String, String> variables) throws IOException {
+        final String endpoint = endpointFor(gitHubConfiguration.apiUrl());
+        final Request request = new Request.Builder()
+                .url(endpoint)
+                .header("Authorization", "bearer " + gitHubConfiguration.personalAccessToken())
+                .post(RequestBody.create(GSON.toJson(Map.of("query", query, "variables", variables)), JSON))
+                .build();
+
+        try (Response response = httpClients.apply(gitHubConfiguration.apiUrl()).newCall(request).execute()) {
+            queryCount.incrementAndGet();
+            if (response.code() == 404) {
+                LOG.info("GraphQL API is not available at `{}`, using the REST API instead.", endpoint);
+                unavailableEndpoints.put(endpoint, true, unavailableFor);
+                return null;
+            }
+            if (!response.isSuccessful()) {
+                LOG.warn("GraphQL query to `{}` failed with status {}, using the REST API instead.", endpoint, response.code());
+                return null;
+            }
+
+            final JsonObject body = JsonParser.parseString(response.body().string()).getAsJsonObject();
+            final List<List<String>> errorPaths = new ArrayList<>();
+            if (body.has("errors") && body.get("errors").isJsonArray()) {
+                LOG.debug("GraphQL query to `{}` reported errors: {}", endpoint, body.get("errors"));
+                for (JsonElement error : body.getAsJsonArray("errors")) {
+                    errorPaths.add(pathOf(error));
+                }
+            }
+
+            final JsonObject data = objectOrNull(body, "data");
+            final JsonObject rateLimit = data == null ? null : objectOrNull(data, "rateLimit");
+            if (rateLimit != null) {
+                totalCost.addAndGet(rateLimit.get("cost").getAsLong());
+                remainingPoints = rateLimit.get("remaining").getAsLong();
+            }
+            return data == null ? null : new Result(data, errorPaths);
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            LOG.warn("Could not read GraphQL response from `{}`, using the REST API instead.", endpoint, e);
+            return null;
+        }
+    }
+
+    public long queryCount() {
+        return queryCount.get();
+    }
+
+    public long totalCost() {
+        return totalCost.get();
+    }
+
+    /**
+     * @return the GraphQL rate limit points left as of the last query, or {@code -1} if no query has been made yet
+     */
+    public long remainingPoints() {
+        return remainingPoints;
+    }
+
+    static String endpointFor(String apiUrl) {
+        final String url = apiUrl.replaceAll("/+$", "");
+        return url.endsWith(ENTERPRISE_API_SUFFIX)
+                ? url.substring(0, url.length() - ENTERPRISE_API_SUFFIX.length()) + "/api/graphql"
+                : url + "/graphql";
+    }
+
+    private static List<String> pathOf(JsonElement error) {
+        final JsonElement path = error.isJsonObject() ? error.getAsJsonObject().get("path") : null;
+        if (path == null || !path.isJsonArray()) {
+            return List.of();
+        }
+
+        final List<String> segments = new ArrayList<>();
+        for (JsonElement segment : (JsonArray) path) {
+            segments.add(segment.getAsString());
+        }
+        return segments;
+    }
+
+    static JsonObject objectOrNull(JsonObject parent, String member) {
+        final JsonElement element = parent.get(member);
+        return element == null || !element.isJsonObject() ? null : element.getAsJsonObject();
+    }
+
+    /**
+     * @param errorPaths the paths of the fields GitHub reported errors for, where an empty path stands for an error
+     *                   of the whole query
+     */
+    public record Result(JsonObject data, List<List<String>> errorPaths) {
+        /**
+         * @return whether GitHub reported an error for the field at the given path, for any field within it or for
+         * any field containing it, so that its value is no answer
+         */
+        public boolean hasErrorAt(String... path) {
+            final List<String> field = List.of(path);
+            return errorPaths.stream().anyMatch(errorPath -> startsWith(field, errorPath) || startsWith(errorPath, field));
+        }
+
+        private static boolean startsWith(List<String> path, List<String> prefix) {
+            return path.size() >= prefix.size() && path.subList(0, prefix.size()).equals(prefix);
+        }
+    }
+}
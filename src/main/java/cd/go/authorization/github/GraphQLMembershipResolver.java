@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.GitHubConfiguration;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.*;
+
+import static cd.go.authorization.github.GraphQLClient.objectOrNull;
+
+/**
+ * Answers which of a number of organizations and teams a user is a member of with the GitHub GraphQL API, usually in
+ * a single query. Organization memberships are read from the user's organizations, team memberships by listing the
+ * teams of each organization that the user is a member of, following pages where an organization has more than
+ * {@value #PAGE_SIZE} such teams. Fields GitHub reported an error for, say because of SAML enforcement or a rate limit,
+ * are left unanswered rather than taken as no membership, as are GitHub Enterprise servers without the GraphQL API;
+ * the REST API answers those instead.
+ */
+public class GraphQLMembershipResolver implements BatchMembershipResolver {
+    static final int PAGE_SIZE = 100;
+    static final int MAX_TEAM_PAGES = 10;
+
+    private final GraphQLClient graphQLClient;
+
+    GraphQLMembershipResolver(GraphQLClient graphQLClient) {
+        this.graphQLClient = graphQLClient;
+    }
+
+    @Override
+    public Map<MembershipQuery, Boolean> resolve(GitHubConfiguration gitHubConfiguration, String login, Collection<MembershipQuery> queries) throws IOException {
+        if (queries.isEmpty() || !graphQLClient.isAvailable(gitHubConfiguration.apiUrl())) {
+            return Map.of();
+        }
+
+        final List<String> organizations = queries.stream().filter(query -> !query.isTeamQuery()).map(MembershipQuery::organization).distinct().toList();
+        final List<String> teamOrganizations = queries.stream().filter(MembershipQuery::isTeamQuery).map(MembershipQuery::organization).distinct().toList();
+
+        final GraphQLClient.Result result = execute(gitHubConfiguration, login, organizations, teamOrganizations, Map.of());
+        if (result == null) {
+            return Map.of();
+        }
+
+        final Map<MembershipQuery, Boolean> answers = new HashMap<>();
+        final JsonObject user = objectOrNull(result.data(), "user");
+        if (user != null) {
+            for (int i = 0; i < organizations.size(); i++) {
+                if (!result.hasErrorAt("user", "o" + i)) {
+                    answers.put(MembershipQuery.ofOrganization(organizations.get(i)), objectOrNull(user, "o" + i) != null);
+                }
+            }
+        }
+
+        final Map<String, Set<String>> teamsOfUser = new HashMap<>();
+        final Set<String> failedOrganizations = new HashSet<>();
+        Map<String, String> nextPages = collectTeams(result, teamOrganizations, teamsOfUser, failedOrganizations);
+        for (int page = 1; !nextPages.isEmpty() && page < MAX_TEAM_PAGES; page++) {
+            final List<String> remaining = new ArrayList<>(nextPages.keySet());
+            final GraphQLClient.Result nextPage = execute(gitHubConfiguration, login, List.of(), remaining, nextPages);
+            if (nextPage == null) {
+                break;
+            }
+            nextPages = collectTeams(nextPage, remaining, teamsOfUser, failedOrganizations);
+        }
+        nextPages.keySet().forEach(teamsOfUser::remove);
+        failedOrganizations.forEach(teamsOfUser::remove);
+
+        for (MembershipQuery query : queries) {
+            if (query.isTeamQuery() && teamsOfUser.containsKey(query.organization())) {
+                answers.put(query, teamsOfUser.get(query.organization()).contains(query.team()));
+            }
+        }
+
+        return answers;
+    }
+
+    static String queryFor(int organizations, int teamOrganizations) {
+        final StringBuilder query = new StringBuilder("query($login: String!");
+        for (int i = 0; i < organizations; i++) {
+            query.append(", $o").append(i).append(": String!");
+        }
+        for (int i = 0; i < teamOrganizations; i++) {
+            query.append(", $t").append(i).append(": String!, $c").append(i).append(": String");
+        }
+        query.append(") { rateLimit { cost remaining }");
+
+        if (organizations > 0) {
+            query.append(" user(login: $login) {");
+            for (int i = 0; i < organizations; i++) {
+                query.append(" o").append(i).append(": organization(login: $o").append(i).append(") { login }");
+            }
+            query.append(" }");
+        }
+
+        for (int i = 0; i < teamOrganizations; i++) {
+            query.append(" t").append(i).append(": organization(login: $t").append(i).append(") {")
+                    .append(" teams(first: ").append(PAGE_SIZE).append(", userLogins: [$login], after: $c").append(i).append(") {")
+                    .append(" nodes { name } pageInfo { hasNextPage endCursor } } }");
+        }
+
+        return query.append(" }").toString();
+    }
+
+    private static Map<String, String> collectTeams(GraphQLClient.Result result, List<String> teamOrganizations,
+                                                    Map<String, Set<String>> teamsOfUser, Set<String> failedOrganizations) {
+        final Map<String, String> nextPages = new LinkedHashMap<>();
+        for (int i = 0; i < teamOrganizations.size(); i++) {
+            if (result.hasErrorAt("t" + i)) {
+                failedOrganizations.add(teamOrganizations.get(i));
+                continue;
+            }
+
+            final JsonObject organization = objectOrNull(result.data(), "t" + i);
+            final JsonObject teams = organization == null ? null : objectOrNull(organization, "teams");
+            if (teams == null) {
+                continue;
+            }
+
+            final Set<String> teamNames = teamsOfUser.computeIfAbsent(teamOrganizations.get(i), ignored -> new HashSet<>());
+            if (teams.has("nodes") && teams.get("nodes").isJsonArray()) {
+                teams.getAsJsonArray("nodes").forEach(team -> teamNames.add(team.getAsJsonObject().get("name").getAsString().toLowerCase()));
+            }
+
+            final JsonObject pageInfo = objectOrNull(teams, "pageInfo");
+            if (pageInfo != null && pageInfo.get("hasNextPage").getAsBoolean()) {
+                nextPages.put(teamOrganizations.get(i), pageInfo.get("endCursor").getAsString());
+            }
+        }
+        return nextPages;
+    }
+
+    private GraphQLClient.Result execute(GitHubConfiguration gitHubConfiguration, String login,
+                               List<String> organizations, List<String> teamOrganizations, Map<String, String> cursors) throws IOException {
+        final Map<String, String> variables = new HashMap<>();
+        variables.put("login", login);
+        for (int i = 0; i < organizations.size(); i++) {
+            variables.put("o" + i, organizations.get(i));
+        }
+        for (int i = 0; i < teamOrganizations.size(); i++) {
+            variables.put("t" + i, teamOrganizations.get(i));
+            if (cursors.containsKey(teamOrganizations.get(i))) {
+                variables.put("c" + i, cursors.get(teamOrganizations.get(i)));
+            }
+        }
+
+        return graphQLClient.query(gitHubConfiguration, queryFor(organizations.size(), teamOrganizations.size()), variables);
+    }
+}
@@ -16,84 +16,290 @@
 
 package cd.go.authorization.github;
 
+import cd.go.authorization.github.cache.MembershipCache;
+import cd.go.authorization.github.cache.MembershipCache.MembershipKey;
 import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.client.RequestPriority;
 import cd.go.authorization.github.models.AuthConfig;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.GitHubUser;
+import cd.go.authorization.github.snapshot.MembershipSnapshotCrawler;
 import com.thoughtworks.go.plugin.api.logging.Logger;
 import org.kohsuke.github.GHOrganization;
 import org.kohsuke.github.GHTeam;
-import org.kohsuke.github.GHUser;
 import org.kohsuke.github.GitHub;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static cd.go.authorization.github.utils.Util.toLowerCase;
 
 
 public class MembershipChecker {
     public static final Logger LOG = Logger.getLoggerFor(MembershipChecker.class);
 
     private final GitHubClientBuilder clientBuilder;
+    private final MembershipCache membershipCache;
+    private final TeamResolver teamResolver;
+    private final MembershipClient memberships;
+    private final ExecutorService lookupExecutor;
+    private final BatchMembershipResolver batchResolver;
+    private final MembershipSnapshotCrawler snapshotCrawler;
 
-    public MembershipChecker() {
-        this(new GitHubClientBuilder());
-    }
-
-    MembershipChecker(GitHubClientBuilder clientBuilder) {
+    MembershipChecker(GitHubClientBuilder clientBuilder, MembershipCache membershipCache, TeamResolver teamResolver, MembershipClient memberships,
+                      ExecutorService lookupExecutor, BatchMembershipResolver batchResolver, MembershipSnapshotCrawler snapshotCrawler) {
         this.clientBuilder = clientBuilder;
+        this.membershipCache = membershipCache;
+        this.teamResolver = teamResolver;
+        this.memberships = memberships;
+        this.lookupExecutor = lookupExecutor;
+        this.batchResolver = batchResolver;
+        this.snapshotCrawler = snapshotCrawler;
     }
 
 
-    public boolean isAMemberOfAtLeastOneOrganization(GHUser ghUser, AuthConfig authConfig, List<String> organizationsAllowed) throws IOException {
+    public boolean isAMemberOfAtLeastOneOrganization(GitHubUser user, AuthConfig authConfig, List<String> organizationsAllowed) throws IOException {
         if (organizationsAllowed.isEmpty()) {
             LOG.debug("No organizations provided - not allowed.");
             return false;
         }
 
-        return checkMembershipUsingPersonalAccessToken(ghUser, authConfig, organizationsAllowed);
+        return !resolve(user, authConfig, List.of(MembershipQuery.allOf(organizationsAllowed, Map.of()))).isEmpty();
+    }
+
+    public boolean isAMemberOfAtLeastOneTeamOfOrganization(GitHubUser user, AuthConfig authConfig, Map<String, List<String>> organizationAndTeamsAllowed) throws IOException {
+        if (organizationAndTeamsAllowed.isEmpty()) {
+            LOG.debug("No teams provided - not allowed.");
+            return false;
+        }
+
+        return !resolve(user, authConfig, List.of(MembershipQuery.allOf(List.of(), organizationAndTeamsAllowed))).isEmpty();
     }
 
-    private boolean checkMembershipUsingPersonalAccessToken(GHUser ghUser, AuthConfig authConfig, List<String> organizationsAllowed) throws IOException {
-        final GitHub gitHubForPersonalAccessToken = clientBuilder.fromServerPersonalAccessToken(authConfig.gitHubConfiguration());
+    /**
+     * Answers a number of "member of at least one of" requirements at once. Every distinct query is asked at most once,
+     * the membership snapshot and cached answers are used before GitHub is asked, and a query is not asked at all once every requirement it
+     * belongs to is satisfied. Queries left are first given to the {@link BatchMembershipResolver}, and whatever it
+     * cannot answer is asked over the REST API. Up to {@link GitHubConfiguration#membershipCheckParallelism()} queries are asked
+     * concurrently; queries in flight are cancelled as soon as every requirement they belong to is satisfied.
+     *
+     * @return the queries the user was found to be a member of. A requirement is satisfied if and only if it contains
+     * at least one of them.
+     */
+    public Set<MembershipQuery> resolve(GitHubUser user, AuthConfig authConfig, List<Set<MembershipQuery>> requirements) throws IOException {
+        final GitHubConfiguration gitHubConfiguration = authConfig.gitHubConfiguration();
+        final Resolution resolution = new Resolution(user, gitHubConfiguration, requirements);
+        snapshotCrawler.register(gitHubConfiguration, resolution.requirementsByQuery.keySet());
+        final List<MembershipQuery> unanswered = resolution.answerFromCache();
+        if (!unanswered.isEmpty()) {
+            resolution.answerInBatch(unanswered);
+        }
 
-        for (String organizationName : organizationsAllowed) {
-            final GHOrganization organization = gitHubForPersonalAccessToken.getOrganization(organizationName);
-            if (organization != null && organization.hasMember(ghUser)) {
-                LOG.info("User `{}` is a member of allowed `{}` organization.", ghUser.getLogin(), organizationName);
-                return true;
+        final GitHubLookup lookup = new GitHubLookup(gitHubConfiguration);
+        final int parallelism = gitHubConfiguration.membershipCheckParallelism();
+        if (parallelism <= 1 || unanswered.size() <= 1) {
+            for (MembershipQuery query : unanswered) {
+                if (!resolution.isSettled(query)) {
+                    resolution.answered(query, lookup.isMember(user, query));
+                }
             }
+        } else {
+            askConcurrently(resolution, unanswered, lookup, parallelism);
         }
 
-        return false;
+        return resolution.memberships;
     }
 
-    public boolean isAMemberOfAtLeastOneTeamOfOrganization(GHUser ghUser, AuthConfig authConfig, Map<String, List<String>> organizationAndTeamsAllowed) throws IOException {
-        if (organizationAndTeamsAllowed.isEmpty()) {
-            LOG.debug("No teams provided - not allowed.");
-            return false;
+    private void askConcurrently(Resolution resolution, List<MembershipQuery> unanswered, GitHubLookup lookup, int parallelism) throws IOException {
+        final CompletionService<Boolean> completionService = new ExecutorCompletionService<>(lookupExecutor);
+        final Map<Future<Boolean>, MembershipQuery> inFlight = new HashMap<>();
+        final Iterator<MembershipQuery> pending = unanswered.iterator();
+
+        try {
+            while (true) {
+                while (inFlight.size() < parallelism && pending.hasNext()) {
+                    final MembershipQuery query = pending.next();
+                    if (!resolution.isSettled(query)) {
+                        inFlight.put(completionService.submit(RequestPriority.propagate(() -> lookup.isMember(resolution.user, query))), query);
+                    }
+                }
+
+                if (inFlight.isEmpty()) {
+                    return;
+                }
+
+                final Future<Boolean> completed = completionService.take();
+                final MembershipQuery query = inFlight.remove(completed);
+                if (completed.isCancelled()) {
+                    continue;
+                }
+
+                resolution.answered(query, completed.get());
+                inFlight.forEach((future, queryInFlight) -> {
+                    if (resolution.isSettled(queryInFlight)) {
+                        future.cancel(true);
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while checking memberships of user " + resolution.user.login());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            inFlight.keySet().forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static MembershipKey keyOf(GitHubConfiguration gitHubConfiguration, MembershipQuery query, String login) {
+        return query.isTeamQuery()
+                ? MembershipKey.team(gitHubConfiguration.apiUrl(), gitHubConfiguration.personalAccessTokenFingerprint(), query.organization(), query.team(), login)
+                : MembershipKey.organization(gitHubConfiguration.apiUrl(), gitHubConfiguration.personalAccessTokenFingerprint(), query.organization(), login);
+    }
+
+    /**
+     * State of a single {@link #resolve} call. Only used from the calling thread.
+     */
+    private class Resolution {
+        private final GitHubUser user;
+        private final GitHubConfiguration gitHubConfiguration;
+        private final String login;
+        private final Map<MembershipQuery, List<Integer>> requirementsByQuery = new LinkedHashMap<>();
+        private final boolean[] satisfied;
+        private final Set<MembershipQuery> memberships = new LinkedHashSet<>();
+
+        private Resolution(GitHubUser user, GitHubConfiguration gitHubConfiguration, List<Set<MembershipQuery>> requirements) {
+            this.user = user;
+            this.gitHubConfiguration = gitHubConfiguration;
+            this.login = toLowerCase(user.login());
+            this.satisfied = new boolean[requirements.size()];
+            for (int i = 0; i < requirements.size(); i++) {
+                for (MembershipQuery query : requirements.get(i)) {
+                    requirementsByQuery.computeIfAbsent(query, ignored -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+
+        List<MembershipQuery> answerFromCache() {
+            final List<MembershipQuery> unanswered = new ArrayList<>();
+            for (MembershipQuery query : requirementsByQuery.keySet()) {
+                Boolean isMember = snapshotCrawler.isMember(gitHubConfiguration, query, login);
+                if (isMember == null) {
+                    isMember = membershipCache.isMember(keyOf(gitHubConfiguration, query, login));
+                }
+                if (isMember == null) {
+                    unanswered.add(query);
+                } else if (isMember) {
+                    memberOf(query);
+                }
+            }
+            return unanswered;
+        }
+
+        void answerInBatch(List<MembershipQuery> unanswered) {
+            try {
+                final Map<MembershipQuery, Boolean> answers = batchResolver.resolve(gitHubConfiguration, login, unanswered);
+                answers.forEach(this::answered);
+                unanswered.removeAll(answers.keySet());
+            } catch (IOException e) {
+                LOG.warn("Could not check memberships of user `{}` in batch, checking them one by one.", user.login(), e);
+            }
+        }
+
+        boolean isSettled(MembershipQuery query) {
+            return requirementsByQuery.get(query).stream().allMatch(requirement -> satisfied[requirement]);
+        }
+
+        void answered(MembershipQuery query, boolean isMember) {
+            membershipCache.put(keyOf(gitHubConfiguration, query, login), isMember);
+            if (isMember) {
+                memberOf(query);
+            }
         }
 
-        return checkTeamMembershipUsingPersonalAccessToken(ghUser, authConfig, organizationAndTeamsAllowed);
+        private void memberOf(MembershipQuery query) {
+            if (query.isTeamQuery()) {
+                LOG.info("User `{}` is a member of allowed `{}` team of organization `{}`.", user.login(), query.team(), query.organization());
+            } else {
+                LOG.info("User `{}` is a member of allowed `{}` organization.", user.login(), query.organization());
+            }
+            memberships.add(query);
+            requirementsByQuery.get(query).forEach(requirement -> satisfied[requirement] = true);
+        }
     }
 
-    private boolean checkTeamMembershipUsingPersonalAccessToken(GHUser ghUser, AuthConfig authConfig, Map<String, List<String>> organizationAndTeamsAllowed) throws IOException {
-        final GitHub gitHubForPersonalAccessToken = clientBuilder.fromServerPersonalAccessToken(authConfig.gitHubConfiguration());
+    /**
+     * Asks GitHub using the server's personal access token, which is only requested once it is needed. Organization
+     * memberships are checked with a single call. Organizations are looked up once per lookup, and only to resolve
+     * teams: a team whose slug is remembered is checked with a single call as well. Safe to use from several threads.
+     */
+    private class GitHubLookup {
+        private final GitHubConfiguration gitHubConfiguration;
+        private final Map<String, Optional<GHOrganization>> organizations = new ConcurrentHashMap<>();
+        private GitHub gitHubForPersonalAccessToken;
+
+        private GitHubLookup(GitHubConfiguration gitHubConfiguration) {
+            this.gitHubConfiguration = gitHubConfiguration;
+        }
 
-        for (String organizationName : organizationAndTeamsAllowed.keySet()) {
-            final GHOrganization organization = gitHubForPersonalAccessToken.getOrganization(organizationName);
+        boolean isMember(GitHubUser user, MembershipQuery query) throws IOException {
+            return query.isTeamQuery()
+                    ? isTeamMember(user.login(), query)
+                    : memberships.isOrganizationMember(gitHubConfiguration, query.organization(), user.login());
+        }
 
-            if (organization != null) {
-                final List<String> allowedTeamsFromRole = organizationAndTeamsAllowed.get(organizationName);
-                final Map<String, GHTeam> teamsFromGitHub = organization.getTeams();
+        /**
+         * GitHub answers 404 both for users that are not a member of a team and for slugs that no longer name the
+         * team, so a remembered slug is verified again before a 404 is taken as "not a member".
+         */
+        private boolean isTeamMember(String login, MembershipQuery query) throws IOException {
+            final String apiUrl = gitHubConfiguration.apiUrl();
+            final Optional<String> cachedSlug = teamResolver.cachedSlugOf(apiUrl, query.organization(), query.team());
+            if (cachedSlug != null) {
+                if (cachedSlug.isEmpty()) {
+                    return false;
+                }
 
-                for (GHTeam team : teamsFromGitHub.values()) {
-                    if (allowedTeamsFromRole.contains(team.getName().toLowerCase()) && team.hasMember(ghUser)) {
-                        LOG.info("User `{}` is a member of allowed `{}` team.", ghUser.getLogin(), team.getName());
-                        return true;
-                    }
+                final Boolean isMember = memberships.isTeamMember(gitHubConfiguration, query.organization(), cachedSlug.get(), login);
+                if (isMember != null) {
+                    return isMember;
                 }
             }
+
+            final GHOrganization organization = organization(query.organization());
+            if (organization == null) {
+                return false;
+            }
+
+            final GHTeam team = teamResolver.resolve(apiUrl, organization, query.organization(), query.team());
+            if (team == null || (cachedSlug != null && cachedSlug.get().equals(team.getSlug()))) {
+                return false;
+            }
+            return Boolean.TRUE.equals(memberships.isTeamMember(gitHubConfiguration, query.organization(), team.getSlug(), login));
+        }
+
+        private GHOrganization organization(String organizationName) throws IOException {
+            Optional<GHOrganization> organization = organizations.get(organizationName);
+            if (organization == null) {
+                organization = Optional.ofNullable(gitHub().getOrganization(organizationName));
+                organizations.putIfAbsent(organizationName, organization);
+            }
+            return organization.orElse(null);
         }
 
-        return false;
+        private synchronized GitHub gitHub() throws IOException {
+            if (gitHubForPersonalAccessToken == null) {
+                gitHubForPersonalAccessToken = clientBuilder.fromServerPersonalAccessToken(gitHubConfiguration);
+            }
+            return gitHubForPersonalAccessToken;
+        }
     }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.client.GitHubClientRegistry;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.kohsuke.github.HttpException;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Checks memberships with a single call using the personal access token of an auth config, over the pooled HTTP client
+ * of the GitHub host: {@code GET /orgs/{org}/members/{login}} for organizations and
+ * {@code GET /orgs/{org}/teams/{slug}/memberships/{login}} for teams. Unlike {@code GHOrganization#hasMember} and
+ * {@code GHTeam#hasMember}, neither needs the user, the organization or the team to be fetched first.
+ */
+public class MembershipClient {
+    public static final MembershipClient SHARED = new MembershipClient(GitHubClientRegistry.SHARED::httpClientFor);
+
+    private final Function<String, OkHttpClient> httpClients;
+
+    MembershipClient(Function<String, OkHttpClient> httpClients) {
+        this.httpClients = httpClients;
+    }
+
+    /**
+     * GitHub redirects callers that are not a member of the organization themselves to its public members, which are
+     * then all they can see.
+     *
+     * @return whether the user is a member of the organization, as far as the personal access token can see
+     */
+    public boolean isOrganizationMember(GitHubConfiguration gitHubConfiguration, String organization, String login) throws IOException {
+        final HttpUrl url = HttpUrl.get(gitHubConfiguration.apiUrl()).newBuilder()
+                .addPathSegment("orgs")
+                .addPathSegment(organization)
+                .addPathSegment("members")
+                .addPathSegment(login)
+                .build();
+
+        try (Response response = call(gitHubConfiguration, url)) {
+            if (response.code() == 404) {
+                return false;
+            }
+            if (!response.isSuccessful()) {
+                throw new HttpException(response.body().string(), response.code(), response.message(), url.toString());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return whether the user is an active member of the team, or {@code null} if GitHub answered 404, which it does
+     * both for users that are not a member and for teams that do not exist under the slug
+     */
+    public Boolean isTeamMember(GitHubConfiguration gitHubConfiguration, String organization, String teamSlug, String login) throws IOException {
+        final HttpUrl url = HttpUrl.get(gitHubConfiguration.apiUrl()).newBuilder()
+                .addPathSegment("orgs")
+                .addPathSegment(organization)
+                .addPathSegment("teams")
+                .addPathSegment(teamSlug)
+                .addPathSegment("memberships")
+                .addPathSegment(login)
+                .build();
+
+        try (Response response = call(gitHubConfiguration, url)) {
+            if (response.code() == 404) {
+                return null;
+            }
+            final String body = response.body().string();
+            if (!response.isSuccessful()) {
+                throw new HttpException(body, response.code(), response.message(), url.toString());
+            }
+
+            final JsonElement state = JsonParser.parseString(body).getAsJsonObject().get("state");
+            return state != null && "active".equals(state.getAsString());
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            throw new IOException("Could not read team membership from `" + url + "`.", e);
+        }
+    }
+
+    private Response call(GitHubConfiguration gitHubConfiguration, HttpUrl url) throws IOException {
+        final Request request = new Request.Builder()
+                .url(url)
+                .header("Authorization", "token " + gitHubConfiguration.personalAccessToken())
+                .header("Accept", "application/vnd.github+json")
+                .build();
+        return httpClients.apply(gitHubConfiguration.apiUrl()).newCall(request).execute();
+    }
+}
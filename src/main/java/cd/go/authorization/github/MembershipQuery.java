@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A single question for GitHub: is the user a member of an organization, or of a team of that organization.
+ */
+public record MembershipQuery(String organization, String team) {
+    public static MembershipQuery ofOrganization(String organization) {
+        return new MembershipQuery(organization, null);
+    }
+
+    public static MembershipQuery ofTeam(String organization, String team) {
+        return new MembershipQuery(organization, team);
+    }
+
+    public static Set<MembershipQuery> allOf(List<String> organizations, Map<String, List<String>> organizationAndTeams) {
+        final Set<MembershipQuery> queries = new LinkedHashSet<>();
+        organizations.forEach(organization -> queries.add(ofOrganization(organization)));
+        organizationAndTeams.forEach((organization, teams) -> teams.forEach(team -> queries.add(ofTeam(organization, team))));
+        return queries;
+    }
+
+    public boolean isTeamQuery() {
+        return team != null;
+    }
+}
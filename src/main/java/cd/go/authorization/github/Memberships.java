@@ -0,0 +1,73 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import org.kohsuke.github.GHOrganization;
+import org.kohsuke.github.GHTeam;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.util.*;
+
+import static cd.go.authorization.github.utils.Util.toLowerCase;
+
+/**
+ * The organizations and teams a user belongs to, as listed with the user's own access token. Requires the token to be
+ * granted the {@code read:org} scope, otherwise GitHub only lists public memberships.
+ */
+public class Memberships {
+    private final Set<String> organizations;
+    private final Map<String, Set<String>> teamsByOrganization;
+
+    public Memberships(Collection<String> organizations, Map<String, ? extends Collection<String>> teamsByOrganization) {
+        this.organizations = new HashSet<>();
+        organizations.forEach(organization -> this.organizations.add(toLowerCase(organization)));
+        this.teamsByOrganization = new HashMap<>();
+        teamsByOrganization.forEach((organization, teams) -> {
+            final Set<String> teamNames = this.teamsByOrganization.computeIfAbsent(toLowerCase(organization), ignored -> new HashSet<>());
+            teams.forEach(team -> teamNames.add(toLowerCase(team)));
+        });
+    }
+
+    public static Memberships of(GitHub gitHubForUserAccessToken) throws IOException {
+        final Map<String, GHOrganization> organizations = gitHubForUserAccessToken.getMyOrganizations();
+        final Map<String, List<String>> teamsByOrganization = new HashMap<>();
+        for (Map.Entry<String, Set<GHTeam>> entry : gitHubForUserAccessToken.getMyTeams().entrySet()) {
+            final List<String> teamNames = new ArrayList<>();
+            entry.getValue().forEach(team -> teamNames.add(team.getName()));
+            teamsByOrganization.put(entry.getKey(), teamNames);
+        }
+        return new Memberships(organizations.keySet(), teamsByOrganization);
+    }
+
+    public boolean contains(MembershipQuery query) {
+        if (!query.isTeamQuery()) {
+            return organizations.contains(query.organization());
+        }
+        return teamsByOrganization.getOrDefault(query.organization(), Set.of()).contains(query.team());
+    }
+
+    public boolean isAMemberOfAtLeastOneOrganization(List<String> organizationsAllowed) {
+        return organizationsAllowed.stream().anyMatch(organization -> organizations.contains(toLowerCase(organization)));
+    }
+
+    public Set<MembershipQuery> matching(List<Set<MembershipQuery>> requirements) {
+        final Set<MembershipQuery> memberships = new LinkedHashSet<>();
+        requirements.forEach(requirement -> requirement.stream().filter(this::contains).forEach(memberships::add));
+        return memberships;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.GitHubRoleConfiguration;
+import cd.go.authorization.github.models.Role;
+
+import java.util.*;
+
+/**
+ * The role configurations of an auth config compiled once into hash lookups: which roles list a login as an allowed
+ * user, and which roles a membership of an organization or of a team grants. Indexes are remembered by the
+ * {@link RoleIndexCache} of the plugin.
+ */
+public class RoleIndex {
+    private static final int[] NO_ROLES = new int[0];
+
+    private final List<Role> roles;
+    private final List<Set<MembershipQuery>> requirements;
+    private final Map<String, int[]> rolesByUser;
+    private final Map<MembershipQuery, int[]> rolesByMembership;
+
+    private RoleIndex(List<Role> roles) {
+        final Map<String, List<Integer>> rolesByUser = new HashMap<>();
+        final Map<MembershipQuery, List<Integer>> rolesByMembership = new HashMap<>();
+        final List<Set<MembershipQuery>> requirements = new ArrayList<>(roles.size());
+
+        for (int index = 0; index < roles.size(); index++) {
+            final GitHubRoleConfiguration configuration = roles.get(index).roleConfiguration();
+            for (String login : configuration.users()) {
+                rolesByUser.computeIfAbsent(login, key -> new ArrayList<>()).add(index);
+            }
+
+            final Set<MembershipQuery> requirement = MembershipQuery.allOf(configuration.organizations(), configuration.teams());
+            for (MembershipQuery query : requirement) {
+                rolesByMembership.computeIfAbsent(query, key -> new ArrayList<>()).add(index);
+            }
+            requirements.add(Collections.unmodifiableSet(requirement));
+        }
+
+        this.roles = List.copyOf(roles);
+        this.requirements = Collections.unmodifiableList(requirements);
+        this.rolesByUser = toArrays(rolesByUser);
+        this.rolesByMembership = toArrays(rolesByMembership);
+    }
+
+    static RoleIndex compile(List<Role> roles) {
+        return new RoleIndex(roles);
+    }
+
+    public int size() {
+        return roles.size();
+    }
+
+    /**
+     * @return every organization and team membership that grants one of the roles
+     */
+    public Set<MembershipQuery> memberships() {
+        return rolesByMembership.keySet();
+    }
+
+    List<Role> roles() {
+        return roles;
+    }
+
+    public Role role(int index) {
+        return roles.get(index);
+    }
+
+    /**
+     * @return the organization and team memberships of which any one grants the role, empty when only allowed users
+     * get the role
+     */
+    public Set<MembershipQuery> requirementOf(int index) {
+        return requirements.get(index);
+    }
+
+    /**
+     * @param login the lower-cased login of a user
+     * @return the indexes, in configuration order, of the roles listing the user as an allowed user
+     */
+    public int[] rolesOfUser(String login) {
+        return rolesByUser.getOrDefault(login, NO_ROLES).clone();
+    }
+
+    /**
+     * @return the indexes, in configuration order, of the roles the membership is one of the requirements of
+     */
+    public int[] rolesGrantedBy(MembershipQuery membership) {
+        return rolesByMembership.getOrDefault(membership, NO_ROLES).clone();
+    }
+
+    private static <K> Map<K, int[]> toArrays(Map<K, List<Integer>> indexes) {
+        final Map<K, int[]> arrays = new HashMap<>(indexes.size() * 4 / 3 + 1);
+        indexes.forEach((key, value) -> arrays.put(key, value.stream().mapToInt(Integer::intValue).distinct().toArray()));
+        return Collections.unmodifiableMap(arrays);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.cache.ExpiringCache;
+import cd.go.authorization.github.models.Role;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Remembers the {@link RoleIndex} compiled for each list of role configurations, so that authorizing a user no longer
+ * parses the role configurations again. Role configurations read from the same JSON are the same instances, so lists
+ * are compared by the identity of their role configurations rather than by their contents.
+ */
+public class RoleIndexCache {
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.role.index.cache.";
+    private static final Duration TIME_TO_LIVE = Duration.ofDays(1);
+
+    private final ExpiringCache<Roles, RoleIndex> indexes;
+
+    public RoleIndexCache(int maximumSize) {
+        this.indexes = new ExpiringCache<>(maximumSize);
+    }
+
+    public static RoleIndexCache fromSystemProperties() {
+        return new RoleIndexCache(Integer.getInteger(PROPERTY_PREFIX + "size", 64));
+    }
+
+    public RoleIndex indexOf(List<Role> roles) {
+        final RoleIndex cached = indexes.getIfPresent(new Roles(roles));
+        if (cached != null) {
+            return cached;
+        }
+
+        final RoleIndex compiled = RoleIndex.compile(roles);
+        indexes.put(new Roles(compiled.roles()), compiled, TIME_TO_LIVE);
+        return compiled;
+    }
+
+    public int size() {
+        return indexes.size();
+    }
+
+    /**
+     * A list of role configurations that equals another list holding the same instances in the same order.
+     */
+    private static final class Roles {
+        private final List<Role> roles;
+        private final int hashCode;
+
+        private Roles(List<Role> roles) {
+            int hashCode = 1;
+            for (Role role : roles) {
+                hashCode = 31 * hashCode + System.identityHashCode(role);
+            }
+            this.roles = roles;
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Roles other) || hashCode != other.hashCode || roles.size() != other.roles.size()) {
+                return false;
+            }
+            for (int i = 0; i < roles.size(); i++) {
+                if (roles.get(i) != other.roles.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.cache.ExpiringCache;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.GHOrganization;
+import org.kohsuke.github.GHTeam;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Resolves team names from role configurations to the teams on GitHub. Teams are looked up by their slug,
+ * which can usually be derived from the team name. Only when that guess is wrong are all teams of the organization
+ * listed, and the resulting name to slug mapping is remembered for every team of that organization. An organization
+ * is listed at most once per refresh interval. A remembered slug under which the team is no longer found is
+ * forgotten, along with the listing of its organization.
+ */
+public class TeamResolver {
+    private static final Logger LOG = Logger.getLoggerFor(TeamResolver.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.team.cache.";
+
+
+    private final ExpiringCache<TeamKey, Optional<String>> slugs;
+    private final Duration refreshInterval;
+
+    public TeamResolver(int maximumSize, Duration refreshInterval) {
+        this.slugs = new ExpiringCache<>(maximumSize);
+        this.refreshInterval = refreshInterval;
+    }
+
+    public static TeamResolver fromSystemProperties() {
+        return new TeamResolver(
+                Integer.getInteger(PROPERTY_PREFIX + "size", 5_000),
+                Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "ttl.seconds", 3600)));
+    }
+
+    /**
+     * @return the remembered slug of the team, empty if the team is known not to exist, or {@code null} if the team
+     * has not been resolved (lately)
+     */
+    public Optional<String> cachedSlugOf(String apiUrl, String organizationName, String teamName) {
+        return slugs.getIfPresent(new TeamKey(apiUrl, organizationName, teamName));
+    }
+
+    public GHTeam resolve(String apiUrl, GHOrganization organization, String organizationName, String teamName) throws IOException {
+        final TeamKey key = new TeamKey(apiUrl, organizationName, teamName);
+        final Optional<String> cachedSlug = slugs.getIfPresent(key);
+
+        if (cachedSlug != null) {
+            if (cachedSlug.isEmpty()) {
+                return null;
+            }
+
+            final GHTeam team = teamBySlug(organization, cachedSlug.get());
+            if (team != null) {
+                return team;
+            }
+            LOG.debug("Team `{}` of organization `{}` is no longer available as `{}`, resolving it again.", teamName, organizationName, cachedSlug.get());
+            slugs.invalidate(key);
+            slugs.invalidate(new TeamKey(apiUrl, organizationName, null));
+        }
+
+        final GHTeam teamWithDerivedSlug = teamBySlug(organization, slugOf(teamName));
+        if (teamWithDerivedSlug != null && teamName.equals(teamWithDerivedSlug.getName().toLowerCase())) {
+            slugs.put(key, Optional.of(teamWithDerivedSlug.getSlug()), refreshInterval);
+            return teamWithDerivedSlug;
+        }
+
+        final TeamKey organizationListedKey = new TeamKey(apiUrl, organizationName, null);
+        if (slugs.getIfPresent(organizationListedKey) != null) {
+            slugs.put(key, Optional.empty(), refreshInterval);
+            return null;
+        }
+
+        LOG.debug("Could not derive the slug of team `{}`, listing all teams of organization `{}`.", teamName, organizationName);
+        GHTeam matchingTeam = null;
+        for (GHTeam team : organization.getTeams().values()) {
+            final String name = team.getName().toLowerCase();
+            slugs.put(new TeamKey(apiUrl, organizationName, name), Optional.ofNullable(team.getSlug()), refreshInterval);
+            if (teamName.equals(name)) {
+                matchingTeam = team;
+            }
+        }
+
+        slugs.put(organizationListedKey, Optional.empty(), refreshInterval);
+        if (matchingTeam == null) {
+            slugs.put(key, Optional.empty(), refreshInterval);
+        }
+        return matchingTeam;
+    }
+
+    static String slugOf(String teamName) {
+        return teamName.toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9_]+", "-")
+                .replaceAll("^-+|-+$", "");
+    }
+
+    private static GHTeam teamBySlug(GHOrganization organization, String slug) throws IOException {
+        if (slug.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return organization.getTeamBySlug(slug);
+        } catch (GHFileNotFoundException e) {
+            return null;
+        }
+    }
+
+    private record TeamKey(String apiUrl, String organization, String team) {
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.cache.ExpiringCache;
+import cd.go.authorization.github.client.RequestPriority;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.User;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import org.kohsuke.github.GHUser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static cd.go.authorization.github.GraphQLClient.objectOrNull;
+import static cd.go.authorization.github.utils.Util.toLowerCase;
+
+/**
+ * Fills in the names and emails of users found by a search, which the search API does not return. Profiles are
+ * remembered per login; the rest are looked up with a single GraphQL query where the server supports it, and any
+ * profiles still missing are fetched concurrently over the REST API.
+ */
+public class UserProfileResolver {
+    private static final Logger LOG = Logger.getLoggerFor(UserProfileResolver.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.profile.cache.";
+
+
+    private final GraphQLClient graphQLClient;
+    private final ExecutorService executor;
+    private final ExpiringCache<ProfileKey, User> profiles;
+    private final Duration timeToLive;
+
+    public UserProfileResolver(GraphQLClient graphQLClient, ExecutorService executor, int maximumSize, Duration timeToLive) {
+        this.graphQLClient = graphQLClient;
+        this.executor = executor;
+        this.profiles = new ExpiringCache<>(maximumSize);
+        this.timeToLive = timeToLive;
+    }
+
+    public static UserProfileResolver fromSystemProperties(GraphQLClient graphQLClient, ExecutorService executor) {
+        return new UserProfileResolver(graphQLClient, executor,
+                Integer.getInteger(PROPERTY_PREFIX + "size", 10_000),
+                Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "ttl.seconds", 3600)));
+    }
+
+    /**
+     * @return the profiles of the given users, in the same order
+     */
+    public List<User> profilesOf(GitHubConfiguration gitHubConfiguration, List<GHUser> users) throws IOException {
+        final String apiUrl = gitHubConfiguration.apiUrl();
+        final Map<String, User> found = new HashMap<>();
+        final List<GHUser> missing = new ArrayList<>();
+        for (GHUser user : users) {
+            final User profile = profiles.getIfPresent(new ProfileKey(apiUrl, toLowerCase(user.getLogin())));
+            if (profile == null) {
+                missing.add(user);
+            } else {
+                found.put(user.getLogin(), profile);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            final Map<String, User> fetched = new HashMap<>();
+            if (graphQLClient.isAvailable(apiUrl)) {
+                fetched.putAll(queryProfiles(gitHubConfiguration, missing));
+            }
+            fetched.putAll(fetchProfiles(missing.stream().filter(user -> !fetched.containsKey(user.getLogin())).toList()));
+
+            fetched.forEach((login, profile) -> profiles.put(new ProfileKey(apiUrl, toLowerCase(login)), profile, timeToLive));
+            found.putAll(fetched);
+            missing.forEach(user -> found.putIfAbsent(user.getLogin(), new User(user.getLogin(), null, null)));
+        }
+
+        return users.stream().map(user -> found.get(user.getLogin())).toList();
+    }
+
+    static String queryFor(int users) {
+        final StringBuilder query = new StringBuilder("query(");
+        for (int i = 0; i < users; i++) {
+            query.append(i == 0 ? "" : ", ").append("$u").append(i).append(": String!");
+        }
+        query.append(") { rateLimit { cost remaining }");
+        for (int i = 0; i < users; i++) {
+            query.append(" u").append(i).append(": user(login: $u").append(i).append(") { login name email }");
+        }
+        return query.append(" }").toString();
+    }
+
+    private Map<String, User> queryProfiles(GitHubConfiguration gitHubConfiguration, List<GHUser> users) throws IOException {
+        final Map<String, String> variables = new HashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            variables.put("u" + i, users.get(i).getLogin());
+        }
+
+        final GraphQLClient.Result result = graphQLClient.query(gitHubConfiguration, queryFor(users.size()), variables);
+        if (result == null) {
+            return Map.of();
+        }
+        final JsonObject data = result.data();
+
+        final Map<String, User> profiles = new HashMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            final JsonObject user = objectOrNull(data, "u" + i);
+            if (user != null && !result.hasErrorAt("u" + i)) {
+                final String login = users.get(i).getLogin();
+                profiles.put(login, new User(login, stringOrNull(user, "name"), stringOrNull(user, "email")));
+            }
+        }
+        return profiles;
+    }
+
+    private Map<String, User> fetchProfiles(List<GHUser> users) throws IOException {
+        final Map<GHUser, Future<User>> fetches = new LinkedHashMap<>();
+        for (GHUser user : users) {
+            fetches.put(user, executor.submit(RequestPriority.propagate(() -> new User(user.getLogin(), user.getName(), user.getEmail()))));
+        }
+
+        final Map<String, User> profiles = new HashMap<>();
+        try {
+            for (Map.Entry<GHUser, Future<User>> fetch : fetches.entrySet()) {
+                final String login = fetch.getKey().getLogin();
+                try {
+                    profiles.put(login, fetch.getValue().get());
+                } catch (ExecutionException e) {
+                    LOG.warn("Could not fetch profile of `{}`, returning the login only.", login, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fetches.values().forEach(fetch -> fetch.cancel(true));
+            throw new InterruptedIOException("Interrupted while fetching user profiles.");
+        }
+        return profiles;
+    }
+
+    private static String stringOrNull(JsonObject parent, String member) {
+        final JsonElement element = parent.get(member);
+        return element == null || !element.isJsonPrimitive() || element.getAsString().isEmpty() ? null : element.getAsString();
+    }
+
+    private record ProfileKey(String apiUrl, String login) {
+    }
+}
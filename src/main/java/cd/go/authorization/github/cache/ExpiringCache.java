@@ -0,0 +1,106 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded, thread-safe cache where every entry carries its own time-to-live. Once the cache holds
+ * {@code maximumSize} entries the least recently used entry is evicted.
+ */
+public class ExpiringCache<K, V> {
+    private final int maximumSize;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ExpiringCache(int maximumSize) {
+        this(maximumSize, System::nanoTime);
+    }
+
+    public ExpiringCache(int maximumSize, LongSupplier nanoClock) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive, was " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > ExpiringCache.this.maximumSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V getIfPresent(K key) {
+        final Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        if (entry.isExpiredAt(nanoClock.getAsLong())) {
+            entries.remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value, Duration timeToLive) {
+        if (timeToLive.isZero() || timeToLive.isNegative()) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new Entry<>(value, nanoClock.getAsLong() + timeToLive.toNanos()));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size());
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+        boolean isExpiredAt(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import java.time.Duration;
+
+import static cd.go.authorization.github.utils.Util.toLowerCase;
+
+/**
+ * Remembers organization and team membership answers from GitHub. Positive and negative answers are kept for
+ * different durations, so that a user who has just been added to an organization is not locked out for long. Answers
+ * are kept per personal access token, since tokens may see different private memberships, and organization, team and
+ * login are compared case-insensitively, as GitHub does.
+ */
+public class MembershipCache {
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.membership.cache.";
+
+
+    private final ExpiringCache<MembershipKey, Boolean> cache;
+    private final Duration positiveTimeToLive;
+    private final Duration negativeTimeToLive;
+
+    public MembershipCache(int maximumSize, Duration positiveTimeToLive, Duration negativeTimeToLive) {
+        this(new ExpiringCache<>(maximumSize), positiveTimeToLive, negativeTimeToLive);
+    }
+
+    MembershipCache(ExpiringCache<MembershipKey, Boolean> cache, Duration positiveTimeToLive, Duration negativeTimeToLive) {
+        this.cache = cache;
+        this.positiveTimeToLive = positiveTimeToLive;
+        this.negativeTimeToLive = negativeTimeToLive;
+    }
+
+    public static MembershipCache fromSystemProperties() {
+        return new MembershipCache(
+                Integer.getInteger(PROPERTY_PREFIX + "size", 10_000),
+                Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "positive.ttl.seconds", 300)),
+                Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "negative.ttl.seconds", 60)));
+    }
+
+    public Boolean isMember(MembershipKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(MembershipKey key, boolean isMember) {
+        cache.put(key, isMember, isMember ? positiveTimeToLive : negativeTimeToLive);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @param tokenFingerprint fingerprint of the personal access token the answer was given to
+     */
+    public record MembershipKey(String apiUrl, String tokenFingerprint, String organization, String team, String login) {
+        public MembershipKey {
+            organization = toLowerCase(organization);
+            team = toLowerCase(team);
+            login = toLowerCase(login);
+        }
+
+        public static MembershipKey organization(String apiUrl, String tokenFingerprint, String organization, String login) {
+            return new MembershipKey(apiUrl, tokenFingerprint, organization, null, login);
+        }
+
+        public static MembershipKey team(String apiUrl, String tokenFingerprint, String organization, String team, String login) {
+            return new MembershipKey(apiUrl, tokenFingerprint, organization, team, login);
+        }
+    }
+}
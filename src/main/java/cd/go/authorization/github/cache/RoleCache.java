@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import cd.go.authorization.github.client.RequestPriority;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+import static cd.go.authorization.github.utils.Util.toLowerCase;
+
+/**
+ * Remembers the roles assigned to users, keyed by a fingerprint of the configuration they were evaluated with, so
+ * that changing the auth config or the role configs only misses the entries evaluated with the old configuration. Entries
+ * older than the refresh interval are still served, while they are evaluated again in the background; entries older
+ * than their time-to-live are evaluated again before answering.
+ */
+public class RoleCache {
+    private static final Logger LOG = Logger.getLoggerFor(RoleCache.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.role.cache.";
+
+
+    private final ExpiringCache<RolesKey, AssignedRoles> roles;
+    private final Duration refreshAfter;
+    private final Duration timeToLive;
+    private final Executor executor;
+    private final LongSupplier nanoClock;
+    private final Set<RolesKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    public RoleCache(int maximumSize, Duration refreshAfter, Duration timeToLive, Executor executor, LongSupplier nanoClock) {
+        this.roles = new ExpiringCache<>(maximumSize, nanoClock);
+        this.refreshAfter = refreshAfter;
+        this.timeToLive = timeToLive;
+        this.executor = executor;
+        this.nanoClock = nanoClock;
+    }
+
+    public static RoleCache fromSystemProperties(Executor executor) {
+        return new RoleCache(
+                Integer.getInteger(PROPERTY_PREFIX + "size", 10_000),
+                Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "refresh.seconds", 60)),
+                Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "ttl.seconds", 300)),
+                executor,
+                System::nanoTime);
+    }
+
+    /**
+     * @return the roles of the user, or {@code null} if the loader did not find the user
+     */
+    public List<String> get(String configurationFingerprint, String login, RoleLoader loader) throws IOException {
+        if (timeToLive.isZero() || timeToLive.isNegative()) {
+            return loader.load();
+        }
+
+        final RolesKey key = new RolesKey(configurationFingerprint, toLowerCase(login));
+        final AssignedRoles cached = roles.getIfPresent(key);
+        if (cached == null) {
+            return load(key, loader);
+        }
+
+        if (nanoClock.getAsLong() - cached.evaluatedAtNanos() >= refreshAfter.toNanos() && refreshing.add(key)) {
+            executor.execute(() -> refresh(key, loader));
+        }
+        return cached.roles();
+    }
+
+    public void invalidateAll() {
+        roles.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return roles.stats();
+    }
+
+    private List<String> load(RolesKey key, RoleLoader loader) throws IOException {
+        final long evaluatedAt = nanoClock.getAsLong();
+        final List<String> assigned = loader.load();
+        if (assigned != null) {
+            roles.put(key, new AssignedRoles(List.copyOf(assigned), evaluatedAt), timeToLive);
+        }
+        return assigned;
+    }
+
+    private void refresh(RolesKey key, RoleLoader loader) {
+        try {
+            if (RequestPriority.GET_USER_ROLES.call(() -> load(key, loader)) == null) {
+                roles.invalidate(key);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Could not refresh roles of `{}`, serving the previous ones until they expire.", key.login(), e);
+        } finally {
+            refreshing.remove(key);
+        }
+    }
+
+    @FunctionalInterface
+    public interface RoleLoader {
+        List<String> load() throws IOException;
+    }
+
+    private record RolesKey(String configurationFingerprint, String login) {
+    }
+
+    private record AssignedRoles(List<String> roles, long evaluatedAtNanos) {
+    }
+}
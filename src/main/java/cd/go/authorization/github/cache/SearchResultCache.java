@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import cd.go.authorization.github.models.User;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static cd.go.authorization.github.utils.Util.toLowerCase;
+
+/**
+ * Remembers recent user search results per auth config, for the keystroke-driven searches of the role UI. A term is
+ * answered from its own result if remembered, or by filtering the result of a shorter term it extends, provided that
+ * result held every match and its users were matched the way this cache filters them: by a case-insensitive substring
+ * of their login or name, as the user directory does. Anything else, such as results of GitHub's search, which splits
+ * terms into words, is searched again. Concurrent searches for the same term share a single search.
+ */
+public class SearchResultCache {
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.search.cache.";
+
+
+    private final ExpiringCache<SearchKey, SearchResult> results;
+    private final Duration timeToLive;
+    private final Map<SearchKey, CompletableFuture<SearchResult>> inFlight = new ConcurrentHashMap<>();
+
+    public SearchResultCache(int maximumSize, Duration timeToLive) {
+        this.results = new ExpiringCache<>(maximumSize);
+        this.timeToLive = timeToLive;
+    }
+
+    public static SearchResultCache fromSystemProperties() {
+        return new SearchResultCache(
+                Integer.getInteger(PROPERTY_PREFIX + "size", 1_000),
+                Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "ttl.seconds", 60)));
+    }
+
+    /**
+     * @param scope what the results depend on besides the term, such as the GitHub host and the auth config searched
+     */
+    public SearchResult search(String scope, String term, Search search) throws IOException {
+        final String needle = toLowerCase(term.trim());
+        final SearchKey key = new SearchKey(scope, needle);
+
+        final SearchResult cached = results.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        for (int length = needle.length() - 1; length > 0; length--) {
+            final SearchResult shorter = results.getIfPresent(new SearchKey(scope, needle.substring(0, length)));
+            if (shorter != null && shorter.complete() && shorter.matchedBySubstring()) {
+                final SearchResult refined = new SearchResult(shorter.users().stream().filter(user -> matches(user, needle)).toList(), true, true);
+                results.put(key, refined, timeToLive);
+                return refined;
+            }
+        }
+
+        final CompletableFuture<SearchResult> ours = new CompletableFuture<>();
+        final CompletableFuture<SearchResult> theirs = inFlight.putIfAbsent(key, ours);
+        if (theirs != null) {
+            return await(theirs);
+        }
+
+        try {
+            final SearchResult result = search.search(term);
+            results.put(key, result, timeToLive);
+            ours.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            ours.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ours);
+        }
+    }
+
+    public void invalidateAll() {
+        results.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return results.stats();
+    }
+
+    private static SearchResult await(CompletableFuture<SearchResult> search) throws IOException {
+        try {
+            return search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a concurrent search.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static boolean matches(User user, String needle) {
+        return contains(user.username(), needle) || contains(user.displayName(), needle);
+    }
+
+    private static boolean contains(String text, String needle) {
+        return text != null && toLowerCase(text).contains(needle);
+    }
+
+    /**
+     * @param users              the users found
+     * @param complete           whether these are all users found for the term, rather than the first page of them
+     * @param matchedBySubstring whether the users were found by a case-insensitive substring of their login or name, so
+     *                           that the users of a longer term are those among them that contain it as well
+     */
+    public record SearchResult(List<User> users, boolean complete, boolean matchedBySubstring) {
+    }
+
+    @FunctionalInterface
+    public interface Search {
+        SearchResult search(String term) throws IOException;
+    }
+
+    private record SearchKey(String scope, String term) {
+    }
+}
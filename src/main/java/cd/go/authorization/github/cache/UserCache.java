@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.GitHubUser;
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.GHUser;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+import static cd.go.authorization.github.utils.Util.toLowerCase;
+
+/**
+ * Remembers per GitHub host and server personal access token which logins belong to existing users, so that repeated
+ * user validations and role lookups for the same users do not ask GitHub again. Auth configs using different tokens do
+ * not share what they looked up. Users are remembered as a compact {@link GitHubUser}, which does not hold on to the
+ * client they were fetched with. Users that were not found are remembered for a different duration than users that
+ * were.
+ */
+public class UserCache {
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.user.cache.";
+
+
+    private final ExpiringCache<UserKey, Optional<GitHubUser>> users;
+    private final Duration foundTimeToLive;
+    private final Duration notFoundTimeToLive;
+
+    public UserCache(int maximumSize, Duration foundTimeToLive, Duration notFoundTimeToLive) {
+        this.users = new ExpiringCache<>(maximumSize);
+        this.foundTimeToLive = foundTimeToLive;
+        this.notFoundTimeToLive = notFoundTimeToLive;
+    }
+
+    public static UserCache fromSystemProperties() {
+        return new UserCache(Integer.getInteger(PROPERTY_PREFIX + "size", 10_000), foundTimeToLiveFromSystemProperties(), notFoundTimeToLiveFromSystemProperties());
+    }
+
+    /**
+     * @return the shorter of the times found and not found users are cached for
+     */
+    public static Duration shortestTimeToLiveFromSystemProperties() {
+        final Duration found = foundTimeToLiveFromSystemProperties();
+        final Duration notFound = notFoundTimeToLiveFromSystemProperties();
+        return found.compareTo(notFound) <= 0 ? found : notFound;
+    }
+
+    private static Duration foundTimeToLiveFromSystemProperties() {
+        return Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "found.ttl.seconds", 600));
+    }
+
+    private static Duration notFoundTimeToLiveFromSystemProperties() {
+        return Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "not.found.ttl.seconds", 60));
+    }
+
+    /**
+     * @return the user with the given login, or {@code null} if there is no such user
+     */
+    public GitHubUser getUser(GitHub gitHub, GitHubConfiguration gitHubConfiguration, String login) throws IOException {
+        final UserKey key = new UserKey(gitHubConfiguration.apiUrl(), gitHubConfiguration.personalAccessTokenFingerprint(), toLowerCase(login));
+        final Optional<GitHubUser> cached = users.getIfPresent(key);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+
+        GHUser ghUser;
+        try {
+            ghUser = gitHub.getUser(login);
+        } catch (GHFileNotFoundException e) {
+            ghUser = null;
+        }
+
+        if (ghUser == null) {
+            users.put(key, Optional.empty(), notFoundTimeToLive);
+            return null;
+        }
+
+        final GitHubUser user = GitHubUser.of(ghUser);
+        users.put(key, Optional.of(user), foundTimeToLive);
+        return user;
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return users.stats();
+    }
+
+    private record UserKey(String apiUrl, String tokenFingerprint, String login) {
+    }
+}
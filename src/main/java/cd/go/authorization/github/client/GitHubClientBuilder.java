@@ -21,40 +21,57 @@ import cd.go.authorization.github.models.GitHubConfiguration;
 import com.thoughtworks.go.plugin.api.logging.Logger;
 import okhttp3.*;
 import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubAbuseLimitHandler;
 import org.kohsuke.github.GitHubBuilder;
 import org.kohsuke.github.GitHubRateLimitHandler;
-import org.kohsuke.github.connector.GitHubConnector;
-import org.kohsuke.github.extras.okhttp3.OkHttpGitHubConnector;
 
 import java.io.IOException;
 
 public class GitHubClientBuilder {
     private static final Logger LOG = Logger.getLoggerFor(GitHubClientBuilder.class);
 
-    public static final OkHttpClient HTTP_CLIENT = new OkHttpClient.Builder().build();
-    private static final int OKHTTP_CACHE_MAX_AGE_SECONDS = 60;
-    private static final GitHubConnector GITHUB_CONNECTOR = new OkHttpGitHubConnector(HTTP_CLIENT, OKHTTP_CACHE_MAX_AGE_SECONDS);
+    public static final OkHttpClient HTTP_CLIENT = RateLimitRetry.SHARED.applyTo(
+            RateLimitBudget.SHARED.applyTo(
+                    HttpResponseCache.SHARED.applyTo(new OkHttpClient.Builder()))).build();
+
+    private final GitHubClientRegistry clientRegistry;
+
+    public GitHubClientBuilder() {
+        this(GitHubClientRegistry.SHARED);
+    }
+
+    GitHubClientBuilder(GitHubClientRegistry clientRegistry) {
+        this.clientRegistry = clientRegistry;
+    }
 
     public GitHub fromServerPersonalAccessToken(GitHubConfiguration gitHubConfiguration) throws IOException {
-        return clientFor(gitHubConfiguration.personalAccessToken(), gitHubConfiguration);
+        return clientFor(gitHubConfiguration.personalAccessToken(), gitHubConfiguration, false);
     }
 
     public GitHub fromUserOAuthAccessToken(String accessToken, GitHubConfiguration gitHubConfiguration) throws IOException {
-        return clientFor(accessToken, gitHubConfiguration);
+        return clientFor(accessToken, gitHubConfiguration, true);
     }
 
-    private GitHub clientFor(String personalAccessTokenOrUsersAccessToken, GitHubConfiguration gitHubConfiguration) throws IOException {
-        if (gitHubConfiguration.authenticateWith() == AuthenticateWith.GITHUB_ENTERPRISE) {
-            LOG.debug("Create GitHub connection to enterprise GitHub with token");
-            return GitHub.connectToEnterpriseWithOAuth(gitHubConfiguration.gitHubEnterpriseApiUrl(), null, personalAccessTokenOrUsersAccessToken);
-        } else {
-            LOG.debug("Create GitHub connection to public GitHub with token");
+    private GitHub clientFor(String personalAccessTokenOrUsersAccessToken, GitHubConfiguration gitHubConfiguration, boolean usersAccessToken) throws IOException {
+        final GitHubClientRegistry.ClientFactory factory = connector -> {
+            if (gitHubConfiguration.authenticateWith() == AuthenticateWith.GITHUB_ENTERPRISE) {
+                LOG.debug("Create GitHub connection to enterprise GitHub with token");
+            } else {
+                LOG.debug("Create GitHub connection to public GitHub with token");
+            }
+
             return new GitHubBuilder()
-                    .withConnector(GITHUB_CONNECTOR)
+                    .withEndpoint(gitHubConfiguration.apiUrl())
+                    .withConnector(connector)
                     .withOAuthToken(personalAccessTokenOrUsersAccessToken)
                     .withRateLimitHandler(GitHubRateLimitHandler.FAIL)
+                    .withAbuseLimitHandler(GitHubAbuseLimitHandler.FAIL)
                     .build();
-        }
+        };
+
+        return usersAccessToken
+                ? clientRegistry.userClientFor(gitHubConfiguration.apiUrl(), factory)
+                : clientRegistry.clientFor(gitHubConfiguration.apiUrl(), personalAccessTokenOrUsersAccessToken, factory);
     }
 
     public AuthorizationServerArgs authorizationServerArgs(GitHubConfiguration config, String callbackUrl) {
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import cd.go.authorization.github.cache.UserCache;
+import cd.go.authorization.github.utils.Util;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.extras.okhttp3.OkHttpGitHubConnector;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps {@link GitHub} clients of personal access tokens alive between plugin requests, keyed by API URL and a
+ * fingerprint of the token they authenticate with. Clients that have not been used for the idle timeout are dropped,
+ * and busy clients are replaced once they reach their maximum lifetime, which is at most the time users are cached
+ * for, so that users and organizations memoized by a client neither outlive the {@link UserCache} nor pile up. Clients
+ * of users' own access tokens are created for every request and not kept. Every GitHub host, public or enterprise,
+ * gets its own connector with its own bounded connection pool, shared by all clients talking to that host; users'
+ * clients use a connector of that host that does not cache responses on disk.
+ * <p>
+ * A {@link ConnectionPool} only bounds the connections it keeps idle, so concurrent calls to a host are capped as well:
+ * every call holds one of the host's permits until its response body is closed, which bounds the connections it can open. The
+ * host's {@link Dispatcher} is given the same limits, but OkHttp applies those to asynchronous calls only, and the
+ * GitHub API client, GraphQL and team membership calls all execute synchronously.
+ */
+public class GitHubClientRegistry {
+    private static final Logger LOG = Logger.getLoggerFor(GitHubClientRegistry.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.";
+
+    public static final GitHubClientRegistry SHARED = new GitHubClientRegistry(GitHubClientBuilder.HTTP_CLIENT,
+            Integer.getInteger(PROPERTY_PREFIX + "client.registry.size", 1_000),
+            Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "client.idle.timeout.seconds", 600)),
+            min(Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "client.max.lifetime.seconds", 3600)), UserCache.shortestTimeToLiveFromSystemProperties()),
+            System::nanoTime,
+            Integer.getInteger(PROPERTY_PREFIX + "http.max.requests.per.host", 50));
+
+    private final OkHttpClient baseHttpClient;
+    private final ConcurrentHashMap<ClientKey, PooledClient> clients = new ConcurrentHashMap<>();
+    private final int maximumSize;
+    private final Duration idleTimeout;
+    private final Duration maximumLifetime;
+    private final LongSupplier nanoClock;
+    private final int maxRequestsPerHost;
+    private final Map<String, OkHttpClient> httpClientsByHost = new ConcurrentHashMap<>();
+    private final Map<String, GitHubConnector> connectorsByHost = new ConcurrentHashMap<>();
+    private final Map<String, GitHubConnector> uncachedConnectorsByHost = new ConcurrentHashMap<>();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    GitHubClientRegistry(OkHttpClient baseHttpClient, int maximumSize, Duration idleTimeout, Duration maximumLifetime, LongSupplier nanoClock) {
+        this(baseHttpClient, maximumSize, idleTimeout, maximumLifetime, nanoClock, 50);
+    }
+
+    GitHubClientRegistry(OkHttpClient baseHttpClient, int maximumSize, Duration idleTimeout, Duration maximumLifetime, LongSupplier nanoClock, int maxRequestsPerHost) {
+        this.baseHttpClient = baseHttpClient;
+        this.maximumSize = maximumSize;
+        this.idleTimeout = idleTimeout;
+        this.maximumLifetime = maximumLifetime;
+        this.nanoClock = nanoClock;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    /**
+     * @return the pooled client for a personal access token. Only callers asking for the same API URL and token wait
+     * for each other while a client is created.
+     */
+    public GitHub clientFor(String apiUrl, String token, ClientFactory factory) throws IOException {
+        final ClientKey key = new ClientKey(apiUrl, fingerprint(token));
+        final long now = nanoClock.getAsLong();
+        final PooledClient client;
+        try {
+            client = clients.compute(key, (ignored, existing) -> {
+                if (existing != null && !existing.isExpired(now, idleTimeout, maximumLifetime)) {
+                    reused.incrementAndGet();
+                    existing.lastUsedNanos().set(now);
+                    return existing;
+                }
+
+                try {
+                    final PooledClient newClient = new PooledClient(factory.create(connectorFor(apiUrl)), now, new AtomicLong(now));
+                    LOG.debug("Created GitHub client for `{}` ({} created, {} reused so far).", apiUrl, created.incrementAndGet(), reused.get());
+                    return newClient;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (clients.size() > maximumSize) {
+            evict(now);
+        }
+        return client.gitHub();
+    }
+
+    /**
+     * @return a new client for a user's own access token, which is neither kept for other requests nor caches
+     * responses on disk
+     */
+    public GitHub userClientFor(String apiUrl, ClientFactory factory) throws IOException {
+        return factory.create(uncachedConnectorFor(apiUrl));
+    }
+
+    private void evict(long now) {
+        clients.values().removeIf(client -> client.isExpired(now, idleTimeout, maximumLifetime));
+        while (clients.size() > maximumSize) {
+            clients.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastUsedNanos().get()))
+                    .ifPresent(leastRecentlyUsed -> clients.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue()));
+        }
+    }
+
+    public GitHubConnector connectorFor(String apiUrl) {
+        return connectorsByHost.computeIfAbsent(hostOf(apiUrl), ignored -> new OkHttpGitHubConnector(httpClientFor(apiUrl), HttpResponseCache.SHARED.maxAgeSeconds()));
+    }
+
+    GitHubConnector uncachedConnectorFor(String apiUrl) {
+        return uncachedConnectorsByHost.computeIfAbsent(hostOf(apiUrl), ignored -> new OkHttpGitHubConnector(RateLimitBudget.untracked(HttpResponseCache.withoutCache(httpClientFor(apiUrl)))));
+    }
+
+    /**
+     * @return the HTTP client, with its connection pool and request limit, shared by every client talking to the host
+     * of the given API URL
+     */
+    public OkHttpClient httpClientFor(String apiUrl) {
+        return httpClientsByHost.computeIfAbsent(hostOf(apiUrl), ignored -> {
+            final Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(maxRequestsPerHost);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+            return baseHttpClient.newBuilder()
+                    .dispatcher(dispatcher)
+                    .addInterceptor(new HostRequestLimit(maxRequestsPerHost))
+                    .connectionPool(new ConnectionPool(
+                            Integer.getInteger(PROPERTY_PREFIX + "http.pool.max.idle.connections", 5),
+                            Long.getLong(PROPERTY_PREFIX + "http.pool.keep.alive.seconds", 300),
+                            TimeUnit.SECONDS))
+                    .build();
+        });
+    }
+
+    private static String hostOf(String apiUrl) {
+        final HttpUrl url = HttpUrl.parse(apiUrl);
+        return url == null ? apiUrl : url.host() + ":" + url.port();
+    }
+
+    public long created() {
+        return created.get();
+    }
+
+    public long reused() {
+        return reused.get();
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    public void clear() {
+        clients.clear();
+    }
+
+    private static Duration min(Duration first, Duration second) {
+        return first.compareTo(second) <= 0 ? first : second;
+    }
+
+    static String fingerprint(String token) {
+        return Util.fingerprint(token);
+    }
+
+    @FunctionalInterface
+    public interface ClientFactory {
+        GitHub create(GitHubConnector connector) throws IOException;
+    }
+
+    private record ClientKey(String apiUrl, String tokenFingerprint) {
+    }
+
+    private record PooledClient(GitHub gitHub, long createdAtNanos, AtomicLong lastUsedNanos) {
+        boolean isExpired(long now, Duration idleTimeout, Duration maximumLifetime) {
+            return now - lastUsedNanos.get() >= idleTimeout.toNanos() || now - createdAtNanos >= maximumLifetime.toNanos();
+        }
+    }
+
+    private static class HostRequestLimit implements Interceptor {
+        private final Semaphore permits;
+
+        private HostRequestLimit(int maxRequests) {
+            this.permits = new Semaphore(maxRequests, true);
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to call " + chain.request().url().host());
+            }
+            final AtomicBoolean released = new AtomicBoolean();
+            final Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            };
+            try {
+                final Response response = chain.proceed(chain.request());
+                return response.newBuilder().body(new PermitReleasingBody(response.body(), release)).build();
+            } catch (IOException | RuntimeException | Error e) {
+                release.run();
+                throw e;
+            }
+        }
+    }
+
+    private static class PermitReleasingBody extends ResponseBody {
+        private final ResponseBody body;
+        private final BufferedSource source;
+
+        private PermitReleasingBody(ResponseBody body, Runnable release) {
+            this.body = body;
+            this.source = Okio.buffer(new ForwardingSource(body.source()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release.run();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
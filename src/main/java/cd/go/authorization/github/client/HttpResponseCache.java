@@ -0,0 +1,186 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import cd.go.authorization.github.utils.Util;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import okhttp3.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Size-bounded on-disk cache for responses from GitHub. Cached responses are revalidated with their
+ * {@code ETag}/{@code Last-Modified} validators once they are older than the configured max-age, and GitHub does not
+ * count the resulting {@code 304 Not Modified} answers against the rate limit. Least recently used entries are
+ * evicted once the cache outgrows its maximum size.
+ * <p>
+ * Unless configured otherwise, the cache lives in a fresh directory only the owner can read, which is deleted when the
+ * JVM exits. GitHub answers with {@code Vary: Authorization}, which would write the token of every request into the
+ * cache; responses are therefore varied on a fingerprint of the token instead, and the token never reaches the disk.
+ */
+public class HttpResponseCache extends EventListener {
+    private static final Logger LOG = Logger.getLoggerFor(HttpResponseCache.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.";
+
+    static final String AUTHORIZATION_FINGERPRINT = "X-Authorization-Fingerprint";
+    private static final Pattern AUTHORIZATION_IN_VARY = Pattern.compile("(?i)(?<=^|[\\s,])Authorization(?=$|[\\s,])");
+
+    public static final HttpResponseCache SHARED = fromSystemProperties();
+
+    private final Cache cache;
+    private final int maxAgeSeconds;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    HttpResponseCache(File directory, long maxSizeBytes, int maxAgeSeconds) {
+        this.cache = maxSizeBytes > 0 ? new Cache(directory, maxSizeBytes) : null;
+        this.maxAgeSeconds = maxAgeSeconds;
+        if (cache == null) {
+            LOG.info("HTTP response cache is disabled.");
+        } else {
+            LOG.debug("Caching HTTP responses in `{}` (at most {} bytes).", directory, maxSizeBytes);
+        }
+    }
+
+    static HttpResponseCache fromSystemProperties() {
+        final long maxSizeBytes = Long.getLong(PROPERTY_PREFIX + "http.cache.size.mb", 50) * 1024 * 1024;
+        final int maxAgeSeconds = Integer.getInteger(PROPERTY_PREFIX + "http.cache.max.age.seconds", 60);
+        if (maxSizeBytes <= 0) {
+            return new HttpResponseCache(null, 0, maxAgeSeconds);
+        }
+
+        final String configuredDirectory = System.getProperty(PROPERTY_PREFIX + "http.cache.dir");
+        try {
+            if (configuredDirectory != null) {
+                return new HttpResponseCache(privateDirectory(Path.of(configuredDirectory)).toFile(), maxSizeBytes, maxAgeSeconds);
+            }
+
+            final HttpResponseCache responseCache = new HttpResponseCache(
+                    Files.createTempDirectory("github-oauth-authorization-plugin-http-cache-").toFile(), maxSizeBytes, maxAgeSeconds);
+            Runtime.getRuntime().addShutdownHook(new Thread(responseCache::delete, "github-http-cache-cleanup"));
+            return responseCache;
+        } catch (IOException e) {
+            LOG.warn("Could not create a private directory for the HTTP response cache, responses will not be cached.", e);
+            return new HttpResponseCache(null, 0, maxAgeSeconds);
+        }
+    }
+
+    static Path privateDirectory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        if (Files.getFileAttributeView(directory, PosixFileAttributeView.class) != null) {
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+        }
+        return directory;
+    }
+
+    public OkHttpClient.Builder applyTo(OkHttpClient.Builder builder) {
+        return cache == null ? builder : builder.cache(cache).eventListener(this)
+                .addInterceptor(HttpResponseCache::fingerprintAuthorization)
+                .addNetworkInterceptor(HttpResponseCache::varyOnFingerprint);
+    }
+
+    /**
+     * @return the given client without this cache, for requests whose responses must not be written to disk
+     */
+    static OkHttpClient withoutCache(OkHttpClient httpClient) {
+        return httpClient.cache() == null ? httpClient : httpClient.newBuilder().cache(null).eventListener(EventListener.NONE).build();
+    }
+
+    /**
+     * @return the age in seconds after which a cached response is revalidated, or {@code -1} when responses are not
+     * cached at all.
+     */
+    public int maxAgeSeconds() {
+        return cache == null ? -1 : maxAgeSeconds;
+    }
+
+    public HttpCacheStats stats() {
+        long size = 0;
+        if (cache != null) {
+            try {
+                size = cache.size();
+            } catch (IOException e) {
+                LOG.warn("Could not determine size of the HTTP response cache.", e);
+            }
+        }
+        return new HttpCacheStats(hits.get(), revalidations.get(), misses.get(), size, cache == null ? 0 : cache.maxSize());
+    }
+
+    public void evictAll() throws IOException {
+        if (cache != null) {
+            cache.evictAll();
+        }
+    }
+
+    private void delete() {
+        try {
+            cache.delete();
+        } catch (IOException e) {
+            LOG.warn("Could not delete the HTTP response cache.", e);
+        }
+    }
+
+    private static Response fingerprintAuthorization(Interceptor.Chain chain) throws IOException {
+        final Request request = chain.request();
+        final String authorization = request.header("Authorization");
+        if (authorization == null) {
+            return chain.proceed(request);
+        }
+        return chain.proceed(request.newBuilder().header(AUTHORIZATION_FINGERPRINT, Util.fingerprint(authorization)).build());
+    }
+
+    private static Response varyOnFingerprint(Interceptor.Chain chain) throws IOException {
+        final Request request = chain.request();
+        if (request.header(AUTHORIZATION_FINGERPRINT) == null) {
+            return chain.proceed(request);
+        }
+
+        final Response response = chain.proceed(request.newBuilder().removeHeader(AUTHORIZATION_FINGERPRINT).build());
+        final List<String> vary = response.headers("Vary");
+        final Response.Builder varyingOnFingerprint = response.newBuilder().request(request).removeHeader("Vary");
+        for (String value : vary) {
+            varyingOnFingerprint.addHeader("Vary", AUTHORIZATION_IN_VARY.matcher(value).replaceAll(AUTHORIZATION_FINGERPRINT));
+        }
+        return varyingOnFingerprint.build();
+    }
+
+    @Override
+    public void cacheHit(Call call, Response response) {
+        hits.incrementAndGet();
+    }
+
+    @Override
+    public void cacheConditionalHit(Call call, Response cachedResponse) {
+        revalidations.incrementAndGet();
+    }
+
+    @Override
+    public void cacheMiss(Call call) {
+        if ("GET".equals(call.request().method())) {
+            misses.incrementAndGet();
+        }
+    }
+}
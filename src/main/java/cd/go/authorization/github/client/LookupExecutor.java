@@ -0,0 +1,72 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import com.thoughtworks.go.plugin.api.logging.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking calls to GitHub. On JVMs with virtual threads every call gets its own virtual thread, otherwise calls
+ * share a bounded pool of daemon threads. Callers bound their own parallelism on top of this executor.
+ */
+public final class LookupExecutor {
+    private static final Logger LOG = Logger.getLoggerFor(LookupExecutor.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.";
+
+    public static final ExecutorService SHARED = create(Integer.getInteger(PROPERTY_PREFIX + "lookup.platform.threads", 32));
+
+    private LookupExecutor() {
+    }
+
+    static ExecutorService create(int platformThreads) {
+        try {
+            final ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            LOG.debug("Running GitHub lookups on virtual threads.");
+            return executor;
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            LOG.debug("Virtual threads are not available, running GitHub lookups on {} platform threads.", platformThreads);
+            return platformThreadPool(platformThreads);
+        }
+    }
+
+    static ExecutorService platformThreadPool(int threads) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new DaemonThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "github-lookup-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
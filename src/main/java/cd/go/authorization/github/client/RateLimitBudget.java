@@ -0,0 +1,231 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import cd.go.authorization.github.exceptions.RateLimitBudgetExceededException;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the rate limit left for every personal access token from the {@code X-RateLimit-*} headers GitHub sends with
+ * each response, and admits calls by their {@link RequestPriority}. Once the remaining budget of a token drops into the
+ * part reserved for higher priorities, calls are answered from the HTTP response cache regardless of age where
+ * possible, and fail fast otherwise instead of spending what is left for logins. Budgets are assumed to be replenished
+ * once their reset time has passed, and are dropped then.
+ * <p>
+ * Budgets are recorded per resource as named by {@code X-RateLimit-Resource}, and calls are admitted against the
+ * resource their path belongs to. Calls made with users' own access tokens, marked by {@link #untracked}, are
+ * neither tracked nor throttled, so that every user who ever logged in does not leave a budget behind.
+ */
+public class RateLimitBudget {
+    private static final Logger LOG = Logger.getLoggerFor(RateLimitBudget.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.";
+    private static final CacheControl STALE_IF_CACHED = new CacheControl.Builder()
+            .onlyIfCached()
+            .maxStale(Integer.MAX_VALUE, TimeUnit.SECONDS)
+            .build();
+    private static final long PRUNE_INTERVAL_MILLIS = 60_000;
+
+    public static final String CORE = "core";
+    public static final String GRAPHQL = "graphql";
+    public static final String SEARCH = "search";
+
+    public static final RateLimitBudget SHARED = new RateLimitBudget(
+            Boolean.parseBoolean(System.getProperty(PROPERTY_PREFIX + "rate.limit.admission.enabled", "true")),
+            System::currentTimeMillis);
+
+    private final boolean enabled;
+    private final LongSupplier epochMillisClock;
+    private final Map<BudgetKey, Budget> budgets = new ConcurrentHashMap<>();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong servedStale = new AtomicLong();
+    private final AtomicLong nextPruneAtMillis = new AtomicLong();
+
+    RateLimitBudget(boolean enabled, LongSupplier epochMillisClock) {
+        this.enabled = enabled;
+        this.epochMillisClock = epochMillisClock;
+    }
+
+    /**
+     * Admission happens before the response cache is consulted, while budgets are recorded from network responses
+     * only, so that cached responses never report outdated budgets.
+     */
+    public OkHttpClient.Builder applyTo(OkHttpClient.Builder builder) {
+        return enabled ? builder.addInterceptor(this::admit).addNetworkInterceptor(this::record) : builder;
+    }
+
+    /**
+     * @return a client like the given one whose calls are not tracked, for clients of users' own access tokens
+     */
+    public static OkHttpClient untracked(OkHttpClient httpClient) {
+        return httpClient.newBuilder()
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder().tag(Untracked.class, Untracked.INSTANCE).build()))
+                .build();
+    }
+
+    private Response admit(Interceptor.Chain chain) throws IOException {
+        final Request request = chain.request();
+        final RequestPriority priority = RequestPriority.current();
+        final Budget budget = isTracked(request) ? current(BudgetKey.of(request, resourceOf(request))) : null;
+        if (budget == null || budget.admits(priority)) {
+            return chain.proceed(request);
+        }
+
+        throttled.incrementAndGet();
+        if ("GET".equals(request.method())) {
+            final Response cached = chain.proceed(request.newBuilder().cacheControl(STALE_IF_CACHED).build());
+            if (cached.code() != 504) {
+                servedStale.incrementAndGet();
+                LOG.debug("Rate limit of {} is reserved for higher priorities than {}, answered `{}` from cache.", budget, priority, request.url().encodedPath());
+                return cached;
+            }
+            cached.close();
+        }
+
+        throw new RateLimitBudgetExceededException("Rate limit is reserved for higher priorities than " + priority
+                + " until " + Instant.ofEpochSecond(budget.resetEpochSeconds()) + " (" + budget + ").");
+    }
+
+    private Response record(Interceptor.Chain chain) throws IOException {
+        final Request request = chain.request();
+        final Response response = chain.proceed(request);
+        if (!isTracked(request)) {
+            return response;
+        }
+
+        final Long limit = longHeader(response, "X-RateLimit-Limit");
+        final Long remaining = longHeader(response, "X-RateLimit-Remaining");
+        final Long reset = longHeader(response, "X-RateLimit-Reset");
+        if (limit != null && remaining != null && reset != null) {
+            final String resource = response.header("X-RateLimit-Resource");
+            budgets.put(BudgetKey.of(request, resource == null ? resourceOf(request) : resource.trim()), new Budget(limit, remaining, reset));
+            pruneIfDue();
+        }
+        return response;
+    }
+
+    private static boolean isTracked(Request request) {
+        return request.header("Authorization") != null && request.tag(Untracked.class) == null;
+    }
+
+    private static String resourceOf(Request request) {
+        final String path = request.url().encodedPath();
+        return path.endsWith("/graphql") ? GRAPHQL : path.contains("/search/code") ? "code_search" : path.contains("/search/") ? SEARCH : CORE;
+    }
+
+    /**
+     * @return the budget recorded for the key, or {@code null} if there is none or it has been reset since, in which
+     * case it is dropped
+     */
+    private Budget current(BudgetKey key) {
+        final Budget budget = budgets.get(key);
+        if (budget != null && budget.isResetAt(epochMillisClock.getAsLong())) {
+            budgets.remove(key, budget);
+            return null;
+        }
+        return budget;
+    }
+
+    private void pruneIfDue() {
+        final long now = epochMillisClock.getAsLong();
+        final long due = nextPruneAtMillis.get();
+        if (now >= due && nextPruneAtMillis.compareAndSet(due, now + PRUNE_INTERVAL_MILLIS)) {
+            budgets.values().removeIf(budget -> budget.isResetAt(now));
+        }
+    }
+
+    private static Long longHeader(Response response, String name) {
+        final String value = response.header(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param resource the rate limit resource, such as {@link #CORE}, {@link #GRAPHQL} or {@link #SEARCH}
+     * @return the remaining rate limit of a token for the resource on the GitHub host of the API URL as of its latest
+     * response, or {@code null} if it is not known or has been reset since
+     */
+    public Long remaining(String apiUrl, String token, String resource) {
+        final HttpUrl url = HttpUrl.parse(apiUrl);
+        if (url == null) {
+            return null;
+        }
+
+        final Budget budget = current(new BudgetKey(url.host() + ":" + url.port(), GitHubClientRegistry.fingerprint(token), resource));
+        return budget == null ? null : budget.remaining();
+    }
+
+    int size() {
+        return budgets.size();
+    }
+
+    public long throttled() {
+        return throttled.get();
+    }
+
+    public long servedStale() {
+        return servedStale.get();
+    }
+
+    public void clear() {
+        budgets.clear();
+    }
+
+    private record BudgetKey(String host, String tokenFingerprint, String resource) {
+        static BudgetKey of(Request request, String resource) {
+            return new BudgetKey(request.url().host() + ":" + request.url().port(),
+                    GitHubClientRegistry.fingerprint(tokenOf(request.header("Authorization"))), resource);
+        }
+
+        private static String tokenOf(String authorization) {
+            return authorization == null ? null : authorization.substring(authorization.indexOf(' ') + 1);
+        }
+    }
+
+    private record Budget(long limit, long remaining, long resetEpochSeconds) {
+        boolean admits(RequestPriority priority) {
+            return remaining > limit * priority.reservedFraction();
+        }
+
+        boolean isResetAt(long nowEpochMillis) {
+            return nowEpochMillis >= resetEpochSeconds * 1000;
+        }
+
+        @Override
+        public String toString() {
+            return remaining + "/" + limit + " left";
+        }
+    }
+
+    private enum Untracked {
+        INSTANCE
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import cd.go.authorization.github.exceptions.SecondaryRateLimitException;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Retries calls that GitHub rejected because of a (secondary) rate limit. A {@code Retry-After} header is honored as
+ * is, an exhausted primary rate limit is waited out until its reset, and anything else backs off exponentially with
+ * jitter. A call gives up, handing the rejection to its caller, once the next attempt would start after its deadline.
+ * Backoffs from secondary rate limits are tracked per host, so concurrent calls to a host that asked to back off wait for the same moment
+ * instead of each retrying on its own schedule, and calls to a host that is backed off past their deadline fail
+ * without being sent.
+ */
+public class RateLimitRetry implements Interceptor {
+    private static final Logger LOG = Logger.getLoggerFor(RateLimitRetry.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.";
+
+    public static final RateLimitRetry SHARED = new RateLimitRetry(
+            Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "retry.deadline.seconds", 30)),
+            Integer.getInteger(PROPERTY_PREFIX + "retry.max.attempts", 4),
+            Duration.ofMillis(Long.getLong(PROPERTY_PREFIX + "retry.initial.backoff.millis", 1_000)),
+            System::currentTimeMillis,
+            Thread::sleep,
+            () -> ThreadLocalRandom.current().nextDouble());
+
+    private final Duration deadline;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final LongSupplier epochMillisClock;
+    private final Sleeper sleeper;
+    private final DoubleSupplier random;
+    private final Map<String, Long> blockedUntilByHost = new ConcurrentHashMap<>();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    RateLimitRetry(Duration deadline, int maxAttempts, Duration initialBackoff, LongSupplier epochMillisClock, Sleeper sleeper, DoubleSupplier random) {
+        this.deadline = deadline;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.epochMillisClock = epochMillisClock;
+        this.sleeper = sleeper;
+        this.random = random;
+    }
+
+    public OkHttpClient.Builder applyTo(OkHttpClient.Builder builder) {
+        return maxAttempts > 1 ? builder.addInterceptor(this) : builder;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final String host = request.url().host() + ":" + request.url().port();
+        final long giveUpAt = epochMillisClock.getAsLong() + deadline.toMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            awaitBackoff(host, giveUpAt);
+
+            final Response response = chain.proceed(request);
+            if (!isRateLimited(response)) {
+                return response;
+            }
+
+            throttled.incrementAndGet();
+            final long now = epochMillisClock.getAsLong();
+            final long retryAt = now + backoffMillis(response, attempt, now);
+            if (!hasExhaustedPrimaryRateLimit(response)) {
+                blockedUntilByHost.merge(host, retryAt, Math::max);
+            }
+
+            if (attempt >= maxAttempts || retryAt > giveUpAt) {
+                LOG.warn("GitHub rate limited `{} {}`, giving up after {} attempt(s).", request.method(), request.url().encodedPath(), attempt);
+                return response;
+            }
+
+            LOG.debug("GitHub rate limited `{} {}`, retrying at {}.", request.method(), request.url().encodedPath(), Instant.ofEpochMilli(retryAt));
+            response.close();
+            retried.incrementAndGet();
+            sleepUntil(retryAt, host);
+        }
+    }
+
+    private void awaitBackoff(String host, long giveUpAt) throws IOException {
+        final Long blockedUntil = blockedUntilByHost.get(host);
+        if (blockedUntil == null) {
+            return;
+        }
+
+        final long waitMillis = blockedUntil - epochMillisClock.getAsLong();
+        if (waitMillis <= 0) {
+            blockedUntilByHost.remove(host, blockedUntil);
+            return;
+        }
+        if (blockedUntil > giveUpAt) {
+            throw new SecondaryRateLimitException("GitHub asked to back off from " + host + " until " + Instant.ofEpochMilli(blockedUntil) + ".");
+        }
+
+        sleepUntil(blockedUntil, host);
+    }
+
+    private void sleepUntil(long epochMillis, String host) throws InterruptedIOException {
+        final long waitMillis = epochMillis - epochMillisClock.getAsLong();
+        if (waitMillis <= 0) {
+            return;
+        }
+        try {
+            sleeper.sleep(waitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off from " + host + ".");
+        }
+    }
+
+    private static boolean isRateLimited(Response response) throws IOException {
+        if (response.code() == 429) {
+            return true;
+        }
+        return response.code() == 403 && (response.header("Retry-After") != null
+                || hasExhaustedPrimaryRateLimit(response)
+                || response.peekBody(4096).string().contains("rate limit"));
+    }
+
+    private static boolean hasExhaustedPrimaryRateLimit(Response response) {
+        return response.header("Retry-After") == null && "0".equals(response.header("X-RateLimit-Remaining"));
+    }
+
+    private long backoffMillis(Response response, int attempt, long now) {
+        final Long retryAfterSeconds = longHeader(response, "Retry-After");
+        if (retryAfterSeconds != null) {
+            return retryAfterSeconds * 1000;
+        }
+
+        final Long resetEpochSeconds = longHeader(response, "X-RateLimit-Reset");
+        if (hasExhaustedPrimaryRateLimit(response) && resetEpochSeconds != null) {
+            return Math.max(0, resetEpochSeconds * 1000 - now);
+        }
+
+        final long exponential = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        return exponential / 2 + (long) (exponential / 2 * random.getAsDouble());
+    }
+
+    private static Long longHeader(Response response, String name) {
+        final String value = response.header(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long throttled() {
+        return throttled.get();
+    }
+
+    public long retried() {
+        return retried.get();
+    }
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Priority of the plugin request a call to GitHub is made for. As the rate limit of a token runs low, calls of lower
+ * priorities are throttled first, so that a reserve is left for logins. The priority is bound to the thread handling
+ * the plugin request and has to be carried over explicitly to tasks running on other threads.
+ */
+public enum RequestPriority {
+    AUTHENTICATE_USER(0.0),
+    GET_USER_ROLES(0.05),
+    IS_VALID_USER(0.10),
+    SEARCH_USERS(0.20),
+    BACKGROUND(0.30);
+
+    private static final ThreadLocal<RequestPriority> CURRENT = new ThreadLocal<>();
+
+    private final double reservedFraction;
+
+    RequestPriority(double reservedFraction) {
+        this.reservedFraction = reservedFraction;
+    }
+
+    /**
+     * @return the part of a rate limit that calls of this priority leave untouched for calls of higher priorities
+     */
+    public double reservedFraction() {
+        return reservedFraction;
+    }
+
+    public static RequestPriority current() {
+        final RequestPriority priority = CURRENT.get();
+        return priority == null ? AUTHENTICATE_USER : priority;
+    }
+
+    /**
+     * @return what the given task returned, running it on the calling thread with this priority
+     */
+    public <T, E extends Exception> T call(Task<T, E> task) throws E {
+        final RequestPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return a task that runs the given one with the priority of the calling thread
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        final RequestPriority priority = current();
+        return () -> priority.call(task::call);
+    }
+
+    @FunctionalInterface
+    public interface Task<T, E extends Exception> {
+        T call() throws E;
+    }
+}
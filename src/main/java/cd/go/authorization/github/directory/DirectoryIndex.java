@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.directory;
+
+import cd.go.authorization.github.models.User;
+
+import java.util.*;
+
+import static cd.go.authorization.github.utils.Util.toLowerCase;
+
+/**
+ * Immutable index of the members of an organization, matching search terms against the start of logins and of words
+ * in names with a binary search, and against any part of logins and names with a scan.
+ */
+public final class DirectoryIndex {
+    public static final DirectoryIndex EMPTY = new DirectoryIndex(List.of());
+
+    private final User[] users;
+    private final String[] searchTexts;
+    private final String[] prefixes;
+    private final int[] prefixOwners;
+
+    public DirectoryIndex(Collection<User> members) {
+        this.users = members.stream().sorted(Comparator.comparing(user -> toLowerCase(user.username()))).toArray(User[]::new);
+        this.searchTexts = new String[users.length];
+
+        final List<Prefix> prefixes = new ArrayList<>();
+        for (int i = 0; i < users.length; i++) {
+            final String login = toLowerCase(users[i].username());
+            final String name = users[i].displayName() == null ? "" : toLowerCase(users[i].displayName());
+            searchTexts[i] = login + "\n" + name;
+            prefixes.add(new Prefix(login, i));
+            for (String word : name.split("\\s+")) {
+                if (!word.isEmpty()) {
+                    prefixes.add(new Prefix(word, i));
+                }
+            }
+        }
+        prefixes.sort(Comparator.comparing(Prefix::text));
+
+        this.prefixes = prefixes.stream().map(Prefix::text).toArray(String[]::new);
+        this.prefixOwners = prefixes.stream().mapToInt(Prefix::owner).toArray();
+    }
+
+    /**
+     * @return up to {@code limit} members whose login or name starts with the term, followed by those containing it
+     */
+    public List<User> search(String term, int limit) {
+        final String needle = term == null ? "" : toLowerCase(term.trim());
+        if (needle.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        final Set<Integer> matches = new LinkedHashSet<>();
+        for (int i = lowerBound(needle); i < prefixes.length && matches.size() < limit && prefixes[i].startsWith(needle); i++) {
+            matches.add(prefixOwners[i]);
+        }
+        for (int i = 0; i < searchTexts.length && matches.size() < limit; i++) {
+            if (searchTexts[i].contains(needle)) {
+                matches.add(i);
+            }
+        }
+
+        return matches.stream().map(i -> users[i]).toList();
+    }
+
+    public int size() {
+        return users.length;
+    }
+
+    private int lowerBound(String needle) {
+        int low = 0;
+        int high = prefixes.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (prefixes[middle].compareTo(needle) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private record Prefix(String text, int owner) {
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.directory;
+
+import cd.go.authorization.github.UserProfileResolver;
+import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.client.RequestPriority;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.User;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.GHOrganization;
+import org.kohsuke.github.GHUser;
+import org.kohsuke.github.GitHub;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static cd.go.authorization.github.utils.Util.toLowerCase;
+
+/**
+ * Local directory of the members of the allowed organizations of the auth configs that users were searched with, so
+ * that searches are answered without the search API. The members of every organization, with their names and emails,
+ * are listed in the background and replace its previous {@link DirectoryIndex} as a whole; an organization that
+ * could not be listed keeps its previous index. Organizations not searched for a day are dropped.
+ */
+public class UserDirectory {
+    private static final Logger LOG = Logger.getLoggerFor(UserDirectory.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.directory.";
+    private static final int PAGE_SIZE = 100;
+    private static final int PROFILE_BATCH_SIZE = 50;
+    private static final Duration TARGET_RETENTION = Duration.ofDays(1);
+
+
+    private final GitHubClientBuilder clientBuilder;
+    private final UserProfileResolver profileResolver;
+    private final Duration refreshInterval;
+    private final LongSupplier nanoClock;
+    private final Supplier<ScheduledExecutorService> schedulerFactory;
+    private final Map<OrganizationKey, Target> targets = new ConcurrentHashMap<>();
+    private final Map<OrganizationKey, DirectoryIndex> indexes = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private boolean stopped;
+
+    public UserDirectory(GitHubClientBuilder clientBuilder, UserProfileResolver profileResolver, Duration refreshInterval, LongSupplier nanoClock) {
+        this(clientBuilder, profileResolver, refreshInterval, nanoClock, UserDirectory::directoryThread);
+    }
+
+    UserDirectory(GitHubClientBuilder clientBuilder, UserProfileResolver profileResolver, Duration refreshInterval, LongSupplier nanoClock,
+                  Supplier<ScheduledExecutorService> schedulerFactory) {
+        this.clientBuilder = clientBuilder;
+        this.profileResolver = profileResolver;
+        this.refreshInterval = refreshInterval;
+        this.nanoClock = nanoClock;
+        this.schedulerFactory = schedulerFactory;
+    }
+
+    public static UserDirectory fromSystemProperties(GitHubClientBuilder clientBuilder, UserProfileResolver profileResolver) {
+        return new UserDirectory(clientBuilder, profileResolver,
+                Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "refresh.interval.seconds", 0)),
+                System::nanoTime);
+    }
+
+    public boolean isEnabled() {
+        return !refreshInterval.isZero() && !refreshInterval.isNegative();
+    }
+
+    /**
+     * @return up to {@code limit} members of the allowed organizations of the auth config matching the term, or nothing
+     * if none of those organizations have been listed (yet)
+     */
+    public List<User> search(GitHubConfiguration gitHubConfiguration, String term, int limit) {
+        if (!isEnabled()) {
+            return List.of();
+        }
+
+        final Map<String, User> matches = new LinkedHashMap<>();
+        for (String organization : gitHubConfiguration.organizationsAllowed()) {
+            final DirectoryIndex index = indexes.get(new OrganizationKey(gitHubConfiguration.apiUrl(), organization));
+            if (index != null) {
+                index.search(term, limit).forEach(user -> matches.putIfAbsent(toLowerCase(user.username()), user));
+            }
+        }
+        return matches.values().stream().limit(limit).toList();
+    }
+
+    public void register(GitHubConfiguration gitHubConfiguration) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final long now = nanoClock.getAsLong();
+        boolean added = false;
+        for (String organization : gitHubConfiguration.organizationsAllowed()) {
+            added |= targets.put(new OrganizationKey(gitHubConfiguration.apiUrl(), organization), new Target(gitHubConfiguration, now)) == null;
+        }
+        if (added) {
+            startIfNeeded();
+        }
+    }
+
+    /**
+     * Stops listing members for good; the latest indexes keep answering searches.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private synchronized void startIfNeeded() {
+        if (scheduler == null && !stopped) {
+            scheduler = schedulerFactory.get();
+            scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toSeconds(), TimeUnit.SECONDS);
+            LOG.info("Listing members of allowed organizations for user searches every {}.", refreshInterval);
+        }
+    }
+
+    private static ScheduledExecutorService directoryThread() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "github-user-directory");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void refreshQuietly() {
+        try {
+            RequestPriority.BACKGROUND.run(this::refresh);
+        } catch (RuntimeException e) {
+            LOG.error("Could not refresh user directory.", e);
+        }
+    }
+
+    void refresh() {
+        final long now = nanoClock.getAsLong();
+        targets.values().removeIf(target -> now - target.lastRequestedNanos() > TARGET_RETENTION.toNanos());
+        indexes.keySet().retainAll(targets.keySet());
+
+        for (Map.Entry<OrganizationKey, Target> entry : targets.entrySet()) {
+            try {
+                final DirectoryIndex index = list(entry.getValue().gitHubConfiguration(), entry.getKey().organization());
+                indexes.put(entry.getKey(), index);
+                LOG.debug("Listed {} members of `{}` for user searches.", index.size(), entry.getKey().organization());
+            } catch (IOException e) {
+                LOG.warn("Could not list members of `{}`, keeping the previous ones for user searches.", entry.getKey().organization(), e);
+            }
+        }
+    }
+
+    private DirectoryIndex list(GitHubConfiguration gitHubConfiguration, String organizationName) throws IOException {
+        final GitHub gitHub = clientBuilder.fromServerPersonalAccessToken(gitHubConfiguration);
+        final GHOrganization organization;
+        try {
+            organization = gitHub.getOrganization(organizationName);
+        } catch (GHFileNotFoundException e) {
+            return DirectoryIndex.EMPTY;
+        }
+        if (organization == null) {
+            return DirectoryIndex.EMPTY;
+        }
+
+        final List<GHUser> members = organization.listMembers().withPageSize(PAGE_SIZE).toList();
+        final List<User> profiles = new ArrayList<>(members.size());
+        for (int from = 0; from < members.size(); from += PROFILE_BATCH_SIZE) {
+            profiles.addAll(profileResolver.profilesOf(gitHubConfiguration, members.subList(from, Math.min(members.size(), from + PROFILE_BATCH_SIZE))));
+        }
+        return new DirectoryIndex(profiles);
+    }
+
+    private record OrganizationKey(String apiUrl, String organization) {
+    }
+
+    private record Target(GitHubConfiguration gitHubConfiguration, long lastRequestedNanos) {
+    }
+}
@@ -46,6 +46,10 @@ public class AuthConfigValidateRequestExecutor implements RequestExecutor {
             validationResult.addError("PersonalAccessToken", "PersonalAccessToken must not be blank.");
         }
 
+        if (!gitHubConfiguration.hasValidMembershipCheckParallelism()) {
+            validationResult.addError("MembershipCheckParallelism", "MembershipCheckParallelism must be a number between 1 and " + GitHubConfiguration.MAX_MEMBERSHIP_CHECK_PARALLELISM + ".");
+        }
+
         return DefaultGoPluginApiResponse.success(validationResult.toJSON());
     }
 }
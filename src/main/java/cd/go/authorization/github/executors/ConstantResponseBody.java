@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.executors;
+
+import java.util.function.Supplier;
+
+/**
+ * A response body that never changes, built on first use and handed out from then on. Unlike building it in a
+ * static initializer, a failure to build it, such as a resource that could not be read, fails only the request that
+ * asked for it; the next request tries again instead of the executor class being unusable until the plugin reloads.
+ */
+class ConstantResponseBody {
+    private final Supplier<String> builder;
+    private volatile String body;
+
+    ConstantResponseBody(Supplier<String> builder) {
+        this.builder = builder;
+    }
+
+    String get() {
+        String built = body;
+        if (built == null) {
+            built = builder.get();
+            body = built;
+        }
+        return built;
+    }
+}
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.executors;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.client.GitHubClientBuilder;
 import cd.go.authorization.github.exceptions.AuthenticationException;
 import cd.go.authorization.github.models.AuthConfig;
@@ -33,8 +34,8 @@ public class FetchAccessTokenRequestExecutor implements RequestExecutor {
     private final FetchAccessTokenRequest request;
     private final GitHubClientBuilder gitHubClientBuilder;
 
-    public FetchAccessTokenRequestExecutor(FetchAccessTokenRequest request) {
-        this(request, new GitHubClientBuilder());
+    public FetchAccessTokenRequestExecutor(FetchAccessTokenRequest request, GitHubServices services) {
+        this(request, services.clientBuilder());
     }
 
     FetchAccessTokenRequestExecutor(FetchAccessTokenRequest request, GitHubClientBuilder gitHubClientBuilder) {
@@ -24,12 +24,16 @@ import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 import static cd.go.authorization.github.utils.Util.GSON;
 
 public class GetAuthConfigViewRequestExecutor implements RequestExecutor {
+    private static final ConstantResponseBody RESPONSE_BODY = new ConstantResponseBody(GetAuthConfigViewRequestExecutor::responseBody);
 
     @Override
     public GoPluginApiResponse execute() {
+        return DefaultGoPluginApiResponse.success(RESPONSE_BODY.get());
+    }
+
+    private static String responseBody() {
         JsonObject jsonObject = new JsonObject();
         jsonObject.addProperty("template", Util.readResource("/auth-config.template.html"));
-        return DefaultGoPluginApiResponse.success(GSON.toJson(jsonObject));
+        return GSON.toJson(jsonObject);
     }
-
 }
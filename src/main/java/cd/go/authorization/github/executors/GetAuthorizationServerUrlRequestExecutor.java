@@ -17,6 +17,7 @@
 package cd.go.authorization.github.executors;
 
 import cd.go.authorization.github.Constants;
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.client.AuthorizationServerArgs;
 import cd.go.authorization.github.client.GitHubClientBuilder;
 import cd.go.authorization.github.models.AuthConfig;
@@ -34,8 +35,8 @@ public class GetAuthorizationServerUrlRequestExecutor implements RequestExecutor
     private final GetAuthorizationServerUrlRequest request;
     private final GitHubClientBuilder gitHubClientBuilder;
 
-    public GetAuthorizationServerUrlRequestExecutor(GetAuthorizationServerUrlRequest request) {
-        this(request, new GitHubClientBuilder());
+    public GetAuthorizationServerUrlRequestExecutor(GetAuthorizationServerUrlRequest request, GitHubServices services) {
+        this(request, services.clientBuilder());
     }
 
     public GetAuthorizationServerUrlRequestExecutor(GetAuthorizationServerUrlRequest request, GitHubClientBuilder gitHubClientBuilder) {
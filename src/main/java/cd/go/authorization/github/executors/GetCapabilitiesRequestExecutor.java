@@ -24,13 +24,13 @@ import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 import static com.thoughtworks.go.plugin.api.response.DefaultGoApiResponse.SUCCESS_RESPONSE_CODE;
 
 public class GetCapabilitiesRequestExecutor {
+    private static final ConstantResponseBody RESPONSE_BODY = new ConstantResponseBody(() -> getCapabilities().toJSON());
 
     public GoPluginApiResponse execute() {
-        Capabilities capabilities = getCapabilities();
-        return new DefaultGoPluginApiResponse(SUCCESS_RESPONSE_CODE, capabilities.toJSON());
+        return new DefaultGoPluginApiResponse(SUCCESS_RESPONSE_CODE, RESPONSE_BODY.get());
     }
 
-    Capabilities getCapabilities() {
+    static Capabilities getCapabilities() {
         return new Capabilities(SupportedAuthType.Web, true, true, true);
     }
 }
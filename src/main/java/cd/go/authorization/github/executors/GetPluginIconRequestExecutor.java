@@ -27,21 +27,25 @@ import java.util.Base64;
 import static cd.go.authorization.github.utils.Util.GSON;
 
 public class GetPluginIconRequestExecutor implements RequestExecutor {
+    private static final ConstantResponseBody RESPONSE_BODY = new ConstantResponseBody(GetPluginIconRequestExecutor::responseBody);
 
     @Override
     public GoPluginApiResponse execute() {
+        return DefaultGoPluginApiResponse.success(RESPONSE_BODY.get());
+    }
+
+    private static String responseBody() {
         JsonObject jsonObject = new JsonObject();
         jsonObject.addProperty("content_type", getContentType());
         jsonObject.addProperty("data", Base64.getEncoder().encodeToString(Util.readResourceBytes(getIcon())));
-        return DefaultGoPluginApiResponse.success(GSON.toJson(jsonObject));
-
+        return GSON.toJson(jsonObject);
     }
 
-    private String getContentType() {
+    private static String getContentType() {
         return "image/svg+xml";
     }
 
-    private String getIcon() {
+    private static String getIcon() {
         return "/logo.svg";
     }
 }
@@ -27,9 +27,14 @@ import java.util.List;
 import static cd.go.authorization.github.utils.Util.GSON;
 
 public class GetRoleConfigMetadataRequestExecutor implements RequestExecutor {
+    private static final ConstantResponseBody RESPONSE_BODY = new ConstantResponseBody(GetRoleConfigMetadataRequestExecutor::responseBody);
 
     public GoPluginApiResponse execute() {
-        final List<ProfileMetadata<?>> authConfigMetadata = MetadataHelper.getMetadata(GitHubRoleConfiguration.class);
-        return DefaultGoPluginApiResponse.success(GSON.toJson(authConfigMetadata));
+        return DefaultGoPluginApiResponse.success(RESPONSE_BODY.get());
+    }
+
+    private static String responseBody() {
+        final List<ProfileMetadata<?>> metadata = MetadataHelper.getMetadata(GitHubRoleConfiguration.class);
+        return GSON.toJson(metadata);
     }
 }
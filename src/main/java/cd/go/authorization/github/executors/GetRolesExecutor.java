@@ -17,11 +17,15 @@
 package cd.go.authorization.github.executors;
 
 import cd.go.authorization.github.GitHubAuthorizer;
+import cd.go.authorization.github.GitHubServices;
+import cd.go.authorization.github.cache.RoleCache;
+import cd.go.authorization.github.cache.UserCache;
 import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.GitHubUser;
 import cd.go.authorization.github.requests.GetRolesRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
-import org.kohsuke.github.GHUser;
 import org.kohsuke.github.GitHub;
 
 import java.io.IOException;
@@ -34,15 +38,19 @@ public class GetRolesExecutor implements RequestExecutor {
     private final GetRolesRequest request;
     private final GitHubClientBuilder clientBuilder;
     private final GitHubAuthorizer gitHubAuthorizer;
+    private final UserCache userCache;
+    private final RoleCache roleCache;
 
-    public GetRolesExecutor(GetRolesRequest request) {
-        this(request, new GitHubAuthorizer(), new GitHubClientBuilder());
+    public GetRolesExecutor(GetRolesRequest request, GitHubServices services) {
+        this(request, services.authorizer(), services.clientBuilder(), services.userCache(), services.roleCache());
     }
 
-    GetRolesExecutor(GetRolesRequest request, GitHubAuthorizer gitHubAuthorizer, GitHubClientBuilder clientBuilder) {
+    GetRolesExecutor(GetRolesRequest request, GitHubAuthorizer gitHubAuthorizer, GitHubClientBuilder clientBuilder, UserCache userCache, RoleCache roleCache) {
         this.request = request;
         this.clientBuilder = clientBuilder;
         this.gitHubAuthorizer = gitHubAuthorizer;
+        this.userCache = userCache;
+        this.roleCache = roleCache;
     }
 
     @Override
@@ -52,18 +60,22 @@ public class GetRolesExecutor implements RequestExecutor {
             return DefaultGoPluginApiResponse.success("[]");
         }
 
-        GitHub gitHub = clientBuilder.fromServerPersonalAccessToken(request.getAuthConfig().gitHubConfiguration());
-        GHUser user = gitHub.getUser(request.getUsername());
+        List<String> roles = roleCache.get(request.fingerprint(), request.getUsername(), this::authorize);
 
-        if (user == null) {
+        if (roles == null) {
             LOG.error("User `{}` does not exist in GitHub.", request.getUsername());
             return DefaultGoPluginApiResponse.error("");
         }
 
-        List<String> roles = gitHubAuthorizer.authorize(user, request.getAuthConfig(), request.getRoles());
-
         LOG.debug("User `{}` has `{}` roles.", request.getUsername(), roles);
         return DefaultGoPluginApiResponse.success(GSON.toJson(roles));
     }
-}
 
+    private List<String> authorize() throws IOException {
+        GitHubConfiguration gitHubConfiguration = request.getAuthConfig().gitHubConfiguration();
+        GitHub gitHub = clientBuilder.fromServerPersonalAccessToken(gitHubConfiguration);
+        GitHubUser user = userCache.getUser(gitHub, gitHubConfiguration, request.getUsername());
+
+        return user == null ? null : gitHubAuthorizer.authorize(user, request.getAuthConfig(), request.getRoles());
+    }
+}
@@ -16,8 +16,15 @@
 
 package cd.go.authorization.github.executors;
 
+import cd.go.authorization.github.client.RequestPriority;
 import cd.go.authorization.github.exceptions.NoSuchRequestHandlerException;
 
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 public enum RequestFromServer {
 
     REQUEST_GET_PLUGIN_ICON(Constants.REQUEST_PREFIX + ".get-icon"),
@@ -41,6 +48,9 @@ public enum RequestFromServer {
     REQUEST_AUTHORIZATION_SERVER_REDIRECT_URL(Constants.REQUEST_PREFIX + ".authorization-server-url"),
     REQUEST_ACCESS_TOKEN(Constants.REQUEST_PREFIX + ".fetch-access-token");
 
+    private static final Map<String, RequestFromServer> BY_REQUEST_NAME = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(requestFromServer -> requestFromServer.requestName, Function.identity()));
+
     private final String requestName;
 
     RequestFromServer(String requestName) {
@@ -49,10 +59,14 @@ public enum RequestFromServer {
 
     public static RequestFromServer fromString(String requestName) {
         if (requestName != null) {
-            for (RequestFromServer requestFromServer : RequestFromServer.values()) {
-                if (requestName.equalsIgnoreCase(requestFromServer.requestName)) {
-                    return requestFromServer;
-                }
+            final RequestFromServer requestFromServer = BY_REQUEST_NAME.get(requestName);
+            if (requestFromServer != null) {
+                return requestFromServer;
+            }
+
+            final RequestFromServer ignoringCase = BY_REQUEST_NAME.get(requestName.toLowerCase(Locale.ROOT));
+            if (ignoringCase != null) {
+                return ignoringCase;
             }
         }
 
@@ -63,6 +77,15 @@ public enum RequestFromServer {
         return requestName;
     }
 
+    public RequestPriority priority() {
+        return switch (this) {
+            case REQUEST_GET_USER_ROLES -> RequestPriority.GET_USER_ROLES;
+            case REQUEST_IS_VALID_USER -> RequestPriority.IS_VALID_USER;
+            case REQUEST_SEARCH_USERS -> RequestPriority.SEARCH_USERS;
+            default -> RequestPriority.AUTHENTICATE_USER;
+        };
+    }
+
     private interface Constants {
         String REQUEST_PREFIX = "go.cd.authorization";
         String _AUTH_CONFIG_METADATA = "auth-config";
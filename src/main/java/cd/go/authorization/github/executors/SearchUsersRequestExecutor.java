@@ -1,8 +1,15 @@
 package cd.go.authorization.github.executors;
 
 
+import cd.go.authorization.github.GitHubServices;
+import cd.go.authorization.github.UserProfileResolver;
+import cd.go.authorization.github.cache.SearchResultCache;
+import cd.go.authorization.github.cache.SearchResultCache.SearchResult;
 import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.directory.UserDirectory;
+import cd.go.authorization.github.client.RequestPriority;
 import cd.go.authorization.github.models.AuthConfig;
+import cd.go.authorization.github.models.GitHubConfiguration;
 import cd.go.authorization.github.models.User;
 import cd.go.authorization.github.requests.SearchUsersRequest;
 import cd.go.authorization.github.utils.Util;
@@ -13,62 +20,116 @@ import org.kohsuke.github.GitHub;
 import org.kohsuke.github.PagedSearchIterable;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
 
 import static cd.go.authorization.github.requests.SearchUsersRequest.LOG;
+import static cd.go.authorization.github.utils.Util.toLowerCase;
 
+/**
+ * Searches every auth config concurrently and merges the users found, deduplicated by login. Users are searched
+ * through a {@link SearchResultCache}: among the members of the allowed organizations in the {@link UserDirectory}
+ * where possible, whose results can be narrowed down as the term grows, and with the search API otherwise. Auth configs that have not answered within the search timeout are left out of the
+ * response instead of holding it up.
+ */
 public class SearchUsersRequestExecutor implements RequestExecutor {
+    private static final int PAGE_SIZE = 10;
+    private static final Duration SEARCH_TIMEOUT = Duration.ofMillis(Long.getLong("plugin.cd.go.authorization.github.search.timeout.millis", 5_000));
+
     private final SearchUsersRequest request;
     private final GitHubClientBuilder gitHubClientBuilder;
+    private final UserProfileResolver profileResolver;
+    private final UserDirectory userDirectory;
+    private final SearchResultCache searchResults;
+    private final ExecutorService executor;
+    private final Duration searchTimeout;
 
-    public SearchUsersRequestExecutor(SearchUsersRequest request) {
-        this(request, new GitHubClientBuilder());
+    public SearchUsersRequestExecutor(SearchUsersRequest request, GitHubServices services) {
+        this(request, services.clientBuilder(), services.profileResolver(), services.userDirectory(), services.searchResults(), services.lookupExecutor(), SEARCH_TIMEOUT);
     }
 
-    SearchUsersRequestExecutor(SearchUsersRequest request, GitHubClientBuilder gitHubClientBuilder) {
+    SearchUsersRequestExecutor(SearchUsersRequest request, GitHubClientBuilder gitHubClientBuilder, UserProfileResolver profileResolver,
+                               UserDirectory userDirectory, SearchResultCache searchResults, ExecutorService executor, Duration searchTimeout) {
         this.request = request;
         this.gitHubClientBuilder = gitHubClientBuilder;
+        this.profileResolver = profileResolver;
+        this.userDirectory = userDirectory;
+        this.searchResults = searchResults;
+        this.executor = executor;
+        this.searchTimeout = searchTimeout;
     }
 
     @Override
     public GoPluginApiResponse execute() {
-        final Set<User> users = searchUsers(request.getSearchTerm(), request.authConfigs());
+        final Collection<User> users = searchUsers(request.getSearchTerm(), request.authConfigs());
 
         return new DefaultGoPluginApiResponse(200, Util.GSON.toJson(users));
     }
 
-    private Set<User> searchUsers(String searchTerm, List<AuthConfig> authConfigs) {
-        final Set<User> users = new HashSet<>();
+    private Collection<User> searchUsers(String searchTerm, List<AuthConfig> authConfigs) {
+        final Map<String, User> usersByLogin = new LinkedHashMap<>();
 
         if (authConfigs == null || authConfigs.isEmpty()) {
-            return users;
+            return usersByLogin.values();
         }
 
+        final Map<AuthConfig, Future<Set<User>>> searches = new LinkedHashMap<>();
         for (AuthConfig authConfig : authConfigs) {
+            LOG.info("Looking up for users matching search_term: `{}` using auth_config: `{}}`", searchTerm, authConfig.getId());
+            searches.put(authConfig, executor.submit(RequestPriority.propagate(() -> search(searchTerm, authConfig))));
+        }
+
+        final long deadline = System.nanoTime() + searchTimeout.toNanos();
+        for (Map.Entry<AuthConfig, Future<Set<User>>> search : searches.entrySet()) {
+            final AuthConfig authConfig = search.getKey();
             try {
-                LOG.info("Looking up for users matching search_term: `{}` using auth_config: `{}}`", searchTerm, authConfig.getId());
-                users.addAll(search(searchTerm, authConfig));
-            } catch (Exception e) {
-                LOG.error("Error while searching users with auth_config: '{}'", authConfig.getId(), e);
+                for (User user : search.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    usersByLogin.putIfAbsent(toLowerCase(user.username()), user);
+                }
+            } catch (TimeoutException e) {
+                LOG.warn("Search for users with auth_config: '{}' did not finish within {} ms, leaving it out.", authConfig.getId(), searchTimeout.toMillis());
+                search.getValue().cancel(true);
+            } catch (ExecutionException e) {
+                LOG.error("Error while searching users with auth_config: '{}'", authConfig.getId(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                searches.values().forEach(future -> future.cancel(true));
+                break;
             }
         }
 
-        return users;
+        return usersByLogin.values();
     }
 
     private Set<User> search(String searchText, AuthConfig authConfig) throws IOException {
-        Set<User> users = new HashSet<>();
+        final GitHubConfiguration gitHubConfiguration = authConfig.gitHubConfiguration();
+        userDirectory.register(gitHubConfiguration);
+        return new LinkedHashSet<>(searchResults.search(scopeOf(gitHubConfiguration), searchText, term -> searchDirectoryOrGitHub(term, authConfig)).users());
+    }
+
+    private SearchResult searchDirectoryOrGitHub(String searchText, AuthConfig authConfig) throws IOException {
+        final List<User> members = userDirectory.search(authConfig.gitHubConfiguration(), searchText, PAGE_SIZE);
+        if (!members.isEmpty()) {
+            LOG.debug("Found {} users matching `{}` in the user directory.", members.size(), searchText);
+            return new SearchResult(members, members.size() < PAGE_SIZE, true);
+        }
+        return searchGitHub(searchText, authConfig);
+    }
+
+    private static String scopeOf(GitHubConfiguration gitHubConfiguration) {
+        return gitHubConfiguration.apiUrl() + "\n" + gitHubConfiguration.personalAccessTokenFingerprint() + "\n" + String.join(",", gitHubConfiguration.organizationsAllowed());
+    }
+
+    private SearchResult searchGitHub(String searchText, AuthConfig authConfig) throws IOException {
         long start = System.currentTimeMillis();
         GitHub client = gitHubClientBuilder.fromServerPersonalAccessToken(authConfig.gitHubConfiguration());
         PagedSearchIterable<GHUser> ghUsers = client.searchUsers().q(searchText).list();
         LOG.debug("Time for request: {} ms", System.currentTimeMillis() - start);
-        PagedSearchIterable<GHUser> listOfUsers = ghUsers.withPageSize(10);
-        for (GHUser ghUser : listOfUsers.iterator().nextPage()) {
-            users.add(new User(ghUser.getLogin(), ghUser.getName(), ghUser.getEmail()));
-        }
+        PagedSearchIterable<GHUser> listOfUsers = ghUsers.withPageSize(PAGE_SIZE);
+        List<GHUser> hits = listOfUsers.iterator().nextPage();
+        List<User> users = profileResolver.profilesOf(authConfig.gitHubConfiguration(), hits);
         LOG.debug("Total time: {} ms", System.currentTimeMillis() - start);
-        return users;
+        return new SearchResult(users, hits.size() < PAGE_SIZE && !listOfUsers.isIncomplete(), false);
     }
 }
@@ -18,6 +18,7 @@ package cd.go.authorization.github.executors;
 
 import cd.go.authorization.github.GitHubAuthenticator;
 import cd.go.authorization.github.GitHubAuthorizer;
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.models.AuthConfig;
 import cd.go.authorization.github.models.LoggedInUserInfo;
 import cd.go.authorization.github.requests.UserAuthenticationRequest;
@@ -34,8 +35,8 @@ public class UserAuthenticationRequestExecutor implements RequestExecutor {
     private final GitHubAuthenticator gitHubAuthenticator;
     private final GitHubAuthorizer gitHubAuthorizer;
 
-    public UserAuthenticationRequestExecutor(UserAuthenticationRequest request) {
-        this(request, new GitHubAuthenticator(), new GitHubAuthorizer());
+    public UserAuthenticationRequestExecutor(UserAuthenticationRequest request, GitHubServices services) {
+        this(request, services.authenticator(), services.authorizer());
     }
 
     UserAuthenticationRequestExecutor(UserAuthenticationRequest request, GitHubAuthenticator gitHubAuthenticator, GitHubAuthorizer gitHubAuthorizer) {
@@ -52,7 +53,7 @@ public class UserAuthenticationRequestExecutor implements RequestExecutor {
         Map<String, Object> userMap = new HashMap<>();
         if (loggedInUserInfo != null) {
             userMap.put("user", loggedInUserInfo.getUser());
-            userMap.put("roles", gitHubAuthorizer.authorize(loggedInUserInfo.getGitHubUser(), authConfig, request.roles()));
+            userMap.put("roles", gitHubAuthorizer.authorize(loggedInUserInfo.getGitHubUser(), authConfig, request.roles(), loggedInUserInfo.getMemberships()));
         }
 
         return DefaultGoPluginApiResponse.success(GSON.toJson(userMap));
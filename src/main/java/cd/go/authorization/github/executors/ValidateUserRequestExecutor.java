@@ -16,11 +16,14 @@
 
 package cd.go.authorization.github.executors;
 
+import cd.go.authorization.github.GitHubServices;
+import cd.go.authorization.github.cache.UserCache;
 import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.GitHubUser;
 import cd.go.authorization.github.requests.ValidateUserRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
-import org.kohsuke.github.GHUser;
 import org.kohsuke.github.GitHub;
 
 import static cd.go.authorization.github.requests.ValidateUserRequest.LOG;
@@ -28,20 +31,23 @@ import static cd.go.authorization.github.requests.ValidateUserRequest.LOG;
 public class ValidateUserRequestExecutor implements RequestExecutor {
     private final ValidateUserRequest request;
     private final GitHubClientBuilder clientBuilder;
+    private final UserCache userCache;
 
-    public ValidateUserRequestExecutor(ValidateUserRequest request) {
-        this(request, new GitHubClientBuilder());
+    public ValidateUserRequestExecutor(ValidateUserRequest request, GitHubServices services) {
+        this(request, services.clientBuilder(), services.userCache());
     }
 
-    ValidateUserRequestExecutor(ValidateUserRequest request, GitHubClientBuilder clientBuilder) {
+    ValidateUserRequestExecutor(ValidateUserRequest request, GitHubClientBuilder clientBuilder, UserCache userCache) {
         this.request = request;
         this.clientBuilder = clientBuilder;
+        this.userCache = userCache;
     }
 
     @Override
     public GoPluginApiResponse execute() throws Exception {
-        GitHub gitHub = clientBuilder.fromServerPersonalAccessToken(request.getAuthConfig().gitHubConfiguration());
-        GHUser user = gitHub.getUser(request.getUsername());
+        GitHubConfiguration gitHubConfiguration = request.getAuthConfig().gitHubConfiguration();
+        GitHub gitHub = clientBuilder.fromServerPersonalAccessToken(gitHubConfiguration);
+        GitHubUser user = userCache.getUser(gitHub, gitHubConfiguration, request.getUsername());
         if (user == null) {
             LOG.error("User `{}` does not exist in GitHub.", request.getUsername());
             return DefaultGoPluginApiResponse.error(String.format("User `%s` does not exist in GitHub.", request.getUsername()));
@@ -16,19 +16,33 @@
 
 package cd.go.authorization.github.models;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 import static cd.go.authorization.github.utils.Util.GSON;
 
+/**
+ * An auth config as sent by the server. Auth configs are immutable, and reading the same auth config again hands out
+ * the instance read before.
+ */
 public class AuthConfig {
     @Expose
     @SerializedName("id")
-    private String id;
+    private final String id;
 
     @Expose
     @SerializedName("configuration")
-    private GitHubConfiguration gitHubConfiguration;
+    private final GitHubConfiguration gitHubConfiguration;
+
+    public AuthConfig(String id, GitHubConfiguration gitHubConfiguration) {
+        this.id = id;
+        this.gitHubConfiguration = gitHubConfiguration;
+    }
 
     public String getId() {
         return id;
@@ -42,4 +56,35 @@ public class AuthConfig {
         return GSON.fromJson(json, AuthConfig.class);
     }
 
+    public static final TypeAdapter<AuthConfig> TYPE_ADAPTER = new TypeAdapter<AuthConfig>() {
+        @Override
+        public void write(JsonWriter out, AuthConfig authConfig) throws IOException {
+            out.beginObject();
+            out.name("id").value(authConfig.id);
+            out.name("configuration");
+            GitHubConfiguration.TYPE_ADAPTER.write(out, authConfig.gitHubConfiguration);
+            out.endObject();
+        }
+
+        @Override
+        public AuthConfig read(JsonReader in) throws IOException {
+            final ConfigDigest digest = ConfigDigest.of(AuthConfig.class);
+            String id = null;
+            GitHubConfiguration gitHubConfiguration = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                final String field = in.nextName();
+                switch (field) {
+                    case "id" -> id = digest.nextString(field, in);
+                    case "configuration" -> gitHubConfiguration = digest.nextObject(field, in, GitHubConfiguration::read);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            final String fingerprint = digest.fingerprint();
+            final AuthConfig interned = InternedConfigs.SHARED.get(fingerprint, AuthConfig.class);
+            return interned != null ? interned : InternedConfigs.SHARED.put(fingerprint, new AuthConfig(id, gitHubConfiguration));
+        }
+    }.nullSafe();
 }
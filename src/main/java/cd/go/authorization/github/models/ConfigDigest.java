@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.models;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fingerprints a config with SHA-256 while its type adapter streams it, from the names and values the adapter reads,
+ * so that a config the server sends again is recognized without serializing it again. Values the adapter skips do not
+ * change the config, so they do not change its fingerprint either.
+ */
+final class ConfigDigest {
+    static final ConfigDigest NONE = new ConfigDigest(null);
+
+    private static final int NULL_LENGTH = -1;
+    private static final byte BEGIN_OBJECT = '{';
+    private static final byte END_OBJECT = '}';
+
+    private final MessageDigest digest;
+
+    private ConfigDigest(MessageDigest digest) {
+        this.digest = digest;
+    }
+
+    static ConfigDigest of(Class<?> type) {
+        try {
+            final ConfigDigest configDigest = new ConfigDigest(MessageDigest.getInstance("SHA-256"));
+            configDigest.update(type.getName());
+            return configDigest;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    String nextString(String name, JsonReader in) throws IOException {
+        final String value = JsonFields.nextString(in);
+        update(name);
+        update(value);
+        return value;
+    }
+
+    <T> T next(String name, JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        final T value = adapter.read(in);
+        update(name);
+        update(value == null ? null : value.toString());
+        return value;
+    }
+
+    <T> T nextObject(String name, JsonReader in, ObjectReader<T> reader) throws IOException {
+        update(name);
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            update(null);
+            return null;
+        }
+
+        update(BEGIN_OBJECT);
+        final T value = reader.read(in, this);
+        update(END_OBJECT);
+        return value;
+    }
+
+    /**
+     * @return the hex encoded fingerprint of everything read so far; the digest cannot be used afterwards
+     */
+    String fingerprint() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void update(String value) {
+        if (digest == null) {
+            return;
+        }
+
+        if (value == null) {
+            updateLength(NULL_LENGTH);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            updateLength(bytes.length);
+            digest.update(bytes);
+        }
+    }
+
+    private void updateLength(int length) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            digest.update((byte) (length >>> shift));
+        }
+    }
+
+    private void update(byte marker) {
+        if (digest != null) {
+            digest.update(marker);
+        }
+    }
+
+    @FunctionalInterface
+    interface ObjectReader<T> {
+        T read(JsonReader in, ConfigDigest digest) throws IOException;
+    }
+}
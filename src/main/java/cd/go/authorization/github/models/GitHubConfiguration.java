@@ -18,10 +18,15 @@ package cd.go.authorization.github.models;
 
 import cd.go.authorization.github.annotation.ProfileField;
 import cd.go.authorization.github.annotation.Validatable;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -30,42 +35,60 @@ import static cd.go.authorization.github.utils.Util.*;
 
 public class GitHubConfiguration implements Validatable {
     public static final String GITHUB_URL = "https://github.com";
+    public static final String GITHUB_API_URL = "https://api.github.com";
     private static final String GITHUB_ENTERPRISE_API_SUFFIX = "/api/v3/";
 
     private static final String GITHUB_OAUTH_REQUESTED_SCOPE = "user:email";
+    private static final String GITHUB_OAUTH_REQUESTED_SCOPE_TO_READ_ORGANIZATIONS = "user:email read:org";
+    public static final int DEFAULT_MEMBERSHIP_CHECK_PARALLELISM = 4;
+    public static final int MAX_MEMBERSHIP_CHECK_PARALLELISM = 64;
+    private static final TypeAdapter<AuthenticateWith> AUTHENTICATE_WITH_ADAPTER = new Gson().getAdapter(AuthenticateWith.class);
+    private static final TypeAdapter<AuthorizeUsing> AUTHORIZE_USING_ADAPTER = new Gson().getAdapter(AuthorizeUsing.class);
 
     @Expose
     @SerializedName("ClientId")
     @ProfileField(key = "ClientId", required = true, secure = true)
-    private String clientId;
+    private final String clientId;
 
     @Expose
     @SerializedName("ClientSecret")
     @ProfileField(key = "ClientSecret", required = true, secure = true)
-    private String clientSecret;
+    private final String clientSecret;
 
     @Expose
     @SerializedName("AuthenticateWith")
     @ProfileField(key = "AuthenticateWith", required = false, secure = false)
-    private AuthenticateWith authenticateWith;
+    private final AuthenticateWith authenticateWith;
 
     @Expose
     @SerializedName("GitHubEnterpriseUrl")
     @ProfileField(key = "GitHubEnterpriseUrl", required = false, secure = false)
-    private String gitHubEnterpriseUrl;
+    private final String gitHubEnterpriseUrl;
 
     @Expose
     @SerializedName("AllowedOrganizations")
     @ProfileField(key = "AllowedOrganizations", required = false, secure = false)
-    private String allowedOrganizations;
+    private final String allowedOrganizations;
 
     @Expose
     @SerializedName("PersonalAccessToken")
     @ProfileField(key = "PersonalAccessToken", required = true, secure = true)
-    private String personalAccessToken;
+    private final String personalAccessToken;
 
+    @Expose
+    @SerializedName("AuthorizeUsing")
+    @ProfileField(key = "AuthorizeUsing", required = false, secure = false)
+    private final AuthorizeUsing authorizeUsing;
+
+    @Expose
+    @SerializedName("MembershipCheckParallelism")
+    @ProfileField(key = "MembershipCheckParallelism", required = false, secure = false)
+    private final String membershipCheckParallelism;
+
+    private transient String personalAccessTokenFingerprint;
 
     public GitHubConfiguration() {
+        this(null, null, null, null, null);
     }
 
     public GitHubConfiguration(String clientId, String clientSecret) {
@@ -73,11 +96,19 @@ public class GitHubConfiguration implements Validatable {
     }
 
     public GitHubConfiguration(String clientId, String clientSecret, AuthenticateWith authenticateWith, String gitHubEnterpriseUrl, String allowedOrganizations) {
+        this(clientId, clientSecret, authenticateWith, gitHubEnterpriseUrl, allowedOrganizations, null, null, null);
+    }
+
+    private GitHubConfiguration(String clientId, String clientSecret, AuthenticateWith authenticateWith, String gitHubEnterpriseUrl, String allowedOrganizations,
+                                String personalAccessToken, AuthorizeUsing authorizeUsing, String membershipCheckParallelism) {
         this.clientId = clientId;
         this.clientSecret = clientSecret;
         this.authenticateWith = authenticateWith;
         this.gitHubEnterpriseUrl = gitHubEnterpriseUrl;
         this.allowedOrganizations = allowedOrganizations;
+        this.personalAccessToken = personalAccessToken;
+        this.authorizeUsing = authorizeUsing;
+        this.membershipCheckParallelism = membershipCheckParallelism;
     }
 
     public String clientId() {
@@ -104,8 +135,12 @@ public class GitHubConfiguration implements Validatable {
         return gitHubEnterpriseUrl.concat(GITHUB_ENTERPRISE_API_SUFFIX);
     }
 
+    public String apiUrl() {
+        return authenticateWith == AuthenticateWith.GITHUB_ENTERPRISE ? gitHubEnterpriseApiUrl() : GITHUB_API_URL;
+    }
+
     public String scope() {
-        return GITHUB_OAUTH_REQUESTED_SCOPE;
+        return authorizeUsing() == AuthorizeUsing.USER_ACCESS_TOKEN ? GITHUB_OAUTH_REQUESTED_SCOPE_TO_READ_ORGANIZATIONS : GITHUB_OAUTH_REQUESTED_SCOPE;
     }
 
     public static GitHubConfiguration fromJSON(String json) {
@@ -124,6 +159,39 @@ public class GitHubConfiguration implements Validatable {
         return personalAccessToken;
     }
 
+    /**
+     * @return a fingerprint of the personal access token, to key what the token was told by without keeping it
+     */
+    public String personalAccessTokenFingerprint() {
+        if (personalAccessTokenFingerprint == null) {
+            personalAccessTokenFingerprint = fingerprint(personalAccessToken);
+        }
+        return personalAccessTokenFingerprint;
+    }
+
+    public AuthorizeUsing authorizeUsing() {
+        return authorizeUsing == null ? AuthorizeUsing.PERSONAL_ACCESS_TOKEN : authorizeUsing;
+    }
+
+    public int membershipCheckParallelism() {
+        return isBlank(membershipCheckParallelism) || !hasValidMembershipCheckParallelism()
+                ? DEFAULT_MEMBERSHIP_CHECK_PARALLELISM
+                : Integer.parseInt(membershipCheckParallelism.trim());
+    }
+
+    public boolean hasValidMembershipCheckParallelism() {
+        if (isBlank(membershipCheckParallelism)) {
+            return true;
+        }
+
+        try {
+            final int parallelism = Integer.parseInt(membershipCheckParallelism.trim());
+            return parallelism >= 1 && parallelism <= MAX_MEMBERSHIP_CHECK_PARALLELISM;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -134,12 +202,65 @@ public class GitHubConfiguration implements Validatable {
                 authenticateWith == that.authenticateWith &&
                 Objects.equals(gitHubEnterpriseUrl, that.gitHubEnterpriseUrl) &&
                 Objects.equals(allowedOrganizations, that.allowedOrganizations) &&
-                Objects.equals(personalAccessToken, that.personalAccessToken);
+                Objects.equals(personalAccessToken, that.personalAccessToken) &&
+                authorizeUsing == that.authorizeUsing &&
+                Objects.equals(membershipCheckParallelism, that.membershipCheckParallelism);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(clientId, clientSecret, authenticateWith, gitHubEnterpriseUrl, allowedOrganizations, personalAccessToken);
+        return Objects.hash(clientId, clientSecret, authenticateWith, gitHubEnterpriseUrl, allowedOrganizations, personalAccessToken, authorizeUsing, membershipCheckParallelism);
+    }
+
+    static GitHubConfiguration read(JsonReader in, ConfigDigest digest) throws IOException {
+        String clientId = null;
+        String clientSecret = null;
+        AuthenticateWith authenticateWith = null;
+        String gitHubEnterpriseUrl = null;
+        String allowedOrganizations = null;
+        String personalAccessToken = null;
+        AuthorizeUsing authorizeUsing = null;
+        String membershipCheckParallelism = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            switch (name) {
+                case "ClientId" -> clientId = digest.nextString(name, in);
+                case "ClientSecret" -> clientSecret = digest.nextString(name, in);
+                case "AuthenticateWith" -> authenticateWith = digest.next(name, in, AUTHENTICATE_WITH_ADAPTER);
+                case "GitHubEnterpriseUrl" -> gitHubEnterpriseUrl = digest.nextString(name, in);
+                case "AllowedOrganizations" -> allowedOrganizations = digest.nextString(name, in);
+                case "PersonalAccessToken" -> personalAccessToken = digest.nextString(name, in);
+                case "AuthorizeUsing" -> authorizeUsing = digest.next(name, in, AUTHORIZE_USING_ADAPTER);
+                case "MembershipCheckParallelism" -> membershipCheckParallelism = digest.nextString(name, in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new GitHubConfiguration(clientId, clientSecret, authenticateWith, gitHubEnterpriseUrl, allowedOrganizations,
+                personalAccessToken, authorizeUsing, membershipCheckParallelism);
     }
-}
 
+    public static final TypeAdapter<GitHubConfiguration> TYPE_ADAPTER = new TypeAdapter<GitHubConfiguration>() {
+        @Override
+        public void write(JsonWriter out, GitHubConfiguration configuration) throws IOException {
+            out.beginObject();
+            out.name("ClientId").value(configuration.clientId);
+            out.name("ClientSecret").value(configuration.clientSecret);
+            out.name("AuthenticateWith");
+            AUTHENTICATE_WITH_ADAPTER.write(out, configuration.authenticateWith);
+            out.name("GitHubEnterpriseUrl").value(configuration.gitHubEnterpriseUrl);
+            out.name("AllowedOrganizations").value(configuration.allowedOrganizations);
+            out.name("PersonalAccessToken").value(configuration.personalAccessToken);
+            out.name("AuthorizeUsing");
+            AUTHORIZE_USING_ADAPTER.write(out, configuration.authorizeUsing);
+            out.name("MembershipCheckParallelism").value(configuration.membershipCheckParallelism);
+            out.endObject();
+        }
+
+        @Override
+        public GitHubConfiguration read(JsonReader in) throws IOException {
+            return GitHubConfiguration.read(in, ConfigDigest.NONE);
+        }
+    }.nullSafe();
+}
@@ -18,10 +18,14 @@ package cd.go.authorization.github.models;
 
 import cd.go.authorization.github.annotation.ProfileField;
 import cd.go.authorization.github.annotation.Validatable;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,17 +38,23 @@ public class GitHubRoleConfiguration implements Validatable {
     @Expose
     @SerializedName("Organizations")
     @ProfileField(key = "Organizations", required = false, secure = false)
-    private String organizations;
+    private final String organizations;
 
     @Expose
     @SerializedName("Teams")
     @ProfileField(key = "Teams", required = false, secure = false)
-    private String teams;
+    private final String teams;
 
     @Expose
     @SerializedName("Users")
     @ProfileField(key = "Users", required = false, secure = false)
-    private String users;
+    private final String users;
+
+    GitHubRoleConfiguration(String organizations, String teams, String users) {
+        this.organizations = organizations;
+        this.teams = teams;
+        this.users = users;
+    }
 
     public List<String> organizations() {
         return listFromCommaSeparatedString(toLowerCase(organizations));
@@ -96,4 +106,38 @@ public class GitHubRoleConfiguration implements Validatable {
     public boolean hasConfiguration() {
         return isNotBlank(organizations) || isNotBlank(teams) || isNotBlank(users);
     }
+
+    static GitHubRoleConfiguration read(JsonReader in, ConfigDigest digest) throws IOException {
+        String organizations = null;
+        String teams = null;
+        String users = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            final String name = in.nextName();
+            switch (name) {
+                case "Organizations" -> organizations = digest.nextString(name, in);
+                case "Teams" -> teams = digest.nextString(name, in);
+                case "Users" -> users = digest.nextString(name, in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return new GitHubRoleConfiguration(organizations, teams, users);
+    }
+
+    public static final TypeAdapter<GitHubRoleConfiguration> TYPE_ADAPTER = new TypeAdapter<GitHubRoleConfiguration>() {
+        @Override
+        public void write(JsonWriter out, GitHubRoleConfiguration configuration) throws IOException {
+            out.beginObject();
+            out.name("Organizations").value(configuration.organizations);
+            out.name("Teams").value(configuration.teams);
+            out.name("Users").value(configuration.users);
+            out.endObject();
+        }
+
+        @Override
+        public GitHubRoleConfiguration read(JsonReader in) throws IOException {
+            return GitHubRoleConfiguration.read(in, ConfigDigest.NONE);
+        }
+    }.nullSafe();
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.models;
+
+import org.kohsuke.github.GHUser;
+
+import java.io.IOException;
+
+/**
+ * What the plugin keeps of a GitHub user to authorize them. Unlike a {@link GHUser}, it does not hold on to the client
+ * the user was fetched with.
+ */
+public record GitHubUser(String login, long id, String name, String email) {
+    public static GitHubUser of(GHUser user) throws IOException {
+        return new GitHubUser(user.getLogin(), user.getId(), user.getName(), user.getEmail());
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.models;
+
+import cd.go.authorization.github.cache.ExpiringCache;
+
+import java.time.Duration;
+
+/**
+ * The auth and role configs read so far, so that reading the configs the server sends with every request hands out
+ * the instances read before. Configs are keyed by the {@link ConfigDigest} fingerprint of what was read, so the keys
+ * hold no secrets, and they are immutable, so all requests can share them.
+ */
+final class InternedConfigs {
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.config.intern.cache.";
+    private static final Duration TIME_TO_LIVE = Duration.ofDays(1);
+
+    static final InternedConfigs SHARED = new InternedConfigs(Integer.getInteger(PROPERTY_PREFIX + "size", 1000));
+
+    private final ExpiringCache<String, Object> configs;
+
+    InternedConfigs(int maximumSize) {
+        this.configs = new ExpiringCache<>(maximumSize);
+    }
+
+    /**
+     * @return the config read before with the given fingerprint, or {@code null} if there is none
+     */
+    <T> T get(String fingerprint, Class<T> type) {
+        return type.cast(configs.getIfPresent(fingerprint));
+    }
+
+    <T> T put(String fingerprint, T config) {
+        configs.put(fingerprint, config, TIME_TO_LIVE);
+        return config;
+    }
+}
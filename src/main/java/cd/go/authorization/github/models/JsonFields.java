@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.models;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+/**
+ * Reads fields of the hand-written model type adapters the way reflective Gson reads them.
+ */
+final class JsonFields {
+    private JsonFields() {
+    }
+
+    static String nextString(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL -> {
+                in.nextNull();
+                return null;
+            }
+            case BOOLEAN -> {
+                return Boolean.toString(in.nextBoolean());
+            }
+            default -> {
+                return in.nextString();
+            }
+        }
+    }
+}
@@ -16,25 +16,39 @@
 
 package cd.go.authorization.github.models;
 
-import org.kohsuke.github.GHMyself;
+import cd.go.authorization.github.Memberships;
 import org.kohsuke.github.GitHub;
 
 import java.io.IOException;
 
 public class LoggedInUserInfo {
-    private final GHMyself gitHubUser;
+    private final GitHubUser gitHubUser;
     private final User user;
+    private final Memberships memberships;
 
     public LoggedInUserInfo(GitHub gitHub) throws IOException {
-        gitHubUser = gitHub.getMyself();
-        user = new User(gitHubUser.getLogin(), gitHubUser.getName(), gitHubUser.getEmail());
+        this(gitHub, null);
     }
 
-    public GHMyself getGitHubUser() {
+    public LoggedInUserInfo(GitHub gitHub, Memberships memberships) throws IOException {
+        gitHubUser = GitHubUser.of(gitHub.getMyself());
+        user = new User(gitHubUser.login(), gitHubUser.name(), gitHubUser.email());
+        this.memberships = memberships;
+    }
+
+    public GitHubUser getGitHubUser() {
         return gitHubUser;
     }
 
     public User getUser() {
         return user;
     }
+
+    /**
+     * @return the memberships listed with the user's access token, or {@code null} if they have to be checked with the
+     * personal access token.
+     */
+    public Memberships getMemberships() {
+        return memberships;
+    }
 }
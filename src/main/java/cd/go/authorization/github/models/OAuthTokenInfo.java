@@ -19,6 +19,8 @@ package cd.go.authorization.github.models;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 
+import java.util.Arrays;
+
 import static cd.go.authorization.github.utils.Util.GSON;
 
 public class OAuthTokenInfo {
@@ -54,6 +56,10 @@ public class OAuthTokenInfo {
         return scope;
     }
 
+    public boolean hasScope(String requiredScope) {
+        return scope != null && Arrays.asList(scope.split("[,\\s]+")).contains(requiredScope);
+    }
+
     public String toJSON() {
         return GSON.toJson(this);
     }
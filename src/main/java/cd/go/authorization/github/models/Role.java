@@ -16,25 +16,39 @@
 
 package cd.go.authorization.github.models;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.Objects;
 
 import static cd.go.authorization.github.utils.Util.GSON;
 
+/**
+ * A role config as sent by the server. Role configs are immutable, and reading the same role config again hands out
+ * the instance read before, so they can be compared by identity.
+ */
 public class Role {
     @Expose
     @SerializedName("name")
-    private String name;
+    private final String name;
 
     @Expose
     @SerializedName("auth_config_id")
-    private String authConfigId;
+    private final String authConfigId;
 
     @Expose
     @SerializedName("configuration")
-    private GitHubRoleConfiguration configuration;
+    private final GitHubRoleConfiguration configuration;
+
+    Role(String name, String authConfigId, GitHubRoleConfiguration configuration) {
+        this.name = name;
+        this.authConfigId = authConfigId;
+        this.configuration = configuration;
+    }
 
     public String name() {
         return name;
@@ -63,4 +77,39 @@ public class Role {
     public static Role fromJSON(String json) {
         return GSON.fromJson(json, Role.class);
     }
+
+    public static final TypeAdapter<Role> TYPE_ADAPTER = new TypeAdapter<Role>() {
+        @Override
+        public void write(JsonWriter out, Role role) throws IOException {
+            out.beginObject();
+            out.name("name").value(role.name);
+            out.name("auth_config_id").value(role.authConfigId);
+            out.name("configuration");
+            GitHubRoleConfiguration.TYPE_ADAPTER.write(out, role.configuration);
+            out.endObject();
+        }
+
+        @Override
+        public Role read(JsonReader in) throws IOException {
+            final ConfigDigest digest = ConfigDigest.of(Role.class);
+            String name = null;
+            String authConfigId = null;
+            GitHubRoleConfiguration configuration = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                final String field = in.nextName();
+                switch (field) {
+                    case "name" -> name = digest.nextString(field, in);
+                    case "auth_config_id" -> authConfigId = digest.nextString(field, in);
+                    case "configuration" -> configuration = digest.nextObject(field, in, GitHubRoleConfiguration::read);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            final String fingerprint = digest.fingerprint();
+            final Role interned = InternedConfigs.SHARED.get(fingerprint, Role.class);
+            return interned != null ? interned : InternedConfigs.SHARED.put(fingerprint, new Role(name, authConfigId, configuration));
+        }
+    }.nullSafe();
 }
@@ -16,9 +16,13 @@
 
 package cd.go.authorization.github.models;
 
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.Objects;
 
 public class User {
@@ -44,6 +48,14 @@ public class User {
         return this.username;
     }
 
+    public String displayName() {
+        return this.displayName;
+    }
+
+    public String emailId() {
+        return this.emailId;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
@@ -55,4 +67,33 @@ public class User {
     public int hashCode() {
         return Objects.hash(username, displayName, emailId);
     }
-}
\ No newline at end of file
+
+    public static final TypeAdapter<User> TYPE_ADAPTER = new TypeAdapter<User>() {
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            out.beginObject();
+            out.name("username").value(user.username);
+            out.name("display_name").value(user.displayName);
+            out.name("email").value(user.emailId);
+            out.endObject();
+        }
+
+        @Override
+        public User read(JsonReader in) throws IOException {
+            String username = null;
+            String displayName = null;
+            String emailId = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "username" -> username = JsonFields.nextString(in);
+                    case "display_name" -> displayName = JsonFields.nextString(in);
+                    case "email" -> emailId = JsonFields.nextString(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new User(username, displayName, emailId);
+        }
+    }.nullSafe();
+}
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.AuthConfigValidateRequestExecutor;
 import cd.go.authorization.github.executors.RequestExecutor;
 import cd.go.authorization.github.models.GitHubConfiguration;
@@ -37,7 +38,7 @@ public class AuthConfigValidateRequest extends Request {
     }
 
     @Override
-    public RequestExecutor executor() {
+    public RequestExecutor executor(GitHubServices services) {
         return new AuthConfigValidateRequestExecutor(this);
     }
 }
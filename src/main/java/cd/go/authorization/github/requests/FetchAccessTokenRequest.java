@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.Constants;
 import cd.go.authorization.github.exceptions.AuthenticationException;
 import cd.go.authorization.github.executors.FetchAccessTokenRequestExecutor;
@@ -56,8 +57,8 @@ public class FetchAccessTokenRequest extends Request implements AuthConfigurable
     }
 
     @Override
-    public RequestExecutor executor() {
-        return new FetchAccessTokenRequestExecutor(this);
+    public RequestExecutor executor(GitHubServices services) {
+        return new FetchAccessTokenRequestExecutor(this, services);
     }
 
     public void validateState() {
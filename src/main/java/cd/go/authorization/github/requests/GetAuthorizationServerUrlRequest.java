@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.GetAuthorizationServerUrlRequestExecutor;
 import cd.go.authorization.github.executors.RequestExecutor;
 import cd.go.authorization.github.models.AuthConfig;
@@ -51,7 +52,7 @@ public class GetAuthorizationServerUrlRequest extends Request implements AuthCon
     }
 
     @Override
-    public RequestExecutor executor() {
-        return new GetAuthorizationServerUrlRequestExecutor(this);
+    public RequestExecutor executor(GitHubServices services) {
+        return new GetAuthorizationServerUrlRequestExecutor(this, services);
     }
 }
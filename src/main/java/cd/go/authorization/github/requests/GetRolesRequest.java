@@ -16,10 +16,12 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.GetRolesExecutor;
 import cd.go.authorization.github.executors.RequestExecutor;
 import cd.go.authorization.github.models.AuthConfig;
 import cd.go.authorization.github.models.Role;
+import cd.go.authorization.github.utils.Util;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 import com.thoughtworks.go.plugin.api.logging.Logger;
@@ -42,13 +44,15 @@ public class GetRolesRequest extends Request {
     @SerializedName("username")
     private String username;
 
+    private transient String fingerprint;
+
     public static Request from(GoPluginApiRequest request) {
         return Request.from(request, GetRolesRequest.class);
     }
 
     @Override
-    public RequestExecutor executor() {
-        return new GetRolesExecutor(this);
+    public RequestExecutor executor(GitHubServices services) {
+        return new GetRolesExecutor(this, services);
     }
 
     public AuthConfig getAuthConfig() {
@@ -62,4 +66,15 @@ public class GetRolesRequest extends Request {
     public String getUsername() {
         return username;
     }
+
+    /**
+     * @return a fingerprint of the request body as sent by the server, which covers the auth config, the role configs
+     * and the user, computed without serializing the parsed configs again
+     */
+    public String fingerprint() {
+        if (fingerprint == null) {
+            fingerprint = Util.fingerprint(apiRequest.requestBody());
+        }
+        return fingerprint;
+    }
 }
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.RequestExecutor;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
@@ -33,7 +34,7 @@ public abstract class Request {
         return request;
     }
 
-    public abstract RequestExecutor executor();
+    public abstract RequestExecutor executor(GitHubServices services);
 
     public Map<String, String> requestParameters() {
         return apiRequest.requestParameters();
@@ -43,7 +44,7 @@ public abstract class Request {
         return apiRequest.requestHeaders();
     }
 
-    public GoPluginApiResponse execute() throws Exception {
-        return executor().execute();
+    public GoPluginApiResponse execute(GitHubServices services) throws Exception {
+        return executor(services).execute();
     }
 }
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.RequestExecutor;
 import cd.go.authorization.github.models.GitHubRoleConfiguration;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
@@ -28,7 +29,7 @@ public class RoleConfigValidateRequest extends Request {
     }
 
     @Override
-    public RequestExecutor executor() {
+    public RequestExecutor executor(GitHubServices services) {
         return new RoleConfigValidateRequestExecutor(this);
     }
 
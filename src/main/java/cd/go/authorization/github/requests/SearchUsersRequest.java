@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.SearchUsersRequestExecutor;
 import cd.go.authorization.github.models.AuthConfig;
 import com.google.gson.annotations.Expose;
@@ -41,8 +42,8 @@ public class SearchUsersRequest extends Request implements AuthConfigurable {
     }
 
     @Override
-    public SearchUsersRequestExecutor executor() {
-        return new SearchUsersRequestExecutor(this);
+    public SearchUsersRequestExecutor executor(GitHubServices services) {
+        return new SearchUsersRequestExecutor(this, services);
     }
 
     @Override
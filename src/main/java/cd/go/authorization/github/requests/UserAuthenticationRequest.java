@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.UserAuthenticationRequestExecutor;
 import cd.go.authorization.github.models.AuthConfig;
 import cd.go.authorization.github.models.OAuthTokenInfo;
@@ -57,7 +58,7 @@ public class UserAuthenticationRequest extends Request implements AuthConfigurab
     }
 
     @Override
-    public UserAuthenticationRequestExecutor executor() {
-        return new UserAuthenticationRequestExecutor(this);
+    public UserAuthenticationRequestExecutor executor(GitHubServices services) {
+        return new UserAuthenticationRequestExecutor(this, services);
     }
 }
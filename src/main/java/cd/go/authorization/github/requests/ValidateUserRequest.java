@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.RequestExecutor;
 import cd.go.authorization.github.executors.ValidateUserRequestExecutor;
 import cd.go.authorization.github.models.AuthConfig;
@@ -40,8 +41,8 @@ public class ValidateUserRequest extends Request {
     }
 
     @Override
-    public RequestExecutor executor() {
-        return new ValidateUserRequestExecutor(this);
+    public RequestExecutor executor(GitHubServices services) {
+        return new ValidateUserRequestExecutor(this, services);
     }
 
     public AuthConfig getAuthConfig() {
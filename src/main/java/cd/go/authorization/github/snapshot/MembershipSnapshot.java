@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.snapshot;
+
+import cd.go.authorization.github.MembershipQuery;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable index of the members of a number of organizations and teams at one point in time. The logins of each
+ * organization or team are kept as a sorted array, so a membership check is a binary search.
+ */
+public final class MembershipSnapshot {
+    public static final MembershipSnapshot EMPTY = new MembershipSnapshot(Map.of());
+
+    private final Map<EntityKey, Members> membersByEntity;
+
+    private MembershipSnapshot(Map<EntityKey, Members> membersByEntity) {
+        this.membersByEntity = membersByEntity;
+    }
+
+    /**
+     * @return whether the user is a member, or {@code null} if the organization or team is not part of this snapshot
+     */
+    public Boolean isMember(String apiUrl, MembershipQuery query, String login) {
+        final Members members = membersByEntity.get(new EntityKey(apiUrl, query));
+        return members == null ? null : Arrays.binarySearch(members.logins(), login) >= 0;
+    }
+
+    public int size() {
+        return membersByEntity.size();
+    }
+
+    Members members(String apiUrl, MembershipQuery query) {
+        return membersByEntity.get(new EntityKey(apiUrl, query));
+    }
+
+    record EntityKey(String apiUrl, MembershipQuery query) {
+    }
+
+    record Members(String[] logins, long crawledAtNanos) {
+    }
+
+    static class Builder {
+        private final Map<EntityKey, Members> membersByEntity = new HashMap<>();
+
+        Builder put(String apiUrl, MembershipQuery query, Collection<String> logins, long crawledAtNanos) {
+            final String[] sortedLogins = logins.stream().distinct().sorted().toArray(String[]::new);
+            return put(apiUrl, query, new Members(sortedLogins, crawledAtNanos));
+        }
+
+        Builder put(String apiUrl, MembershipQuery query, Members members) {
+            membersByEntity.put(new EntityKey(apiUrl, query), members);
+            return this;
+        }
+
+        MembershipSnapshot build() {
+            return new MembershipSnapshot(Map.copyOf(membersByEntity));
+        }
+    }
+}
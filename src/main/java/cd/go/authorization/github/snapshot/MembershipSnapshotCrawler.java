@@ -0,0 +1,253 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.snapshot;
+
+import cd.go.authorization.github.MembershipQuery;
+import cd.go.authorization.github.TeamResolver;
+import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.client.RateLimitBudget;
+import cd.go.authorization.github.client.RequestPriority;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.snapshot.MembershipSnapshot.Members;
+import com.thoughtworks.go.plugin.api.logging.Logger;
+import org.kohsuke.github.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static cd.go.authorization.github.utils.Util.toLowerCase;
+
+/**
+ * Periodically lists the members of the allowed organizations and of the organizations and teams referred to by the
+ * role configurations GoCD sends, as well as any other membership checks were asked about, and publishes them as a new
+ * {@link MembershipSnapshot} in one atomic swap. Members are listed a page at a time, and crawling stops early for a
+ * round when the remaining rate limit of the personal access token drops below a reserve, which is kept for live
+ * checks; entities that could not be crawled keep their previous members until those are older than three refresh
+ * intervals. Organizations and teams that have not been configured or asked about for a day are no longer crawled.
+ */
+public class MembershipSnapshotCrawler {
+    private static final Logger LOG = Logger.getLoggerFor(MembershipSnapshotCrawler.class);
+    private static final String PROPERTY_PREFIX = "plugin.cd.go.authorization.github.snapshot.";
+    private static final int PAGE_SIZE = 100;
+    private static final Duration TARGET_RETENTION = Duration.ofDays(1);
+
+
+    private final GitHubClientBuilder clientBuilder;
+    private final RateLimitBudget rateLimitBudget;
+    private final TeamResolver teamResolver;
+    private final Duration refreshInterval;
+    private final int rateLimitReserve;
+    private final LongSupplier nanoClock;
+    private final Supplier<ScheduledExecutorService> schedulerFactory;
+    private final AtomicReference<MembershipSnapshot> snapshot = new AtomicReference<>(MembershipSnapshot.EMPTY);
+    private final Map<MembershipSnapshot.EntityKey, Target> targets = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private boolean stopped;
+
+    public MembershipSnapshotCrawler(GitHubClientBuilder clientBuilder, TeamResolver teamResolver, Duration refreshInterval, int rateLimitReserve, LongSupplier nanoClock) {
+        this(clientBuilder, RateLimitBudget.SHARED, teamResolver, refreshInterval, rateLimitReserve, nanoClock, MembershipSnapshotCrawler::crawlerThread);
+    }
+
+    MembershipSnapshotCrawler(GitHubClientBuilder clientBuilder, RateLimitBudget rateLimitBudget, TeamResolver teamResolver, Duration refreshInterval, int rateLimitReserve,
+                              LongSupplier nanoClock, Supplier<ScheduledExecutorService> schedulerFactory) {
+        this.clientBuilder = clientBuilder;
+        this.rateLimitBudget = rateLimitBudget;
+        this.teamResolver = teamResolver;
+        this.refreshInterval = refreshInterval;
+        this.rateLimitReserve = rateLimitReserve;
+        this.nanoClock = nanoClock;
+        this.schedulerFactory = schedulerFactory;
+    }
+
+    public static MembershipSnapshotCrawler fromSystemProperties(GitHubClientBuilder clientBuilder, TeamResolver teamResolver) {
+        return new MembershipSnapshotCrawler(clientBuilder, teamResolver,
+                Duration.ofSeconds(Long.getLong(PROPERTY_PREFIX + "refresh.interval.seconds", 0)),
+                Integer.getInteger(PROPERTY_PREFIX + "rate.limit.reserve", 1_000),
+                System::nanoTime);
+    }
+
+    public boolean isEnabled() {
+        return !refreshInterval.isZero() && !refreshInterval.isNegative();
+    }
+
+    /**
+     * @return whether the user is a member according to the latest snapshot, or {@code null} if the organization or
+     * team has not been crawled (yet)
+     */
+    public Boolean isMember(GitHubConfiguration gitHubConfiguration, MembershipQuery query, String login) {
+        return isEnabled() ? snapshot.get().isMember(gitHubConfiguration.apiUrl(), query, login) : null;
+    }
+
+    public void register(GitHubConfiguration gitHubConfiguration, Collection<MembershipQuery> queries) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final long now = nanoClock.getAsLong();
+        boolean added = false;
+        for (MembershipQuery query : queries) {
+            added |= targets.put(new MembershipSnapshot.EntityKey(gitHubConfiguration.apiUrl(), query), new Target(gitHubConfiguration, query, now)) == null;
+        }
+
+        if (added) {
+            startIfNeeded();
+        }
+    }
+
+    /**
+     * Registers the allowed organizations of an auth config along with the organizations and teams its role
+     * configurations refer to, so that they are crawled before a membership check asks about them.
+     */
+    public void registerConfigured(GitHubConfiguration gitHubConfiguration, Collection<MembershipQuery> roleMemberships) {
+        register(gitHubConfiguration, MembershipQuery.allOf(gitHubConfiguration.organizationsAllowed(), Map.of()));
+        register(gitHubConfiguration, roleMemberships);
+    }
+
+    public MembershipSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Stops crawling for good; the latest snapshot keeps answering.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private synchronized void startIfNeeded() {
+        if (scheduler == null && !stopped) {
+            scheduler = schedulerFactory.get();
+            scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toSeconds(), TimeUnit.SECONDS);
+            LOG.info("Crawling organization and team memberships every {}.", refreshInterval);
+        }
+    }
+
+    private static ScheduledExecutorService crawlerThread() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "github-membership-crawler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void refreshQuietly() {
+        try {
+            RequestPriority.BACKGROUND.run(this::refresh);
+        } catch (RuntimeException e) {
+            LOG.error("Could not refresh membership snapshot.", e);
+        }
+    }
+
+    void refresh() {
+        final long now = nanoClock.getAsLong();
+        final MembershipSnapshot previous = snapshot.get();
+        final MembershipSnapshot.Builder next = new MembershipSnapshot.Builder();
+        final List<String> budgetExhausted = new ArrayList<>();
+
+        targets.values().removeIf(target -> now - target.lastRequestedNanos() > TARGET_RETENTION.toNanos());
+
+        for (Map.Entry<MembershipSnapshot.EntityKey, Target> entry : targets.entrySet()) {
+            final Target target = entry.getValue();
+            final String apiUrl = target.gitHubConfiguration().apiUrl();
+
+            if (!budgetExhausted.contains(apiUrl)) {
+                try {
+                    final GitHub gitHub = clientBuilder.fromServerPersonalAccessToken(target.gitHubConfiguration());
+                    final List<String> members = hasBudget(target.gitHubConfiguration()) ? membersOf(gitHub, target) : null;
+                    if (members != null) {
+                        next.put(apiUrl, target.query(), members, nanoClock.getAsLong());
+                        continue;
+                    }
+                    LOG.info("Rate limit of `{}` is below the reserve of {}, keeping remaining memberships until the next refresh.", apiUrl, rateLimitReserve);
+                    budgetExhausted.add(apiUrl);
+                } catch (IOException e) {
+                    LOG.warn("Could not list members of `{}`.", target.query(), e);
+                }
+            }
+
+            final Members previousMembers = previous.members(apiUrl, target.query());
+            if (previousMembers != null && now - previousMembers.crawledAtNanos() < refreshInterval.multipliedBy(3).toNanos()) {
+                next.put(apiUrl, target.query(), previousMembers);
+            }
+        }
+
+        final MembershipSnapshot crawled = next.build();
+        snapshot.set(crawled);
+        LOG.debug("Membership snapshot refreshed with {} organizations and teams.", crawled.size());
+    }
+
+    private boolean hasBudget(GitHubConfiguration gitHubConfiguration) {
+        final Long remaining = rateLimitBudget.remaining(gitHubConfiguration.apiUrl(), gitHubConfiguration.personalAccessToken(), RateLimitBudget.CORE);
+        return remaining == null || remaining >= rateLimitReserve;
+    }
+
+    /**
+     * @return the logins of the members, or {@code null} if the rate limit dropped below the reserve while they were
+     * being listed
+     */
+    private List<String> membersOf(GitHub gitHub, Target target) throws IOException {
+        final MembershipQuery query = target.query();
+        final GHOrganization organization;
+        try {
+            organization = gitHub.getOrganization(query.organization());
+        } catch (GHFileNotFoundException e) {
+            return List.of();
+        }
+        if (organization == null) {
+            return List.of();
+        }
+
+        final PagedIterable<GHUser> members;
+        if (query.isTeamQuery()) {
+            final GHTeam team = teamResolver.resolve(target.gitHubConfiguration().apiUrl(), organization, query.organization(), query.team());
+            if (team == null) {
+                return List.of();
+            }
+            members = team.listMembers();
+        } else {
+            members = organization.listMembers();
+        }
+
+        final List<String> logins = new ArrayList<>();
+        final PagedIterator<GHUser> pages = members.withPageSize(PAGE_SIZE).iterator();
+        while (pages.hasNext()) {
+            pages.nextPage().forEach(member -> logins.add(toLowerCase(member.getLogin())));
+            if (!hasBudget(target.gitHubConfiguration())) {
+                return null;
+            }
+        }
+        return logins;
+    }
+
+    private record Target(GitHubConfiguration gitHubConfiguration, MembershipQuery query, long lastRequestedNanos) {
+    }
+}
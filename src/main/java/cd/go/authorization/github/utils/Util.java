@@ -16,6 +16,11 @@
 
 package cd.go.authorization.github.utils;
 
+import cd.go.authorization.github.models.AuthConfig;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.GitHubRoleConfiguration;
+import cd.go.authorization.github.models.Role;
+import cd.go.authorization.github.models.User;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
@@ -23,12 +28,22 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Objects;
 
 public class Util {
-    public static final Gson GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    public static final Gson GSON = new GsonBuilder()
+            .excludeFieldsWithoutExposeAnnotation()
+            .registerTypeAdapter(AuthConfig.class, AuthConfig.TYPE_ADAPTER)
+            .registerTypeAdapter(GitHubConfiguration.class, GitHubConfiguration.TYPE_ADAPTER)
+            .registerTypeAdapter(Role.class, Role.TYPE_ADAPTER)
+            .registerTypeAdapter(GitHubRoleConfiguration.class, GitHubRoleConfiguration.TYPE_ADAPTER)
+            .registerTypeAdapter(User.class, User.TYPE_ADAPTER)
+            .create();
 
     public static String readResource(String resourceFile) {
         return new String(readResourceBytes(resourceFile), StandardCharsets.UTF_8);
@@ -77,4 +92,13 @@ public class Util {
     public static boolean isNotBlank(String str) {
         return str != null && !str.isBlank();
     }
+
+    public static String fingerprint(String str) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(String.valueOf(str).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -21,17 +21,20 @@ import cd.go.authorization.github.models.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.kohsuke.github.GHMyself;
+import org.kohsuke.github.GHOrganization;
+import org.kohsuke.github.GHTeam;
 import org.kohsuke.github.GitHub;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class GitHubAuthenticatorTest {
 
@@ -77,7 +80,7 @@ public class GitHubAuthenticatorTest {
 
         when(gitHub.getMyself()).thenReturn(myself);
         when(gitHubConfiguration.organizationsAllowed()).thenReturn(allowedOrganizations);
-        when(membershipChecker.isAMemberOfAtLeastOneOrganization(eq(myself), eq(authConfig), eq(allowedOrganizations))).thenReturn(true);
+        when(membershipChecker.isAMemberOfAtLeastOneOrganization(eq(GitHubUser.of(myself)), eq(authConfig), eq(allowedOrganizations))).thenReturn(true);
 
         final LoggedInUserInfo loggedInUserInfo = authenticator.authenticate(tokenInfo, authConfig);
 
@@ -91,20 +94,71 @@ public class GitHubAuthenticatorTest {
 
         when(gitHub.getMyself()).thenReturn(myself);
         when(gitHubConfiguration.organizationsAllowed()).thenReturn(allowedOrganizations);
-        when(membershipChecker.isAMemberOfAtLeastOneOrganization(eq(myself), eq(authConfig), eq(allowedOrganizations))).thenReturn(false);
+        when(membershipChecker.isAMemberOfAtLeastOneOrganization(eq(GitHubUser.of(myself)), eq(authConfig), eq(allowedOrganizations))).thenReturn(false);
 
         final LoggedInUserInfo loggedInUserInfo = authenticator.authenticate(tokenInfo, authConfig);
 
         assertNull(loggedInUserInfo);
     }
 
-    private GHMyself mockUser(String username, String name) throws IOException {
-        final GHMyself myself = mock(GHMyself.class);
+    @Test
+    public void shouldAuthenticateUserWithMembershipsListedUsingTheUsersAccessToken() throws Exception {
+        final GHMyself myself = mockUser("bford", "Bob");
+        final GHTeam team = mock(GHTeam.class);
+
+        when(team.getName()).thenReturn("Developers");
+        when(gitHub.getMyself()).thenReturn(myself);
+        when(gitHub.getMyOrganizations()).thenReturn(Map.of("OrgB", mock(GHOrganization.class)));
+        when(gitHub.getMyTeams()).thenReturn(Map.of("OrgB", Set.of(team)));
+        when(tokenInfo.hasScope("read:org")).thenReturn(true);
+        when(gitHubConfiguration.authorizeUsing()).thenReturn(AuthorizeUsing.USER_ACCESS_TOKEN);
+        when(gitHubConfiguration.organizationsAllowed()).thenReturn(List.of("orga", "orgb"));
+
+        final LoggedInUserInfo loggedInUserInfo = authenticator.authenticate(tokenInfo, authConfig);
+
+        assertThat(loggedInUserInfo.getUser()).isEqualTo(new User("bford", "Bob", "bford@example.com"));
+        assertThat(loggedInUserInfo.getMemberships().contains(MembershipQuery.ofTeam("orgb", "developers"))).isTrue();
+        verifyNoInteractions(membershipChecker);
+    }
 
-        when(myself.getLogin()).thenReturn(username);
-        when(myself.getEmail()).thenReturn(username + "@example.com");
-        when(myself.getName()).thenReturn(name);
+    @Test
+    public void shouldFallBackToPersonalAccessTokenWhenUsersAccessTokenCannotReadOrganizations() throws Exception {
+        final GHMyself myself = mockUser("bford", "Bob");
+        final List<String> allowedOrganizations = List.of("orga");
+
+        when(gitHub.getMyself()).thenReturn(myself);
+        when(tokenInfo.hasScope("read:org")).thenReturn(false);
+        when(gitHubConfiguration.authorizeUsing()).thenReturn(AuthorizeUsing.USER_ACCESS_TOKEN);
+        when(gitHubConfiguration.organizationsAllowed()).thenReturn(allowedOrganizations);
+        when(membershipChecker.isAMemberOfAtLeastOneOrganization(GitHubUser.of(myself), authConfig, allowedOrganizations)).thenReturn(true);
+
+        final LoggedInUserInfo loggedInUserInfo = authenticator.authenticate(tokenInfo, authConfig);
+
+        assertThat(loggedInUserInfo.getMemberships()).isNull();
+        verify(gitHub, never()).getMyOrganizations();
+    }
 
-        return myself;
+    private static GHMyself mockUser(String username, String fullName) {
+        return new GHMyself() {
+            @Override
+            public String getLogin() {
+                return username;
+            }
+
+            @Override
+            public long getId() {
+                return 42;
+            }
+
+            @Override
+            public String getName() {
+                return fullName;
+            }
+
+            @Override
+            public String getEmail() {
+                return username + "@example.com";
+            }
+        };
     }
 }
@@ -17,15 +17,19 @@
 package cd.go.authorization.github;
 
 import cd.go.authorization.github.models.AuthConfig;
+import cd.go.authorization.github.models.GitHubConfiguration;
 import cd.go.authorization.github.models.GitHubRoleConfiguration;
+import cd.go.authorization.github.models.GitHubUser;
 import cd.go.authorization.github.models.Role;
+import cd.go.authorization.github.snapshot.MembershipSnapshotCrawler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.kohsuke.github.GHUser;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
@@ -36,22 +40,23 @@ public class GitHubAuthorizerTest {
 
     private GitHubAuthorizer authorizer;
     private MembershipChecker membershipChecker;
-    private GHUser ghUser;
+    private MembershipSnapshotCrawler snapshotCrawler;
+    private GitHubUser user;
     private AuthConfig authConfig;
 
     @BeforeEach
     public void setUp() {
         membershipChecker = mock(MembershipChecker.class);
-        ghUser = mock(GHUser.class);
+        snapshotCrawler = mock(MembershipSnapshotCrawler.class);
+        user = new GitHubUser("bob", 1, null, null);
         authConfig = mock(AuthConfig.class);
-        when(ghUser.getLogin()).thenReturn("bob");
 
-        authorizer = new GitHubAuthorizer(membershipChecker);
+        authorizer = new GitHubAuthorizer(membershipChecker, new RoleIndexCache(10), snapshotCrawler);
     }
 
     @Test
     public void shouldReturnEmptyListIfNoRoleConfiguredForGivenAuthConfig() throws IOException {
-        final List<String> assignedRoles = authorizer.authorize(ghUser, authConfig, Collections.emptyList());
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, Collections.emptyList());
 
         assertThat(assignedRoles).hasSize(0);
         verifyNoMoreInteractions(authConfig);
@@ -67,7 +72,7 @@ public class GitHubAuthorizerTest {
         when(role.roleConfiguration()).thenReturn(roleConfiguration);
         when(roleConfiguration.users()).thenReturn(singletonList("bob"));
 
-        final List<String> assignedRoles = authorizer.authorize(ghUser, authConfig, singletonList(role));
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, singletonList(role));
 
         assertThat(assignedRoles).hasSize(1);
         assertThat(assignedRoles).contains("admin");
@@ -82,7 +87,7 @@ public class GitHubAuthorizerTest {
         when(role.roleConfiguration()).thenReturn(roleConfiguration);
         when(roleConfiguration.users()).thenReturn(singletonList("alice"));
 
-        final List<String> assignedRoles = authorizer.authorize(ghUser, authConfig, singletonList(role));
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, singletonList(role));
 
         assertThat(assignedRoles).hasSize(0);
     }
@@ -95,9 +100,9 @@ public class GitHubAuthorizerTest {
         when(role.name()).thenReturn("admin");
         when(role.roleConfiguration()).thenReturn(roleConfiguration);
         when(roleConfiguration.organizations()).thenReturn(singletonList("organization-1"));
-        when(membershipChecker.isAMemberOfAtLeastOneOrganization(ghUser, authConfig, roleConfiguration.organizations())).thenReturn(true);
+        when(membershipChecker.resolve(user, authConfig, List.of(Set.of(MembershipQuery.ofOrganization("organization-1"))))).thenReturn(Set.of(MembershipQuery.ofOrganization("organization-1")));
 
-        final List<String> assignedRoles = authorizer.authorize(ghUser, authConfig, singletonList(role));
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, singletonList(role));
 
         assertThat(assignedRoles).hasSize(1);
         assertThat(assignedRoles).contains("admin");
@@ -111,9 +116,9 @@ public class GitHubAuthorizerTest {
         when(role.name()).thenReturn("admin");
         when(role.roleConfiguration()).thenReturn(roleConfiguration);
         when(roleConfiguration.organizations()).thenReturn(singletonList("organization-1"));
-        when(membershipChecker.isAMemberOfAtLeastOneOrganization(ghUser, authConfig, roleConfiguration.organizations())).thenReturn(false);
+        when(membershipChecker.resolve(user, authConfig, List.of(Set.of(MembershipQuery.ofOrganization("organization-1"))))).thenReturn(Set.of());
 
-        final List<String> assignedRoles = authorizer.authorize(ghUser, authConfig, singletonList(role));
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, singletonList(role));
 
         assertThat(assignedRoles).hasSize(0);
     }
@@ -126,9 +131,9 @@ public class GitHubAuthorizerTest {
         when(role.name()).thenReturn("admin");
         when(role.roleConfiguration()).thenReturn(roleConfiguration);
         when(roleConfiguration.teams()).thenReturn(singletonMap("organization-1", singletonList("team-1")));
-        when(membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(ghUser, authConfig, roleConfiguration.teams())).thenReturn(true);
+        when(membershipChecker.resolve(user, authConfig, List.of(Set.of(MembershipQuery.ofTeam("organization-1", "team-1"))))).thenReturn(Set.of(MembershipQuery.ofTeam("organization-1", "team-1")));
 
-        final List<String> assignedRoles = authorizer.authorize(ghUser, authConfig, singletonList(role));
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, singletonList(role));
 
         assertThat(assignedRoles).hasSize(1);
         assertThat(assignedRoles).contains("admin");
@@ -142,10 +147,74 @@ public class GitHubAuthorizerTest {
         when(role.name()).thenReturn("admin");
         when(role.roleConfiguration()).thenReturn(roleConfiguration);
         when(roleConfiguration.teams()).thenReturn(singletonMap("organization-1", singletonList("team-1")));
-        when(membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(ghUser, authConfig, roleConfiguration.teams())).thenReturn(false);
+        when(membershipChecker.resolve(user, authConfig, List.of(Set.of(MembershipQuery.ofTeam("organization-1", "team-1"))))).thenReturn(Set.of());
 
-        final List<String> assignedRoles = authorizer.authorize(ghUser, authConfig, singletonList(role));
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, singletonList(role));
 
         assertThat(assignedRoles).hasSize(0);
     }
+
+    @Test
+    public void shouldResolveMembershipsOfAllRolesAtOnce() throws IOException {
+        final Role admin = roleWith("admin", "organization-1", "organization-2");
+        final Role developer = roleWith("developer", "organization-1");
+        final Role viewer = roleWith("viewer", "organization-3");
+        final List<Set<MembershipQuery>> requirements = List.of(
+                Set.of(MembershipQuery.ofOrganization("organization-1"), MembershipQuery.ofOrganization("organization-2")),
+                Set.of(MembershipQuery.ofOrganization("organization-1")),
+                Set.of(MembershipQuery.ofOrganization("organization-3")));
+        when(membershipChecker.resolve(user, authConfig, requirements)).thenReturn(Set.of(MembershipQuery.ofOrganization("organization-1")));
+
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, List.of(admin, developer, viewer));
+
+        assertThat(assignedRoles).containsExactly("admin", "developer");
+        verify(membershipChecker).resolve(user, authConfig, requirements);
+        verifyNoMoreInteractions(membershipChecker);
+    }
+
+    @Test
+    public void shouldNotAskGitHubAboutRolesAssignedThroughUsersList() throws IOException {
+        final Role admin = roleWith("admin", "organization-1");
+        when(admin.roleConfiguration().users()).thenReturn(singletonList("bob"));
+
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, singletonList(admin));
+
+        assertThat(assignedRoles).containsExactly("admin");
+        verifyNoInteractions(membershipChecker);
+    }
+
+    @Test
+    public void shouldAssignRolesFromMembershipsListedAtLoginWithoutAskingGitHub() throws IOException {
+        final Role admin = roleWith("admin", "organization-1");
+        final Role viewer = roleWith("viewer", "organization-2");
+
+        final List<String> assignedRoles = authorizer.authorize(user, authConfig, List.of(admin, viewer), new Memberships(List.of("organization-2"), Map.of()));
+
+        assertThat(assignedRoles).containsExactly("viewer");
+        verifyNoInteractions(membershipChecker);
+    }
+
+    @Test
+    public void shouldRegisterOrganizationsAndTeamsOfRoleConfigurationsForCrawling() throws IOException {
+        final GitHubConfiguration gitHubConfiguration = mock(GitHubConfiguration.class);
+        final Role admin = roleWith("admin", "organization-1");
+        when(admin.roleConfiguration().users()).thenReturn(singletonList("bob"));
+        when(authConfig.gitHubConfiguration()).thenReturn(gitHubConfiguration);
+        when(snapshotCrawler.isEnabled()).thenReturn(true);
+
+        authorizer.authorize(user, authConfig, singletonList(admin));
+
+        verify(snapshotCrawler).registerConfigured(gitHubConfiguration, Set.of(MembershipQuery.ofOrganization("organization-1")));
+        verifyNoInteractions(membershipChecker);
+    }
+
+    private static Role roleWith(String name, String... organizations) {
+        final Role role = mock(Role.class);
+        final GitHubRoleConfiguration roleConfiguration = mock(GitHubRoleConfiguration.class);
+
+        when(role.name()).thenReturn(name);
+        when(role.roleConfiguration()).thenReturn(roleConfiguration);
+        when(roleConfiguration.organizations()).thenReturn(List.of(organizations));
+        return role;
+    }
 }
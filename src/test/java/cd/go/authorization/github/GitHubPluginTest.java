@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import com.thoughtworks.go.plugin.api.request.DefaultGoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class GitHubPluginTest {
+    private final GitHubPlugin plugin = new GitHubPlugin(mock(GitHubServices.class));
+
+    @Test
+    public void shouldAnswerTheSameStaticResponseForEveryRequest() {
+        final GoPluginApiResponse first = plugin.handle(new DefaultGoPluginApiRequest("authorization", "2.0", "go.cd.authorization.get-capabilities"));
+        final GoPluginApiResponse second = plugin.handle(new DefaultGoPluginApiRequest("authorization", "2.0", "go.cd.authorization.get-capabilities"));
+
+        assertThat(first.responseCode()).isEqualTo(200);
+        assertThat(second.responseBody()).isSameAs(first.responseBody());
+    }
+
+    @Test
+    public void shouldNotAnswerUnknownRequests() {
+        assertThat(plugin.handle(new DefaultGoPluginApiRequest("authorization", "2.0", "go.cd.authorization.unknown"))).isNull();
+    }
+}
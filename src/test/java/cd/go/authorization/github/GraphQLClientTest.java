@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.GitHubConfiguration;
+import com.google.gson.JsonObject;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GraphQLClientTest {
+    private MockWebServer gitHubEnterprise;
+    private GitHubConfiguration gitHubConfiguration;
+    private GraphQLClient graphQLClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        gitHubEnterprise = new MockWebServer();
+        gitHubEnterprise.start();
+        gitHubConfiguration = mock(GitHubConfiguration.class);
+        when(gitHubConfiguration.apiUrl()).thenReturn(gitHubEnterprise.url("/api/v3/").toString());
+        when(gitHubConfiguration.personalAccessToken()).thenReturn("personal-access-token");
+        graphQLClient = new GraphQLClient(apiUrl -> new OkHttpClient());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gitHubEnterprise.close();
+    }
+
+    @Test
+    public void shouldReturnDataAndTrackCostOfQueries() throws Exception {
+        gitHubEnterprise.enqueue(new MockResponse.Builder()
+                .addHeader("Content-Type", "application/json")
+                .body("{\"data\": {\"rateLimit\": {\"cost\": 2, \"remaining\": 4998}, \"viewer\": {\"login\": \"bob\"}}}")
+                .build());
+
+        final JsonObject data = graphQLClient.query(gitHubConfiguration, "query { rateLimit { cost remaining } viewer { login } }", Map.of()).data();
+
+        assertThat(data.getAsJsonObject("viewer").get("login").getAsString()).isEqualTo("bob");
+        assertThat(graphQLClient.queryCount()).isEqualTo(1);
+        assertThat(graphQLClient.totalCost()).isEqualTo(2);
+        assertThat(graphQLClient.remainingPoints()).isEqualTo(4998);
+    }
+
+    @Test
+    public void shouldOnlyRememberServersWithoutGraphQLAsUnavailable() throws Exception {
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(502).build());
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(404).build());
+
+        assertThat(graphQLClient.query(gitHubConfiguration, "query { viewer { login } }", Map.of())).isNull();
+        assertThat(graphQLClient.isAvailable(gitHubConfiguration.apiUrl())).isTrue();
+
+        assertThat(graphQLClient.query(gitHubConfiguration, "query { viewer { login } }", Map.of())).isNull();
+        assertThat(graphQLClient.isAvailable(gitHubConfiguration.apiUrl())).isFalse();
+    }
+
+    @Test
+    public void shouldAskServersWithoutGraphQLAgainOnceTheyHaveBeenUnavailableForAWhile() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        graphQLClient = new GraphQLClient(apiUrl -> new OkHttpClient(), Duration.ofHours(1), clock::get);
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(404).build());
+
+        assertThat(graphQLClient.query(gitHubConfiguration, "query { viewer { login } }", Map.of())).isNull();
+        clock.addAndGet(Duration.ofMinutes(59).toNanos());
+        assertThat(graphQLClient.isAvailable(gitHubConfiguration.apiUrl())).isFalse();
+
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertThat(graphQLClient.isAvailable(gitHubConfiguration.apiUrl())).isTrue();
+    }
+
+    @Test
+    public void shouldReturnThePathsOfFieldsWithErrors() throws Exception {
+        gitHubEnterprise.enqueue(new MockResponse.Builder()
+                .addHeader("Content-Type", "application/json")
+                .body("""
+                        {"data": {"user": {"o0": null, "o1": {"login": "globex"}}},
+                         "errors": [{"type": "FORBIDDEN", "path": ["user", "o0"], "message": "Resource protected by organization SAML enforcement."}]}""")
+                .build());
+
+        final GraphQLClient.Result result = graphQLClient.query(gitHubConfiguration, "query { user(login: \"bob\") { o0: organization(login: \"acme\") { login } o1: organization(login: \"globex\") { login } } }", Map.of());
+
+        assertThat(result.errorPaths()).containsExactly(List.of("user", "o0"));
+        assertThat(result.hasErrorAt("user", "o0")).isTrue();
+        assertThat(result.hasErrorAt("user")).isTrue();
+        assertThat(result.hasErrorAt("user", "o1")).isFalse();
+    }
+
+    @Test
+    public void shouldTakeErrorsWithoutPathAsErrorsOfEveryField() {
+        final GraphQLClient.Result result = new GraphQLClient.Result(new JsonObject(), List.of(List.of()));
+
+        assertThat(result.hasErrorAt("user", "o0")).isTrue();
+        assertThat(result.hasErrorAt("t0")).isTrue();
+    }
+
+    @Test
+    public void shouldUseGraphQLEndpointOfPublicGitHubAndGitHubEnterprise() {
+        assertThat(GraphQLClient.endpointFor("https://api.github.com")).isEqualTo("https://api.github.com/graphql");
+        assertThat(GraphQLClient.endpointFor("https://ghe.example.com/api/v3/")).isEqualTo("https://ghe.example.com/api/graphql");
+    }
+}
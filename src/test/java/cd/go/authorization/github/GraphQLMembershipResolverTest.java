@@ -0,0 +1,166 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.GitHubConfiguration;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GraphQLMembershipResolverTest {
+    private MockWebServer gitHubEnterprise;
+    private GitHubConfiguration gitHubConfiguration;
+    private GraphQLClient graphQLClient;
+    private GraphQLMembershipResolver resolver;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        gitHubEnterprise = new MockWebServer();
+        gitHubEnterprise.start();
+        gitHubConfiguration = mock(GitHubConfiguration.class);
+        when(gitHubConfiguration.apiUrl()).thenReturn(gitHubEnterprise.url("/api/v3/").toString());
+        when(gitHubConfiguration.personalAccessToken()).thenReturn("personal-access-token");
+        graphQLClient = new GraphQLClient(apiUrl -> new OkHttpClient());
+        resolver = new GraphQLMembershipResolver(graphQLClient);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gitHubEnterprise.close();
+    }
+
+    @Test
+    public void shouldAnswerOrganizationAndTeamQueriesInASingleQuery() throws Exception {
+        gitHubEnterprise.enqueue(json("""
+                {
+                  "data": {
+                    "rateLimit": {"cost": 1, "remaining": 4999},
+                    "user": {"o0": {"login": "acme"}, "o1": null},
+                    "t0": {"teams": {"nodes": [{"name": "Developers"}], "pageInfo": {"hasNextPage": false, "endCursor": null}}}
+                  }
+                }"""));
+
+        final Map<MembershipQuery, Boolean> answers = resolver.resolve(gitHubConfiguration, "bob", List.of(
+                MembershipQuery.ofOrganization("acme"),
+                MembershipQuery.ofOrganization("globex"),
+                MembershipQuery.ofTeam("acme", "developers"),
+                MembershipQuery.ofTeam("acme", "admins")));
+
+        assertThat(answers).containsOnly(
+                Map.entry(MembershipQuery.ofOrganization("acme"), true),
+                Map.entry(MembershipQuery.ofOrganization("globex"), false),
+                Map.entry(MembershipQuery.ofTeam("acme", "developers"), true),
+                Map.entry(MembershipQuery.ofTeam("acme", "admins"), false));
+        assertThat(graphQLClient.totalCost()).isEqualTo(1);
+        assertThat(graphQLClient.remainingPoints()).isEqualTo(4999);
+
+        final RecordedRequest request = gitHubEnterprise.takeRequest();
+        assertThat(request.getTarget()).isEqualTo("/api/graphql");
+        assertThat(request.getHeaders().get("Authorization")).isEqualTo("bearer personal-access-token");
+        final JsonObject variables = JsonParser.parseString(request.getBody().utf8()).getAsJsonObject().getAsJsonObject("variables");
+        assertThat(variables.get("login").getAsString()).isEqualTo("bob");
+        assertThat(variables.get("o1").getAsString()).isEqualTo("globex");
+        assertThat(variables.get("t0").getAsString()).isEqualTo("acme");
+        assertThat(gitHubEnterprise.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFollowPagesOfTeams() throws Exception {
+        gitHubEnterprise.enqueue(json("""
+                {"data": {"t0": {"teams": {"nodes": [{"name": "Developers"}], "pageInfo": {"hasNextPage": true, "endCursor": "page-2"}}}}}"""));
+        gitHubEnterprise.enqueue(json("""
+                {"data": {"t0": {"teams": {"nodes": [{"name": "Admins"}], "pageInfo": {"hasNextPage": false, "endCursor": null}}}}}"""));
+
+        final Map<MembershipQuery, Boolean> answers = resolver.resolve(gitHubConfiguration, "bob", List.of(MembershipQuery.ofTeam("acme", "admins")));
+
+        assertThat(answers).containsOnly(Map.entry(MembershipQuery.ofTeam("acme", "admins"), true));
+        gitHubEnterprise.takeRequest();
+        final JsonObject variables = JsonParser.parseString(gitHubEnterprise.takeRequest().getBody().utf8()).getAsJsonObject().getAsJsonObject("variables");
+        assertThat(variables.get("c0").getAsString()).isEqualTo("page-2");
+    }
+
+    @Test
+    public void shouldLeaveQueriesAboutUnknownOrganizationsUnanswered() throws Exception {
+        gitHubEnterprise.enqueue(json("""
+                {"data": {"t0": null}, "errors": [{"type": "NOT_FOUND", "path": ["t0"]}]}"""));
+
+        assertThat(resolver.resolve(gitHubConfiguration, "bob", List.of(MembershipQuery.ofTeam("acme", "admins")))).isEmpty();
+    }
+
+    @Test
+    public void shouldLeaveQueriesThatGitHubReportedErrorsForUnanswered() throws Exception {
+        gitHubEnterprise.enqueue(json("""
+                {
+                  "data": {
+                    "user": {"o0": null, "o1": null},
+                    "t0": null
+                  },
+                  "errors": [
+                    {"type": "FORBIDDEN", "path": ["user", "o0"], "message": "Resource protected by organization SAML enforcement."},
+                    {"type": "FORBIDDEN", "path": ["t0"], "message": "Resource protected by organization SAML enforcement."}
+                  ]
+                }"""));
+
+        final Map<MembershipQuery, Boolean> answers = resolver.resolve(gitHubConfiguration, "bob", List.of(
+                MembershipQuery.ofOrganization("acme"),
+                MembershipQuery.ofOrganization("globex"),
+                MembershipQuery.ofTeam("acme", "developers")));
+
+        assertThat(answers).containsOnly(Map.entry(MembershipQuery.ofOrganization("globex"), false));
+    }
+
+    @Test
+    public void shouldLeaveTeamQueriesUnansweredWhenALaterPageOfTeamsFailed() throws Exception {
+        gitHubEnterprise.enqueue(json("""
+                {"data": {"t0": {"teams": {"nodes": [{"name": "Developers"}], "pageInfo": {"hasNextPage": true, "endCursor": "page-2"}}}}}"""));
+        gitHubEnterprise.enqueue(json("""
+                {"data": {"t0": null}, "errors": [{"type": "RATE_LIMITED", "path": ["t0"]}]}"""));
+
+        assertThat(resolver.resolve(gitHubConfiguration, "bob", List.of(MembershipQuery.ofTeam("acme", "admins")))).isEmpty();
+    }
+
+    @Test
+    public void shouldStopUsingGraphQLWhenTheServerDoesNotSupportIt() throws Exception {
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(404).build());
+
+        assertThat(resolver.resolve(gitHubConfiguration, "bob", List.of(MembershipQuery.ofOrganization("acme")))).isEmpty();
+        assertThat(resolver.resolve(gitHubConfiguration, "bob", List.of(MembershipQuery.ofOrganization("acme")))).isEmpty();
+
+        assertThat(gitHubEnterprise.getRequestCount()).isEqualTo(1);
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse.Builder()
+                .addHeader("Content-Type", "application/json")
+                .body(body)
+                .build();
+    }
+}
@@ -16,69 +16,84 @@
 
 package cd.go.authorization.github;
 
+import cd.go.authorization.github.cache.MembershipCache;
 import cd.go.authorization.github.client.GitHubClientBuilder;
 import cd.go.authorization.github.models.AuthConfig;
 import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.GitHubUser;
+import cd.go.authorization.github.snapshot.MembershipSnapshotCrawler;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.kohsuke.github.GHOrganization;
 import org.kohsuke.github.GHTeam;
-import org.kohsuke.github.GHUser;
 import org.kohsuke.github.GitHub;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class MembershipCheckerTest {
 
     private GitHub gitHub;
     private MembershipChecker membershipChecker;
     private AuthConfig authConfig;
-    private GHUser ghUser;
+    private GitHubUser user;
+    private GitHubClientBuilder clientBuilder;
+    private GitHubConfiguration gitHubConfiguration;
+    private ExecutorService lookupExecutor;
+    private MembershipClient memberships;
 
     @BeforeEach
     public void setUp() throws IOException {
         gitHub = mock(GitHub.class);
         authConfig = mock(AuthConfig.class);
-        GitHubConfiguration gitHubConfiguration = mock(GitHubConfiguration.class);
-        ghUser = mock(GHUser.class);
-        final GitHubClientBuilder clientBuilder = mock(GitHubClientBuilder.class);
+        gitHubConfiguration = mock(GitHubConfiguration.class);
+        user = new GitHubUser("bob", 1, null, null);
+        clientBuilder = mock(GitHubClientBuilder.class);
+        memberships = mock(MembershipClient.class);
 
         when(authConfig.gitHubConfiguration()).thenReturn(gitHubConfiguration);
+        when(gitHubConfiguration.apiUrl()).thenReturn("https://api.github.com");
         when(clientBuilder.fromServerPersonalAccessToken(gitHubConfiguration)).thenReturn(gitHub);
 
-        membershipChecker = new MembershipChecker(clientBuilder);
+        lookupExecutor = Executors.newCachedThreadPool();
+        membershipChecker = new MembershipChecker(clientBuilder, new MembershipCache(100, Duration.ofMinutes(5), Duration.ofMinutes(1)), new TeamResolver(100, Duration.ofHours(1)), memberships, lookupExecutor, BatchMembershipResolver.NONE, disabledSnapshotCrawler());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        lookupExecutor.shutdownNow();
     }
 
     @Test
     public void shouldCheckUserMembershipUsingPersonalAccessToken_andReturnTrueIfUserIsAMemberOfAtLeastOneOrganization() throws Exception {
-        final GHOrganization organization = mock(GHOrganization.class);
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-foo", "bob")).thenReturn(true);
 
-        when(organization.getName()).thenReturn("organization-foo");
-        when(gitHub.getOrganization("organization-foo")).thenReturn(organization);
-        when(organization.hasMember(ghUser)).thenReturn(true);
-
-        final boolean aMemberOfAtLeastOneOrganization = membershipChecker.isAMemberOfAtLeastOneOrganization(ghUser, authConfig, List.of("organization-foo", "organization-bar"));
+        final boolean aMemberOfAtLeastOneOrganization = membershipChecker.isAMemberOfAtLeastOneOrganization(user, authConfig, List.of("organization-foo", "organization-bar"));
 
         assertTrue(aMemberOfAtLeastOneOrganization);
     }
 
     @Test
     public void shouldCheckUserMembershipUsingPersonalAccessToken_andReturnFalseIfUserIsNotAMemberOfAnyOrganization() throws Exception {
-        final GHOrganization organization = mock(GHOrganization.class);
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-foo", "bob")).thenReturn(false);
 
-        when(organization.getName()).thenReturn("organization-baz");
-        when(gitHub.getOrganization("organization-foo")).thenReturn(organization);
-        when(organization.hasMember(ghUser)).thenReturn(false);
-
-        final boolean aMemberOfAtLeastOneOrganization = membershipChecker.isAMemberOfAtLeastOneOrganization(ghUser, authConfig, List.of("organization-foo", "organization-bar"));
+        final boolean aMemberOfAtLeastOneOrganization = membershipChecker.isAMemberOfAtLeastOneOrganization(user, authConfig, List.of("organization-foo", "organization-bar"));
 
         assertFalse(aMemberOfAtLeastOneOrganization);
     }
@@ -89,12 +104,13 @@ public class MembershipCheckerTest {
         final GHTeam team = mock(GHTeam.class);
 
         when(team.getName()).thenReturn("TeamX");
+        when(team.getSlug()).thenReturn("team-x");
         when(organization.getName()).thenReturn("organization-foo");
         when(organization.getTeams()).thenReturn(singletonMap("TeamX", team));
         when(gitHub.getOrganization("organization-foo")).thenReturn(organization);
-        when(team.hasMember(ghUser)).thenReturn(true);
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "team-x", "bob")).thenReturn(true);
 
-        final boolean aMemberOfAtLeastOneTeamOfOrganization = membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(ghUser, authConfig, singletonMap("organization-foo", List.of("teamx")));
+        final boolean aMemberOfAtLeastOneTeamOfOrganization = membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(user, authConfig, singletonMap("organization-foo", List.of("teamx")));
 
         assertTrue(aMemberOfAtLeastOneTeamOfOrganization);
     }
@@ -114,13 +130,230 @@ public class MembershipCheckerTest {
         when(gitHub.getOrganization("organization-foo")).thenReturn(organization);
 
         when(teamX.getName()).thenReturn("TeamX");
-        when(teamX.hasMember(ghUser)).thenReturn(false);
+        when(teamX.getSlug()).thenReturn("team-x");
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "team-x", "bob")).thenReturn(false);
 
         when(teamY.getName()).thenReturn("TeamY");
-        when(teamX.hasMember(ghUser)).thenReturn(true);
+        when(teamY.getSlug()).thenReturn("team-y");
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "team-y", "bob")).thenReturn(true);
 
-        final boolean aMemberOfAtLeastOneTeamOfOrganization = membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(ghUser, authConfig, singletonMap("organization-foo", List.of("TeamX")));
+        final boolean aMemberOfAtLeastOneTeamOfOrganization = membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(user, authConfig, singletonMap("organization-foo", List.of("TeamX")));
 
         assertFalse(aMemberOfAtLeastOneTeamOfOrganization);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldAnswerRepeatedOrganizationChecksFromCache() throws Exception {
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-foo", "bob")).thenReturn(true);
+
+        assertTrue(membershipChecker.isAMemberOfAtLeastOneOrganization(user, authConfig, List.of("organization-foo")));
+        assertTrue(membershipChecker.isAMemberOfAtLeastOneOrganization(user, authConfig, List.of("organization-foo")));
+
+        verify(memberships, times(1)).isOrganizationMember(gitHubConfiguration, "organization-foo", "bob");
+    }
+
+    @Test
+    public void shouldCheckOrganizationMembershipWithASingleCallWithoutLookingUpTheOrganization() throws Exception {
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-foo", "bob")).thenReturn(true);
+
+        assertTrue(membershipChecker.isAMemberOfAtLeastOneOrganization(user, authConfig, List.of("organization-foo")));
+
+        verifyNoInteractions(clientBuilder);
+    }
+
+    @Test
+    public void shouldCacheNegativeAnswersForTeamsNotFoundInOrganization() throws Exception {
+        final GHOrganization organization = mock(GHOrganization.class);
+        final GHTeam team = mock(GHTeam.class);
+
+        when(team.getName()).thenReturn("TeamX");
+        when(team.getSlug()).thenReturn("team-x");
+        when(organization.getTeams()).thenReturn(singletonMap("TeamX", team));
+        when(gitHub.getOrganization("organization-foo")).thenReturn(organization);
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "team-x", "bob")).thenReturn(false);
+
+        assertFalse(membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(user, authConfig, singletonMap("organization-foo", List.of("teamx", "teamy"))));
+        assertFalse(membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(user, authConfig, singletonMap("organization-foo", List.of("teamx", "teamy"))));
+
+        verify(clientBuilder, times(1)).fromServerPersonalAccessToken(authConfig.gitHubConfiguration());
+        verify(organization, times(1)).getTeams();
+        verify(memberships, times(1)).isTeamMember(gitHubConfiguration, "organization-foo", "team-x", "bob");
+    }
+
+    @Test
+    public void shouldCheckTeamMembershipWithoutListingAllTeamsOfTheOrganization() throws Exception {
+        final GHOrganization organization = mock(GHOrganization.class);
+        final GHTeam team = mock(GHTeam.class);
+
+        when(gitHub.getOrganization("organization-foo")).thenReturn(organization);
+        when(organization.getTeamBySlug("team-x")).thenReturn(team);
+        when(team.getName()).thenReturn("Team X");
+        when(team.getSlug()).thenReturn("team-x");
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "team-x", "bob")).thenReturn(true);
+
+        assertTrue(membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(user, authConfig, singletonMap("organization-foo", List.of("team x"))));
+
+        verify(organization, never()).getTeams();
+        verify(organization, never()).listTeams();
+    }
+
+    @Test
+    public void shouldCheckRememberedTeamsWithASingleCall() throws Exception {
+        final GHOrganization organization = mock(GHOrganization.class);
+        final GHTeam team = mock(GHTeam.class);
+        final GitHubUser alice = new GitHubUser("alice", 2, null, null);
+
+        when(gitHub.getOrganization("organization-foo")).thenReturn(organization);
+        when(organization.getTeamBySlug("team-x")).thenReturn(team);
+        when(team.getName()).thenReturn("Team X");
+        when(team.getSlug()).thenReturn("team-x");
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "team-x", "bob")).thenReturn(true);
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "team-x", "alice")).thenReturn(true);
+
+        assertTrue(membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(user, authConfig, singletonMap("organization-foo", List.of("team x"))));
+        assertTrue(membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(alice, authConfig, singletonMap("organization-foo", List.of("team x"))));
+
+        verify(gitHub, times(1)).getOrganization("organization-foo");
+        verify(organization, times(1)).getTeamBySlug("team-x");
+        verify(team, never()).hasMember(any());
+    }
+
+    @Test
+    public void shouldResolveTeamAgainWhenItIsNoLongerFoundUnderItsRememberedSlug() throws Exception {
+        final GHOrganization organization = mock(GHOrganization.class);
+        final GHTeam team = mock(GHTeam.class);
+        final GHTeam renamed = mock(GHTeam.class);
+        final GitHubUser alice = new GitHubUser("alice", 2, null, null);
+        final TeamResolver teamResolver = new TeamResolver(100, Duration.ofHours(1));
+        membershipChecker = new MembershipChecker(clientBuilder, new MembershipCache(100, Duration.ofMinutes(5), Duration.ofMinutes(1)), teamResolver, memberships, lookupExecutor, BatchMembershipResolver.NONE, disabledSnapshotCrawler());
+
+        when(gitHub.getOrganization("organization-foo")).thenReturn(organization);
+        when(organization.getTeamBySlug("teamx")).thenReturn(team, (GHTeam) null);
+        when(team.getName()).thenReturn("TeamX");
+        when(team.getSlug()).thenReturn("teamx");
+        when(renamed.getName()).thenReturn("TeamX");
+        when(renamed.getSlug()).thenReturn("team-x");
+        when(organization.getTeams()).thenReturn(singletonMap("TeamX", renamed));
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "teamx", "bob")).thenReturn(true);
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "teamx", "alice")).thenReturn(null);
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "team-x", "alice")).thenReturn(true);
+
+        assertTrue(membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(user, authConfig, singletonMap("organization-foo", List.of("teamx"))));
+        assertTrue(membershipChecker.isAMemberOfAtLeastOneTeamOfOrganization(alice, authConfig, singletonMap("organization-foo", List.of("teamx"))));
+
+        assertThat(teamResolver.cachedSlugOf("https://api.github.com", "organization-foo", "teamx")).contains("team-x");
+    }
+
+    @Test
+    public void shouldAskGitHubEachQuestionOnlyOnceWhenResolvingSeveralRequirements() throws Exception {
+        final GHOrganization organization = mock(GHOrganization.class);
+        final GHTeam team = mock(GHTeam.class);
+
+        when(gitHub.getOrganization("organization-foo")).thenReturn(organization);
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-foo", "bob")).thenReturn(false);
+        when(organization.getTeamBySlug("teamx")).thenReturn(team);
+        when(team.getName()).thenReturn("TeamX");
+        when(team.getSlug()).thenReturn("teamx");
+        when(memberships.isTeamMember(gitHubConfiguration, "organization-foo", "teamx", "bob")).thenReturn(true);
+
+        final Set<MembershipQuery> resolved = membershipChecker.resolve(user, authConfig, List.of(
+                Set.of(MembershipQuery.ofOrganization("organization-foo")),
+                Set.of(MembershipQuery.ofOrganization("organization-foo"), MembershipQuery.ofTeam("organization-foo", "teamx")),
+                Set.of(MembershipQuery.ofTeam("organization-foo", "teamx"))));
+
+        assertThat(resolved).containsExactly(MembershipQuery.ofTeam("organization-foo", "teamx"));
+        verify(gitHub, times(1)).getOrganization("organization-foo");
+        verify(memberships, times(1)).isOrganizationMember(gitHubConfiguration, "organization-foo", "bob");
+        verify(memberships, times(1)).isTeamMember(gitHubConfiguration, "organization-foo", "teamx", "bob");
+    }
+
+    @Test
+    public void shouldNotAskAboutQueriesWhoseRequirementsAreAlreadySatisfied() throws Exception {
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-foo", "bob")).thenReturn(true);
+
+        final Set<MembershipQuery> resolved = membershipChecker.resolve(user, authConfig, List.of(
+                Set.of(MembershipQuery.ofOrganization("organization-foo")),
+                new LinkedHashSet<>(List.of(MembershipQuery.ofOrganization("organization-foo"), MembershipQuery.ofOrganization("organization-bar")))));
+
+        assertThat(resolved).containsExactly(MembershipQuery.ofOrganization("organization-foo"));
+        verify(memberships, never()).isOrganizationMember(gitHubConfiguration, "organization-bar", "bob");
+    }
+
+    @Test
+    public void shouldAskGitHubConcurrentlyUpToTheConfiguredParallelism() throws Exception {
+        final CountDownLatch bothInFlight = new CountDownLatch(2);
+
+        when(gitHubConfiguration.membershipCheckParallelism()).thenReturn(2);
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-foo", "bob")).thenAnswer(invocation -> {
+            awaitOther(bothInFlight);
+            return false;
+        });
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-bar", "bob")).thenAnswer(invocation -> awaitOther(bothInFlight));
+
+        final Set<MembershipQuery> resolved = membershipChecker.resolve(user, authConfig, List.of(
+                Set.of(MembershipQuery.ofOrganization("organization-foo")),
+                Set.of(MembershipQuery.ofOrganization("organization-bar"))));
+
+        assertThat(resolved).containsExactly(MembershipQuery.ofOrganization("organization-bar"));
+    }
+
+    @Test
+    public void shouldCancelRemainingChecksOfARequirementOnceOneOfThemSucceeds() throws Exception {
+        final CountDownLatch barStarted = new CountDownLatch(1);
+        final CountDownLatch barInterrupted = new CountDownLatch(1);
+
+        when(gitHubConfiguration.membershipCheckParallelism()).thenReturn(2);
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-bar", "bob")).thenAnswer(invocation -> {
+            barStarted.countDown();
+            try {
+                Thread.sleep(Duration.ofMinutes(1).toMillis());
+            } catch (InterruptedException e) {
+                barInterrupted.countDown();
+            }
+            return false;
+        });
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-foo", "bob")).thenAnswer(invocation -> barStarted.await(10, TimeUnit.SECONDS));
+
+        final Set<MembershipQuery> resolved = membershipChecker.resolve(user, authConfig, List.of(
+                new LinkedHashSet<>(List.of(MembershipQuery.ofOrganization("organization-bar"), MembershipQuery.ofOrganization("organization-foo")))));
+
+        assertThat(resolved).containsExactly(MembershipQuery.ofOrganization("organization-foo"));
+        assertTrue(barInterrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldOnlyAskOverRestWhatTheBatchResolverCouldNotAnswer() throws Exception {
+        final BatchMembershipResolver batchResolver = (configuration, login, queries) -> Map.of(MembershipQuery.ofOrganization("organization-foo"), false);
+        membershipChecker = new MembershipChecker(clientBuilder, new MembershipCache(100, Duration.ofMinutes(5), Duration.ofMinutes(1)), new TeamResolver(100, Duration.ofHours(1)), memberships, lookupExecutor, batchResolver, disabledSnapshotCrawler());
+
+        when(memberships.isOrganizationMember(gitHubConfiguration, "organization-bar", "bob")).thenReturn(true);
+
+        final Set<MembershipQuery> resolved = membershipChecker.resolve(user, authConfig, List.of(
+                new LinkedHashSet<>(List.of(MembershipQuery.ofOrganization("organization-foo"), MembershipQuery.ofOrganization("organization-bar")))));
+
+        assertThat(resolved).containsExactly(MembershipQuery.ofOrganization("organization-bar"));
+        verify(memberships, never()).isOrganizationMember(gitHubConfiguration, "organization-foo", "bob");
+    }
+
+    @Test
+    public void shouldAnswerFromMembershipSnapshotWithoutAskingGitHub() throws Exception {
+        final MembershipSnapshotCrawler snapshotCrawler = mock(MembershipSnapshotCrawler.class);
+        membershipChecker = new MembershipChecker(clientBuilder, new MembershipCache(100, Duration.ofMinutes(5), Duration.ofMinutes(1)), new TeamResolver(100, Duration.ofHours(1)), memberships, lookupExecutor, BatchMembershipResolver.NONE, snapshotCrawler);
+
+        when(snapshotCrawler.isMember(gitHubConfiguration, MembershipQuery.ofOrganization("organization-foo"), "bob")).thenReturn(true);
+
+        assertTrue(membershipChecker.isAMemberOfAtLeastOneOrganization(user, authConfig, List.of("organization-foo")));
+
+        verify(snapshotCrawler).register(gitHubConfiguration, Set.of(MembershipQuery.ofOrganization("organization-foo")));
+        verifyNoInteractions(clientBuilder);
+    }
+
+    private MembershipSnapshotCrawler disabledSnapshotCrawler() {
+        return new MembershipSnapshotCrawler(clientBuilder, new TeamResolver(100, Duration.ofHours(1)), Duration.ZERO, 0, System::nanoTime);
+    }
+
+    private static boolean awaitOther(CountDownLatch bothInFlight) throws InterruptedException {
+        bothInFlight.countDown();
+        return bothInFlight.await(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.GitHubConfiguration;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.HttpException;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MembershipClientTest {
+    private MockWebServer gitHubEnterprise;
+    private GitHubConfiguration gitHubConfiguration;
+    private MembershipClient memberships;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        gitHubEnterprise = new MockWebServer();
+        gitHubEnterprise.start();
+        gitHubConfiguration = mock(GitHubConfiguration.class);
+        when(gitHubConfiguration.apiUrl()).thenReturn(gitHubEnterprise.url("/api/v3/").toString());
+        when(gitHubConfiguration.personalAccessToken()).thenReturn("personal-access-token");
+        memberships = new MembershipClient(apiUrl -> new OkHttpClient());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gitHubEnterprise.close();
+    }
+
+    @Test
+    public void shouldAskForTheMembershipOfTheUserInTheTeamWithASingleCall() throws Exception {
+        gitHubEnterprise.enqueue(new MockResponse.Builder().body("{\"state\": \"active\", \"role\": \"member\"}").build());
+
+        assertThat(memberships.isTeamMember(gitHubConfiguration, "acme", "team-x", "bob")).isTrue();
+
+        final RecordedRequest request = gitHubEnterprise.takeRequest();
+        assertThat(request.getTarget()).isEqualTo("/api/v3/orgs/acme/teams/team-x/memberships/bob");
+        assertThat(request.getHeaders().get("Authorization")).isEqualTo("token personal-access-token");
+        assertThat(gitHubEnterprise.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotTakePendingInvitationsAsMemberships() throws Exception {
+        gitHubEnterprise.enqueue(new MockResponse.Builder().body("{\"state\": \"pending\", \"role\": \"member\"}").build());
+
+        assertThat(memberships.isTeamMember(gitHubConfiguration, "acme", "team-x", "bob")).isFalse();
+    }
+
+    @Test
+    public void shouldLeaveNotFoundUnanswered() throws Exception {
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(404).body("{\"message\": \"Not Found\"}").build());
+
+        assertThat(memberships.isTeamMember(gitHubConfiguration, "acme", "team-x", "bob")).isNull();
+    }
+
+    @Test
+    public void shouldAskForTheMembershipOfTheUserInTheOrganizationWithASingleCall() throws Exception {
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(204).build());
+
+        assertThat(memberships.isOrganizationMember(gitHubConfiguration, "acme", "bob")).isTrue();
+
+        final RecordedRequest request = gitHubEnterprise.takeRequest();
+        assertThat(request.getTarget()).isEqualTo("/api/v3/orgs/acme/members/bob");
+        assertThat(request.getHeaders().get("Authorization")).isEqualTo("token personal-access-token");
+    }
+
+    @Test
+    public void shouldFollowTheRedirectToPublicMembersOfOrganizationsTheTokenIsNoMemberOf() throws Exception {
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(302).addHeader("Location", "/api/v3/orgs/acme/public_members/bob").build());
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(404).build());
+
+        assertThat(memberships.isOrganizationMember(gitHubConfiguration, "acme", "bob")).isFalse();
+        assertThat(gitHubEnterprise.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFailOnOtherErrors() {
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(403).body("{\"message\": \"API rate limit exceeded\"}").build());
+
+        assertThatThrownBy(() -> memberships.isTeamMember(gitHubConfiguration, "acme", "team-x", "bob"))
+                .isInstanceOf(HttpException.class)
+                .hasMessageContaining("API rate limit exceeded");
+    }
+
+    @Test
+    public void shouldFailOnOtherErrorsOfOrganizationMemberships() {
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(403).body("{\"message\": \"API rate limit exceeded\"}").build());
+
+        assertThatThrownBy(() -> memberships.isOrganizationMember(gitHubConfiguration, "acme", "bob"))
+                .isInstanceOf(HttpException.class)
+                .hasMessageContaining("API rate limit exceeded");
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MembershipQueryTest {
+    @Test
+    public void shouldCollectDistinctOrganizationAndTeamQueries() {
+        assertThat(MembershipQuery.allOf(List.of("acme", "acme"), Map.of("acme", List.of("devs", "ops", "devs"))))
+                .containsExactly(
+                        MembershipQuery.ofOrganization("acme"),
+                        MembershipQuery.ofTeam("acme", "devs"),
+                        MembershipQuery.ofTeam("acme", "ops"));
+    }
+
+    @Test
+    public void shouldTellTeamQueriesApartFromOrganizationQueries() {
+        assertThat(MembershipQuery.ofTeam("acme", "devs").isTeamQuery()).isTrue();
+        assertThat(MembershipQuery.ofOrganization("acme").isTeamQuery()).isFalse();
+    }
+}
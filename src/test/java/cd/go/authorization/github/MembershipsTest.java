@@ -0,0 +1,46 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MembershipsTest {
+    private final Memberships memberships = new Memberships(List.of("Acme"), Map.of("Acme", List.of("Developers", "Site Reliability")));
+
+    @Test
+    public void shouldMatchOrganizationsAndTeamsIgnoringCase() {
+        assertThat(memberships.contains(MembershipQuery.ofOrganization("acme"))).isTrue();
+        assertThat(memberships.contains(MembershipQuery.ofTeam("acme", "site reliability"))).isTrue();
+        assertThat(memberships.contains(MembershipQuery.ofTeam("acme", "admins"))).isFalse();
+        assertThat(memberships.contains(MembershipQuery.ofOrganization("globex"))).isFalse();
+        assertThat(memberships.isAMemberOfAtLeastOneOrganization(List.of("Globex", "ACME"))).isTrue();
+    }
+
+    @Test
+    public void shouldReturnTheQueriesOfAllRequirementsTheUserIsAMemberOf() {
+        assertThat(memberships.matching(List.of(
+                Set.of(MembershipQuery.ofOrganization("globex")),
+                Set.of(MembershipQuery.ofTeam("acme", "developers"), MembershipQuery.ofOrganization("globex")))))
+                .containsExactly(MembershipQuery.ofTeam("acme", "developers"));
+    }
+}
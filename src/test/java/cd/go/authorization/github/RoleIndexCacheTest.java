@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.Role;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RoleIndexCacheTest {
+    private final Role admins = role("admins", "{\"Users\": \"Bob, alice\", \"Organizations\": \"Acme\"}");
+    private final Role developers = role("developers", "{\"Organizations\": \"acme\", \"Teams\": \"acme:Devs\"}");
+    private final RoleIndexCache roleIndexes = new RoleIndexCache(10);
+
+    @Test
+    void shouldReuseTheIndexOfTheSameRoleConfigurations() {
+        final RoleIndex index = roleIndexes.indexOf(List.of(admins, developers));
+
+        assertThat(roleIndexes.indexOf(List.of(role("admins", "{\"Users\": \"Bob, alice\", \"Organizations\": \"Acme\"}"), developers))).isSameAs(index);
+        assertThat(roleIndexes.indexOf(List.of(developers, admins))).isNotSameAs(index);
+        assertThat(roleIndexes.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotShareIndexesWithOtherCaches() {
+        final RoleIndex index = roleIndexes.indexOf(List.of(admins, developers));
+
+        assertThat(new RoleIndexCache(10).indexOf(List.of(admins, developers))).isNotSameAs(index);
+    }
+
+    private static Role role(String name, String configuration) {
+        return Role.fromJSON("{\"name\": \"" + name + "\", \"configuration\": " + configuration + "}");
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.models.Role;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RoleIndexTest {
+    private final Role admins = role("admins", "{\"Users\": \"Bob, alice\", \"Organizations\": \"Acme\"}");
+    private final Role developers = role("developers", "{\"Organizations\": \"acme\", \"Teams\": \"acme:Devs,ops\\nwidgets:devs\"}");
+    private final Role auditors = role("auditors", "{\"Users\": \"bob\"}");
+
+    @Test
+    void shouldLookUpRolesListingAUserAsAllowedUser() {
+        final RoleIndex index = RoleIndex.compile(List.of(admins, developers, auditors));
+
+        assertThat(index.rolesOfUser("bob")).containsExactly(0, 2);
+        assertThat(index.rolesOfUser("alice")).containsExactly(0);
+        assertThat(index.rolesOfUser("eve")).isEmpty();
+    }
+
+    @Test
+    void shouldLookUpRolesGrantedByOrganizationAndTeamMemberships() {
+        final RoleIndex index = RoleIndex.compile(List.of(admins, developers, auditors));
+
+        assertThat(index.rolesGrantedBy(MembershipQuery.ofOrganization("acme"))).containsExactly(0, 1);
+        assertThat(index.rolesGrantedBy(MembershipQuery.ofTeam("acme", "devs"))).containsExactly(1);
+        assertThat(index.rolesGrantedBy(MembershipQuery.ofTeam("widgets", "devs"))).containsExactly(1);
+        assertThat(index.rolesGrantedBy(MembershipQuery.ofTeam("acme", "qa"))).isEmpty();
+    }
+
+    @Test
+    void shouldKeepTheRequirementOfEveryRole() {
+        final RoleIndex index = RoleIndex.compile(List.of(admins, developers, auditors));
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.role(1)).isSameAs(developers);
+        assertThat(index.requirementOf(0)).containsExactly(MembershipQuery.ofOrganization("acme"));
+        assertThat(index.requirementOf(1)).containsExactlyInAnyOrder(MembershipQuery.ofOrganization("acme"),
+                MembershipQuery.ofTeam("acme", "devs"), MembershipQuery.ofTeam("acme", "ops"), MembershipQuery.ofTeam("widgets", "devs"));
+        assertThat(index.requirementOf(2)).isEmpty();
+    }
+
+    @Test
+    void shouldNotHandOutItsOwnLookupArrays() {
+        final RoleIndex index = RoleIndex.compile(List.of(admins, auditors));
+
+        index.rolesOfUser("bob")[0] = 1;
+
+        assertThat(index.rolesOfUser("bob")).containsExactly(0, 1);
+    }
+
+    @Test
+    void shouldFailToCompileAnInvalidTeamConfiguration() {
+        final Role invalid = role("invalid", "{\"Teams\": \"acme\"}");
+
+        assertThatThrownBy(() -> RoleIndex.compile(List.of(invalid)))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("<organization>:<team-1>,<team-2>");
+    }
+
+    private static Role role(String name, String configuration) {
+        return Role.fromJSON("{\"name\": \"" + name + "\", \"configuration\": " + configuration + "}");
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.GHOrganization;
+import org.kohsuke.github.GHTeam;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class TeamResolverTest {
+    private static final String API_URL = "https://api.github.com";
+
+    private GHOrganization organization;
+    private TeamResolver teamResolver;
+
+    @BeforeEach
+    void setUp() {
+        organization = mock(GHOrganization.class);
+        teamResolver = new TeamResolver(100, Duration.ofHours(1));
+    }
+
+    @Test
+    void shouldDeriveSlugFromTeamName() {
+        assertThat(TeamResolver.slugOf("Developers")).isEqualTo("developers");
+        assertThat(TeamResolver.slugOf("Build & Release")).isEqualTo("build-release");
+        assertThat(TeamResolver.slugOf(" Team.Name ")).isEqualTo("team-name");
+        assertThat(TeamResolver.slugOf("ops_team")).isEqualTo("ops_team");
+    }
+
+    @Test
+    void shouldLookUpTeamByDerivedSlug() throws Exception {
+        final GHTeam team = team("Build & Release", "build-release");
+        when(organization.getTeamBySlug("build-release")).thenReturn(team);
+
+        assertThat(teamResolver.resolve(API_URL, organization, "acme", "build & release")).isSameAs(team);
+        verify(organization, never()).getTeams();
+    }
+
+    @Test
+    void shouldListTeamsOnceWhenSlugCannotBeDerivedAndRememberTheMapping() throws Exception {
+        final GHTeam renamed = team("Release Engineers", "release");
+        final GHTeam other = team("Operations", "ops");
+        when(organization.getTeamBySlug("release-engineers")).thenThrow(new GHFileNotFoundException());
+        when(organization.getTeams()).thenReturn(Map.of("Release Engineers", renamed, "Operations", other));
+        when(organization.getTeamBySlug("release")).thenReturn(renamed);
+        when(organization.getTeamBySlug("ops")).thenReturn(other);
+
+        assertThat(teamResolver.resolve(API_URL, organization, "acme", "release engineers")).isSameAs(renamed);
+        assertThat(teamResolver.resolve(API_URL, organization, "acme", "release engineers")).isSameAs(renamed);
+        assertThat(teamResolver.resolve(API_URL, organization, "acme", "operations")).isSameAs(other);
+
+        verify(organization, times(1)).getTeams();
+    }
+
+    @Test
+    void shouldRememberTeamsThatDoNotExist() throws Exception {
+        when(organization.getTeams()).thenReturn(Map.of());
+
+        assertThat(teamResolver.resolve(API_URL, organization, "acme", "ghosts")).isNull();
+        assertThat(teamResolver.resolve(API_URL, organization, "acme", "ghosts")).isNull();
+
+        verify(organization, times(1)).getTeamBySlug("ghosts");
+        verify(organization, times(1)).getTeams();
+    }
+
+    private static GHTeam team(String name, String slug) {
+        final GHTeam team = mock(GHTeam.class);
+        when(team.getName()).thenReturn(name);
+        when(team.getSlug()).thenReturn(slug);
+        return team;
+    }
+}
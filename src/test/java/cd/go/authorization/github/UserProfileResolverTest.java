@@ -0,0 +1,140 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github;
+
+import cd.go.authorization.github.client.LookupExecutor;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.User;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHUser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class UserProfileResolverTest {
+    private MockWebServer gitHubEnterprise;
+    private GitHubConfiguration gitHubConfiguration;
+    private UserProfileResolver profileResolver;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        gitHubEnterprise = new MockWebServer();
+        gitHubEnterprise.start();
+        gitHubConfiguration = mock(GitHubConfiguration.class);
+        when(gitHubConfiguration.apiUrl()).thenReturn(gitHubEnterprise.url("/api/v3/").toString());
+        when(gitHubConfiguration.personalAccessToken()).thenReturn("personal-access-token");
+        profileResolver = new UserProfileResolver(new GraphQLClient(apiUrl -> new OkHttpClient()), LookupExecutor.SHARED, 100, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gitHubEnterprise.close();
+    }
+
+    @Test
+    public void shouldLookUpProfilesOfAllUsersInASingleQuery() throws Exception {
+        final GHUser bob = user("bob", "Bob", "bob@example.com");
+        final GHUser alice = user("alice", "Alice", "alice@example.com");
+        gitHubEnterprise.enqueue(json("""
+                {"data": {"u0": {"login": "bob", "name": "Bob Builder", "email": "Bob@Example.com"}, "u1": {"login": "alice", "name": null, "email": ""}}}"""));
+
+        final List<User> profiles = profileResolver.profilesOf(gitHubConfiguration, List.of(bob, alice));
+
+        assertThat(profiles).containsExactly(new User("bob", "Bob Builder", "bob@example.com"), new User("alice", null, null));
+        final JsonObject variables = JsonParser.parseString(gitHubEnterprise.takeRequest().getBody().utf8()).getAsJsonObject().getAsJsonObject("variables");
+        assertThat(variables.get("u1").getAsString()).isEqualTo("alice");
+        verify(bob, never()).getName();
+        verify(alice, never()).getEmail();
+    }
+
+    @Test
+    public void shouldRememberProfilesOfRepeatedSearches() throws Exception {
+        final GHUser bob = user("bob", "Bob", "bob@example.com");
+        final GHUser alice = user("alice", "Alice", "alice@example.com");
+        gitHubEnterprise.enqueue(json("""
+                {"data": {"u0": {"login": "bob", "name": "Bob", "email": "bob@example.com"}}}"""));
+        gitHubEnterprise.enqueue(json("""
+                {"data": {"u0": {"login": "alice", "name": "Alice", "email": "alice@example.com"}}}"""));
+
+        profileResolver.profilesOf(gitHubConfiguration, List.of(bob));
+        final List<User> profiles = profileResolver.profilesOf(gitHubConfiguration, List.of(bob, alice));
+
+        assertThat(profiles).containsExactly(new User("bob", "Bob", "bob@example.com"), new User("alice", "Alice", "alice@example.com"));
+        assertThat(gitHubEnterprise.getRequestCount()).isEqualTo(2);
+        gitHubEnterprise.takeRequest();
+        final JsonObject variables = JsonParser.parseString(gitHubEnterprise.takeRequest().getBody().utf8()).getAsJsonObject().getAsJsonObject("variables");
+        assertThat(variables.keySet()).containsExactly("u0");
+    }
+
+    @Test
+    public void shouldFetchProfilesOverRestWhereGraphQLCannotAnswer() throws Exception {
+        final GHUser bob = user("bob", "Bob", "bob@example.com");
+        final GHUser acme = user("acme", "Acme Inc.", null);
+        gitHubEnterprise.enqueue(json("""
+                {"data": {"u0": {"login": "bob", "name": "Bob", "email": "bob@example.com"}, "u1": null}}"""));
+
+        final List<User> profiles = profileResolver.profilesOf(gitHubConfiguration, List.of(bob, acme));
+
+        assertThat(profiles).containsExactly(new User("bob", "Bob", "bob@example.com"), new User("acme", "Acme Inc.", null));
+        verify(bob, never()).getName();
+        verify(acme).getName();
+    }
+
+    @Test
+    public void shouldFetchAllProfilesOverRestWithoutGraphQL() throws Exception {
+        final GHUser bob = user("bob", "Bob", "bob@example.com");
+        final GHUser alice = user("alice", "Alice", "alice@example.com");
+        when(alice.getEmail()).thenThrow(new IOException("Connection reset"));
+        gitHubEnterprise.enqueue(new MockResponse.Builder().code(404).build());
+
+        final List<User> profiles = profileResolver.profilesOf(gitHubConfiguration, List.of(bob, alice));
+
+        assertThat(profiles).containsExactly(new User("bob", "Bob", "bob@example.com"), new User("alice", null, null));
+    }
+
+    @Test
+    public void shouldDeclareEveryLoginAsVariable() {
+        assertThat(UserProfileResolver.queryFor(2)).isEqualTo("query($u0: String!, $u1: String!) { rateLimit { cost remaining }"
+                + " u0: user(login: $u0) { login name email } u1: user(login: $u1) { login name email } }");
+    }
+
+    private static GHUser user(String login, String name, String email) throws IOException {
+        final GHUser user = mock(GHUser.class);
+        when(user.getLogin()).thenReturn(login);
+        when(user.getName()).thenReturn(name);
+        when(user.getEmail()).thenReturn(email);
+        return user;
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse.Builder()
+                .addHeader("Content-Type", "application/json")
+                .body(body)
+                .build();
+    }
+}
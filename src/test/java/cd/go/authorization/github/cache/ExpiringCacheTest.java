@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExpiringCacheTest {
+    private AtomicLong clock;
+    private ExpiringCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        cache = new ExpiringCache<>(2, clock::get);
+    }
+
+    @Test
+    void shouldReturnValueUntilItExpires() {
+        cache.put("bob", "admin", Duration.ofSeconds(10));
+
+        clock.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertThat(cache.getIfPresent("bob")).isEqualTo("admin");
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.getIfPresent("bob")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntryWhenFull() {
+        cache.put("alice", "a", Duration.ofMinutes(1));
+        cache.put("bob", "b", Duration.ofMinutes(1));
+        cache.getIfPresent("alice");
+
+        cache.put("carol", "c", Duration.ofMinutes(1));
+
+        assertThat(cache.getIfPresent("alice")).isEqualTo("a");
+        assertThat(cache.getIfPresent("bob")).isNull();
+        assertThat(cache.getIfPresent("carol")).isEqualTo("c");
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotStoreEntriesWithoutTimeToLive() {
+        cache.put("bob", "admin", Duration.ZERO);
+
+        assertThat(cache.getIfPresent("bob")).isNull();
+    }
+
+    @Test
+    void shouldCountHitsAndMisses() {
+        cache.put("bob", "admin", Duration.ofMinutes(1));
+
+        cache.getIfPresent("bob");
+        cache.getIfPresent("bob");
+        cache.getIfPresent("alice");
+
+        final CacheStats stats = cache.stats();
+        assertThat(stats.hits()).isEqualTo(2);
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.hitRate()).isEqualTo(2.0 / 3);
+    }
+
+    @Test
+    void shouldRejectNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(0));
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import cd.go.authorization.github.cache.MembershipCache.MembershipKey;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MembershipCacheTest {
+    private static final String API_URL = "https://api.github.com";
+
+    private final MembershipCache cache = new MembershipCache(100, Duration.ofMinutes(5), Duration.ofMinutes(1));
+
+    @Test
+    public void shouldCompareOrganizationsTeamsAndLoginsCaseInsensitively() {
+        cache.put(MembershipKey.team(API_URL, "pat", "Acme", "Devs", "Bob"), true);
+
+        assertThat(cache.isMember(MembershipKey.team(API_URL, "pat", "acme", "devs", "bob"))).isTrue();
+    }
+
+    @Test
+    public void shouldKeepAnswersOfDifferentTokensApart() {
+        cache.put(MembershipKey.organization(API_URL, "pat", "acme", "bob"), true);
+
+        assertThat(cache.isMember(MembershipKey.organization(API_URL, "other-pat", "acme", "bob"))).isNull();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RoleCacheTest {
+    private static final String CONFIGURATION = "configuration-fingerprint";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private final AtomicInteger evaluations = new AtomicInteger();
+    private final RoleCache roleCache = new RoleCache(100, Duration.ofMinutes(1), Duration.ofMinutes(5), refreshes::add, clock::get);
+
+    @Test
+    public void shouldServeFreshRolesWithoutEvaluatingThemAgain() throws Exception {
+        roleCache.get(CONFIGURATION, "bob", () -> evaluate("admins"));
+
+        assertThat(roleCache.get(CONFIGURATION, "BOB", () -> evaluate("view"))).containsExactly("admins");
+        assertThat(evaluations).hasValue(1);
+        assertThat(refreshes).isEmpty();
+    }
+
+    @Test
+    public void shouldKeepServingPreviousRolesWhenRefreshFails() throws Exception {
+        roleCache.get(CONFIGURATION, "bob", () -> evaluate("admins"));
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        roleCache.get(CONFIGURATION, "bob", () -> {
+            throw new IOException("Rate limit exceeded");
+        });
+        refreshes.get(0).run();
+
+        assertThat(roleCache.get(CONFIGURATION, "bob", () -> evaluate("view"))).containsExactly("admins");
+    }
+
+    @Test
+    public void shouldEvaluateRolesAgainOnceExpired() throws Exception {
+        roleCache.get(CONFIGURATION, "bob", () -> evaluate("admins"));
+        clock.addAndGet(Duration.ofMinutes(5).toNanos());
+
+        assertThat(roleCache.get(CONFIGURATION, "bob", () -> evaluate("view"))).containsExactly("view");
+        assertThat(refreshes).isEmpty();
+    }
+
+    @Test
+    public void shouldNotRememberUsersThatWereNotFound() throws Exception {
+        assertThat(roleCache.get(CONFIGURATION, "ghost", () -> null)).isNull();
+
+        assertThat(roleCache.get(CONFIGURATION, "ghost", () -> evaluate("view"))).containsExactly("view");
+    }
+
+    @Test
+    public void shouldEvaluateRolesAgainForChangedConfiguration() throws Exception {
+        roleCache.get(CONFIGURATION, "bob", () -> evaluate("admins"));
+
+        assertThat(roleCache.get("changed-configuration-fingerprint", "bob", () -> evaluate("view"))).containsExactly("view");
+        assertThat(roleCache.get(CONFIGURATION, "bob", () -> evaluate("view"))).containsExactly("admins");
+    }
+
+    private List<String> evaluate(String... assigned) {
+        evaluations.incrementAndGet();
+        return List.of(assigned);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import cd.go.authorization.github.cache.SearchResultCache.SearchResult;
+import cd.go.authorization.github.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SearchResultCacheTest {
+    private static final String API_URL = "https://api.github.com";
+    private static final User ALEX = new User("alex", "Alex Smith", null);
+    private static final User ALICE = new User("alice", "Alice", "alice@example.com");
+    private static final User BOB = new User("bob", "Bob Alexander", null);
+
+    private final SearchResultCache cache = new SearchResultCache(100, Duration.ofMinutes(1));
+    private final AtomicInteger searches = new AtomicInteger();
+
+    @Test
+    public void shouldRememberResultsOfATerm() throws Exception {
+        cache.search(API_URL, "alex", term -> found(true, ALEX));
+
+        assertThat(cache.search(API_URL, "ALEX ", term -> found(true)).users()).containsExactly(ALEX);
+        assertThat(searches).hasValue(1);
+    }
+
+    @Test
+    public void shouldAnswerLongerTermsByFilteringCompleteResultsOfShorterOnes() throws Exception {
+        cache.search(API_URL, "al", term -> found(true, ALEX, ALICE, BOB));
+
+        assertThat(cache.search(API_URL, "ale", term -> found(true)).users()).containsExactly(ALEX, BOB);
+        assertThat(cache.search(API_URL, "alex", term -> found(true)).users()).containsExactly(ALEX, BOB);
+        assertThat(searches).hasValue(1);
+    }
+
+    @Test
+    public void shouldSearchAgainWhenShorterTermHadMoreResultsThanReturned() throws Exception {
+        cache.search(API_URL, "al", term -> found(false, ALEX, ALICE));
+
+        assertThat(cache.search(API_URL, "alic", term -> found(true, ALICE)).users()).containsExactly(ALICE);
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    public void shouldSearchAgainWhenShorterTermWasNotMatchedBySubstring() throws Exception {
+        cache.search(API_URL, "al", term -> foundByWords(ALICE));
+
+        assertThat(cache.search(API_URL, "alex", term -> foundByWords(ALEX)).users()).containsExactly(ALEX);
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    public void shouldKeepResultsOfDifferentHostsApart() throws Exception {
+        cache.search(API_URL, "al", term -> found(true, ALEX));
+
+        assertThat(cache.search("https://ghe.example.com/api/v3", "al", term -> found(true, ALICE)).users()).containsExactly(ALICE);
+    }
+
+    @Test
+    public void shouldShareOneSearchBetweenConcurrentSearchesForTheSameTerm() throws Exception {
+        final CountDownLatch searching = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<SearchResult> first = executor.submit(() -> cache.search(API_URL, "alex", term -> {
+                searching.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return found(true, ALEX);
+            }));
+            searching.await();
+            final Future<SearchResult> second = executor.submit(() -> cache.search(API_URL, "alex", term -> found(true)));
+
+            Thread.sleep(50);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).users()).containsExactly(ALEX);
+            assertThat(second.get(5, TimeUnit.SECONDS).users()).containsExactly(ALEX);
+            assertThat(searches).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotRememberFailedSearches() throws Exception {
+        assertThatThrownBy(() -> cache.search(API_URL, "alex", term -> {
+            throw new IOException("Rate limit exceeded");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(cache.search(API_URL, "alex", term -> found(true, ALEX)).users()).containsExactly(ALEX);
+    }
+
+    private SearchResult found(boolean complete, User... users) {
+        searches.incrementAndGet();
+        return new SearchResult(List.of(users), complete, true);
+    }
+
+    private SearchResult foundByWords(User... users) {
+        searches.incrementAndGet();
+        return new SearchResult(List.of(users), true, false);
+    }
+}
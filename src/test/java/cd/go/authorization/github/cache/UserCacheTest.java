@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.cache;
+
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.GitHubUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.GHUser;
+import org.kohsuke.github.GitHub;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class UserCacheTest {
+    private GitHub gitHub;
+    private UserCache userCache;
+
+    @BeforeEach
+    public void setUp() {
+        gitHub = mock(GitHub.class);
+        userCache = new UserCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void shouldHandOutWhatItKeepsOfTheUserGitHubAnsweredWith() throws Exception {
+        when(gitHub.getUser("bob")).thenReturn(gitHubUser("Bob", 42, "Bob Ford", "bford@example.com"));
+
+        final GitHubUser user = userCache.getUser(gitHub, configuration("https://api.github.com", "token"), "bob");
+
+        assertThat(user).isEqualTo(new GitHubUser("Bob", 42, "Bob Ford", "bford@example.com"));
+        assertThat(userCache.getUser(gitHub, configuration("https://api.github.com", "token"), "BOB")).isSameAs(user);
+        verify(gitHub, times(1)).getUser(anyString());
+    }
+
+    @Test
+    public void shouldRememberUsersThatDoNotExist() throws Exception {
+        when(gitHub.getUser("ghost")).thenThrow(new GHFileNotFoundException("Not Found"));
+
+        assertThat(userCache.getUser(gitHub, configuration("https://api.github.com", "token"), "ghost")).isNull();
+        assertThat(userCache.getUser(gitHub, configuration("https://api.github.com", "token"), "ghost")).isNull();
+
+        verify(gitHub, times(1)).getUser("ghost");
+    }
+
+    @Test
+    public void shouldKeepUsersOfDifferentHostsApart() throws Exception {
+        when(gitHub.getUser("bob")).thenReturn(gitHubUser("bob", 42, null, null)).thenReturn(null);
+
+        assertThat(userCache.getUser(gitHub, configuration("https://api.github.com", "token"), "bob")).isNotNull();
+        assertThat(userCache.getUser(gitHub, configuration("https://ghe.example.com/api/v3", "token"), "bob")).isNull();
+    }
+
+    @Test
+    public void shouldKeepUsersLookedUpWithDifferentTokensApart() throws Exception {
+        when(gitHub.getUser("bob")).thenReturn(gitHubUser("bob", 42, null, null)).thenReturn(null);
+
+        assertThat(userCache.getUser(gitHub, configuration("https://api.github.com", "token"), "bob")).isNotNull();
+        assertThat(userCache.getUser(gitHub, configuration("https://api.github.com", "other-token"), "bob")).isNull();
+    }
+
+    private static GitHubConfiguration configuration(String apiUrl, String personalAccessToken) {
+        final GitHubConfiguration gitHubConfiguration = mock(GitHubConfiguration.class);
+        when(gitHubConfiguration.apiUrl()).thenReturn(apiUrl);
+        when(gitHubConfiguration.personalAccessTokenFingerprint()).thenReturn(personalAccessToken + "-fingerprint");
+        return gitHubConfiguration;
+    }
+
+    private static GHUser gitHubUser(String username, long id, String fullName, String emailAddress) {
+        return new GHUser() {
+            @Override
+            public String getLogin() {
+                return username;
+            }
+
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return fullName;
+            }
+
+            @Override
+            public String getEmail() {
+                return emailAddress;
+            }
+        };
+    }
+}
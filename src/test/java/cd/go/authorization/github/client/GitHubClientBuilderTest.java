@@ -18,12 +18,27 @@ package cd.go.authorization.github.client;
 
 import cd.go.authorization.github.models.AuthenticateWith;
 import cd.go.authorization.github.models.GitHubConfiguration;
+import mockwebserver3.Dispatcher;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import okhttp3.OkHttpClient;
+import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kohsuke.github.GitHub;
 import org.mockito.Mock;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
@@ -44,7 +59,7 @@ class GitHubClientBuilderTest {
         when(gitHubConfiguration.authenticateWith()).thenReturn(AuthenticateWith.GITHUB);
         when(gitHubConfiguration.scope()).thenReturn("api");
 
-        builder = new GitHubClientBuilder();
+        builder = new GitHubClientBuilder(new GitHubClientRegistry(GitHubClientBuilder.HTTP_CLIENT, 10, Duration.ofMinutes(10), Duration.ofHours(1), System::nanoTime));
     }
 
     @Test
@@ -76,4 +91,90 @@ class GitHubClientBuilderTest {
         assertThat(args.url())
                 .startsWith("http://enterprise.url/login/oauth/authorize?client_id=client-id&redirect_uri=call-back-url&response_type=code&scope=api&state=" + URLEncoder.encode(args.state(), StandardCharsets.UTF_8) + "&code_challenge_method=S256&code_challenge=");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldReuseConnectionsToGitHubEnterprise() throws Exception {
+        try (MockWebServer gitHubEnterprise = new MockWebServer()) {
+            gitHubEnterprise.setDispatcher(new Dispatcher() {
+                @NotNull
+                @Override
+                public MockResponse dispatch(@NotNull RecordedRequest request) {
+                    final String login = request.getUrl().pathSegments().get(request.getUrl().pathSize() - 1);
+                    return new MockResponse.Builder()
+                            .code(200)
+                            .addHeader("Content-Type", "application/json")
+                            .body("{\"login\": \"" + login + "\", \"id\": 1}")
+                            .build();
+                }
+            });
+            gitHubEnterprise.start();
+
+            when(gitHubConfiguration.authenticateWith()).thenReturn(AuthenticateWith.GITHUB_ENTERPRISE);
+            when(gitHubConfiguration.apiUrl()).thenReturn(gitHubEnterprise.url("/api/v3/").toString());
+            when(gitHubConfiguration.personalAccessToken()).thenReturn("personal-access-token");
+
+            final GitHub gitHub = builder.fromServerPersonalAccessToken(gitHubConfiguration);
+            assertThat(builder.fromServerPersonalAccessToken(gitHubConfiguration)).isSameAs(gitHub);
+
+            assertThat(gitHub.getUser("alice").getLogin()).isEqualTo("alice");
+            assertThat(builder.fromServerPersonalAccessToken(gitHubConfiguration).getUser("bob").getLogin()).isEqualTo("bob");
+
+            final RecordedRequest self = gitHubEnterprise.takeRequest();
+            final RecordedRequest first = gitHubEnterprise.takeRequest();
+            final RecordedRequest second = gitHubEnterprise.takeRequest();
+            assertThat(self.getTarget()).isEqualTo("/api/v3/user");
+            assertThat(first.getTarget()).isEqualTo("/api/v3/users/alice");
+            assertThat(first.getHeaders().get("Authorization")).isEqualTo("token personal-access-token");
+            assertThat(second.getTarget()).isEqualTo("/api/v3/users/bob");
+            assertThat(first.getConnectionIndex()).isEqualTo(self.getConnectionIndex());
+            assertThat(second.getConnectionIndex()).isEqualTo(first.getConnectionIndex());
+        }
+    }
+
+    @Test
+    public void shouldNotWriteAnyTokenToTheResponseCache(@TempDir File cacheDirectory) throws Exception {
+        final OkHttpClient cachingHttpClient = new HttpResponseCache(cacheDirectory, 1024 * 1024, 60).applyTo(new OkHttpClient.Builder()).build();
+        final GitHubClientBuilder cachingBuilder = new GitHubClientBuilder(new GitHubClientRegistry(cachingHttpClient, 10, Duration.ofMinutes(10), Duration.ofHours(1), System::nanoTime));
+        try (MockWebServer gitHubEnterprise = new MockWebServer()) {
+            gitHubEnterprise.setDispatcher(new Dispatcher() {
+                @NotNull
+                @Override
+                public MockResponse dispatch(@NotNull RecordedRequest request) {
+                    final String login = request.getUrl().pathSegments().get(request.getUrl().pathSize() - 1);
+                    return new MockResponse.Builder()
+                            .code(200)
+                            .addHeader("Content-Type", "application/json")
+                            .addHeader("Cache-Control", "private, max-age=60")
+                            .addHeader("Vary", "Accept, Authorization, Cookie, X-GitHub-OTP")
+                            .body("{\"login\": \"" + login + "\", \"id\": 1}")
+                            .build();
+                }
+            });
+            gitHubEnterprise.start();
+
+            when(gitHubConfiguration.authenticateWith()).thenReturn(AuthenticateWith.GITHUB_ENTERPRISE);
+            when(gitHubConfiguration.apiUrl()).thenReturn(gitHubEnterprise.url("/api/v3/").toString());
+            when(gitHubConfiguration.personalAccessToken()).thenReturn("personal-access-token");
+
+            cachingBuilder.fromServerPersonalAccessToken(gitHubConfiguration).getUser("alice");
+            cachingBuilder.fromUserOAuthAccessToken("users-access-token", gitHubConfiguration).getUser("bob");
+            cachingHttpClient.cache().flush();
+
+            assertThat(gitHubEnterprise.getRequestCount()).isEqualTo(4);
+            try (Stream<Path> files = Files.walk(cacheDirectory.toPath())) {
+                assertThat(files.filter(Files::isRegularFile).map(GitHubClientBuilderTest::contentOf))
+                        .anyMatch(content -> content.contains("/api/v3/users/alice"))
+                        .noneMatch(content -> content.contains("/api/v3/users/bob"))
+                        .noneMatch(content -> content.contains("personal-access-token") || content.contains("users-access-token"));
+            }
+        }
+    }
+
+    private static String contentOf(Path file) {
+        try {
+            return Files.readString(file, StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GitHub;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class GitHubClientRegistryTest {
+    private AtomicLong clock;
+    private GitHubClientRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong();
+        registry = new GitHubClientRegistry(new OkHttpClient(), 10, Duration.ofMinutes(10), Duration.ofHours(1), clock::get);
+    }
+
+    @Test
+    void shouldReuseClientForSameApiUrlAndToken() throws Exception {
+        final GitHub first = registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class));
+        final GitHub second = registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class));
+
+        assertThat(second).isSameAs(first);
+        assertThat(registry.created()).isEqualTo(1);
+        assertThat(registry.reused()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCreateSeparateClientsForDifferentTokensOrHosts() throws Exception {
+        final GitHub client = registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class));
+
+        assertThat(registry.clientFor("https://api.github.com", "other-token", connector -> mock(GitHub.class))).isNotSameAs(client);
+        assertThat(registry.clientFor("https://ghe.example.com/api/v3/", "token", connector -> mock(GitHub.class))).isNotSameAs(client);
+        assertThat(registry.created()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldDropClientsThatHaveBeenIdleForTooLong() throws Exception {
+        final GitHub client = registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class));
+
+        clock.addAndGet(Duration.ofMinutes(9).toNanos());
+        assertThat(registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class))).isSameAs(client);
+
+        clock.addAndGet(Duration.ofMinutes(9).toNanos());
+        assertThat(registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class))).isSameAs(client);
+
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+        assertThat(registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class))).isNotSameAs(client);
+    }
+
+    @Test
+    void shouldReplaceClientsThatReachedTheirMaximumLifetime() throws Exception {
+        final GitHub client = registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class));
+
+        for (int i = 0; i < 6; i++) {
+            clock.addAndGet(Duration.ofMinutes(9).toNanos());
+            assertThat(registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class))).isSameAs(client);
+        }
+
+        clock.addAndGet(Duration.ofMinutes(9).toNanos());
+        assertThat(registry.clientFor("https://api.github.com", "token", connector -> mock(GitHub.class))).isNotSameAs(client);
+    }
+
+    @Test
+    void shouldNotKeepClientsOfUsersAccessTokens() throws Exception {
+        final GitHub client = registry.userClientFor("https://api.github.com", connector -> mock(GitHub.class));
+
+        assertThat(registry.userClientFor("https://api.github.com", connector -> mock(GitHub.class))).isNotSameAs(client);
+        assertThat(registry.size()).isZero();
+    }
+
+    @Test
+    void shouldNotMakeOtherTokensWaitWhileAClientIsCreated() throws Exception {
+        final CountDownLatch creating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<GitHub> slowClient = CompletableFuture.supplyAsync(() -> {
+            try {
+                return registry.clientFor("https://api.github.com", "slow-token", connector -> {
+                    creating.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                    return mock(GitHub.class);
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        try {
+            assertThat(creating.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return registry.clientFor("https://api.github.com", "other-token", connector -> mock(GitHub.class));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }).get(10, TimeUnit.SECONDS)).isNotNull();
+        } finally {
+            release.countDown();
+        }
+        assertThat(slowClient.get(10, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedClientsAboveTheMaximumSize() throws Exception {
+        final GitHub first = registry.clientFor("https://api.github.com", "token-0", connector -> mock(GitHub.class));
+        for (int i = 1; i <= 10; i++) {
+            clock.incrementAndGet();
+            registry.clientFor("https://api.github.com", "token-" + i, connector -> mock(GitHub.class));
+        }
+
+        assertThat(registry.size()).isEqualTo(10);
+        assertThat(registry.clientFor("https://api.github.com", "token-0", connector -> mock(GitHub.class))).isNotSameAs(first);
+    }
+
+    @Test
+    void shouldShareOneConnectorPerHost() {
+        assertThat(registry.connectorFor("https://ghe.example.com/api/v3/"))
+                .isSameAs(registry.connectorFor("https://ghe.example.com/api/graphql"))
+                .isNotSameAs(registry.connectorFor("https://api.github.com"));
+    }
+
+    @Test
+    void shouldNotKeepTokensInPlainText() {
+        assertThat(GitHubClientRegistry.fingerprint("secret-token"))
+                .hasSize(64)
+                .doesNotContain("secret-token")
+                .isEqualTo(GitHubClientRegistry.fingerprint("secret-token"));
+    }
+
+    @Test
+    void shouldLimitConcurrentCallsToAHost() throws Exception {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger mostInFlight = new AtomicInteger();
+        final OkHttpClient countingHttpClient = new OkHttpClient.Builder()
+                .addNetworkInterceptor(chain -> {
+                    mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                        return chain.proceed(chain.request());
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                })
+                .build();
+        final GitHubClientRegistry limitedRegistry = new GitHubClientRegistry(countingHttpClient, 10, Duration.ofMinutes(10), Duration.ofHours(1), clock::get, 2);
+
+        final ExecutorService callers = Executors.newFixedThreadPool(6);
+        try (MockWebServer gitHubEnterprise = new MockWebServer()) {
+            gitHubEnterprise.start();
+            IntStream.range(0, 6).forEach(i -> gitHubEnterprise.enqueue(new MockResponse.Builder().body("{}").build()));
+            final String apiUrl = gitHubEnterprise.url("/api/v3/").toString();
+            final OkHttpClient httpClient = limitedRegistry.httpClientFor(apiUrl);
+
+            final List<CompletableFuture<Integer>> calls = IntStream.range(0, 6)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                        try (Response response = httpClient.newCall(new Request.Builder().url(apiUrl).build()).execute()) {
+                            return response.code();
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }, callers))
+                    .toList();
+
+            assertThat(calls).allSatisfy(call -> assertThat(call.get(10, TimeUnit.SECONDS)).isEqualTo(200));
+            assertThat(mostInFlight.get()).isEqualTo(2);
+            assertThat(httpClient.dispatcher().getMaxRequestsPerHost()).isEqualTo(2);
+            assertThat(httpClient.dispatcher().getMaxRequests()).isEqualTo(2);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldHoldTheHostsPermitUntilTheResponseBodyIsClosed() throws Exception {
+        final GitHubClientRegistry limitedRegistry = new GitHubClientRegistry(new OkHttpClient(), 10, Duration.ofMinutes(10), Duration.ofHours(1), clock::get, 1);
+        final ExecutorService callers = Executors.newSingleThreadExecutor();
+        try (MockWebServer gitHubEnterprise = new MockWebServer()) {
+            gitHubEnterprise.start();
+            gitHubEnterprise.enqueue(new MockResponse.Builder().body("{\"login\": \"first\"}").build());
+            gitHubEnterprise.enqueue(new MockResponse.Builder().body("{}").build());
+            final String apiUrl = gitHubEnterprise.url("/api/v3/").toString();
+            final OkHttpClient httpClient = limitedRegistry.httpClientFor(apiUrl);
+
+            final Response first = httpClient.newCall(new Request.Builder().url(apiUrl).build()).execute();
+            final Future<Integer> second = callers.submit(() -> {
+                try (Response response = httpClient.newCall(new Request.Builder().url(apiUrl).build()).execute()) {
+                    return response.code();
+                }
+            });
+
+            Thread.sleep(100);
+            assertThat(second).isNotDone();
+            assertThat(gitHubEnterprise.getRequestCount()).isEqualTo(1);
+
+            assertThat(first.body().string()).isEqualTo("{\"login\": \"first\"}");
+            first.close();
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(200);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class HttpResponseCacheTest {
+    @TempDir
+    File cacheDirectory;
+
+    private MockWebServer gitHub;
+    private HttpResponseCache responseCache;
+    private OkHttpClient httpClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        gitHub = new MockWebServer();
+        gitHub.start();
+        responseCache = new HttpResponseCache(cacheDirectory, 1024 * 1024, 60);
+        httpClient = responseCache.applyTo(new OkHttpClient.Builder()).build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gitHub.close();
+    }
+
+    @Test
+    public void shouldRevalidateStaleResponsesWithTheirETag() throws Exception {
+        gitHub.enqueue(new MockResponse.Builder()
+                .addHeader("ETag", "\"v1\"")
+                .addHeader("Cache-Control", "private, max-age=0")
+                .body("{\"login\": \"acme\"}")
+                .build());
+        gitHub.enqueue(new MockResponse.Builder()
+                .code(304)
+                .addHeader("ETag", "\"v1\"")
+                .build());
+
+        assertThat(get("/orgs/acme")).isEqualTo("{\"login\": \"acme\"}");
+        assertThat(get("/orgs/acme")).isEqualTo("{\"login\": \"acme\"}");
+
+        gitHub.takeRequest();
+        final RecordedRequest revalidation = gitHub.takeRequest();
+        assertThat(revalidation.getHeaders().get("If-None-Match")).isEqualTo("\"v1\"");
+
+        final HttpCacheStats stats = responseCache.stats();
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(stats.revalidations()).isEqualTo(1);
+        assertThat(stats.hits()).isEqualTo(1);
+        assertThat(stats.sizeBytes()).isPositive();
+    }
+
+    @Test
+    public void shouldServeFreshResponsesWithoutGoingToGitHub() throws Exception {
+        gitHub.enqueue(new MockResponse.Builder()
+                .addHeader("Cache-Control", "private, max-age=60")
+                .body("{\"login\": \"bob\"}")
+                .build());
+
+        assertThat(get("/users/bob")).isEqualTo("{\"login\": \"bob\"}");
+        assertThat(get("/users/bob")).isEqualTo("{\"login\": \"bob\"}");
+
+        assertThat(gitHub.getRequestCount()).isEqualTo(1);
+        assertThat(responseCache.stats().hits()).isEqualTo(1);
+        assertThat(responseCache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotCacheWhenSizeIsZero() {
+        final HttpResponseCache disabled = new HttpResponseCache(cacheDirectory, 0, 60);
+
+        assertThat(disabled.applyTo(new OkHttpClient.Builder()).build().cache()).isNull();
+        assertThat(disabled.maxAgeSeconds()).isEqualTo(-1);
+    }
+
+    @Test
+    public void shouldVaryOnTheTokenWithoutWritingItToDisk() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            gitHub.enqueue(new MockResponse.Builder()
+                    .addHeader("Cache-Control", "private, max-age=60")
+                    .addHeader("Vary", "Accept, Authorization, Cookie, X-GitHub-OTP")
+                    .body("{\"login\": \"bob\"}")
+                    .build());
+        }
+
+        get("/users/bob", "token secret-token");
+        get("/users/bob", "token secret-token");
+        get("/users/bob", "token other-secret-token");
+
+        assertThat(gitHub.getRequestCount()).isEqualTo(2);
+        assertThat(gitHub.takeRequest().getHeaders().get(HttpResponseCache.AUTHORIZATION_FINGERPRINT)).isNull();
+        assertThat(gitHub.takeRequest().getHeaders().get("Authorization")).isEqualTo("token other-secret-token");
+        httpClient.cache().flush();
+        try (Stream<Path> files = Files.walk(cacheDirectory.toPath())) {
+            assertThat(files.filter(Files::isRegularFile).map(HttpResponseCacheTest::contentOf))
+                    .isNotEmpty()
+                    .noneMatch(content -> content.contains("secret-token"));
+        }
+    }
+
+    @Test
+    public void shouldKeepItsDirectoryPrivateToTheOwner() throws Exception {
+        assumeTrue(Files.getFileAttributeView(cacheDirectory.toPath(), PosixFileAttributeView.class) != null);
+
+        final Path directory = HttpResponseCache.privateDirectory(cacheDirectory.toPath().resolve("http-cache"));
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(directory))).isEqualTo("rwx------");
+    }
+
+    @Test
+    public void shouldRemoveTheCacheFromClientsOfUsersAccessTokens() {
+        assertThat(HttpResponseCache.withoutCache(httpClient).cache()).isNull();
+    }
+
+    private String get(String path) throws IOException {
+        return get(path, null);
+    }
+
+    private String get(String path, String authorization) throws IOException {
+        final Request.Builder request = new Request.Builder().url(gitHub.url(path));
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        try (Response response = httpClient.newCall(request.build()).execute()) {
+            return response.body().string();
+        }
+    }
+
+    private static String contentOf(Path file) {
+        try {
+            return Files.readString(file, StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LookupExecutorTest {
+    @Test
+    public void shouldRunLookupsOnDaemonThreadsWhenVirtualThreadsAreNotAvailable() throws Exception {
+        final ExecutorService executor = LookupExecutor.platformThreadPool(2);
+        try {
+            final Thread thread = executor.submit(Thread::currentThread).get();
+
+            assertThat(thread.isDaemon()).isTrue();
+            assertThat(thread.getName()).startsWith("github-lookup-");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldCreateAWorkingExecutor() throws Exception {
+        final ExecutorService executor = LookupExecutor.create(2);
+        try {
+            assertThat(executor.submit(() -> "done").get()).isEqualTo("done");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import cd.go.authorization.github.exceptions.RateLimitBudgetExceededException;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RateLimitBudgetTest {
+    private static final long RESET_EPOCH_SECONDS = 1_800_000_000L;
+
+    @TempDir
+    File cacheDirectory;
+
+    private final AtomicLong clock = new AtomicLong((RESET_EPOCH_SECONDS - 600) * 1000);
+    private MockWebServer gitHub;
+    private RateLimitBudget budget;
+    private OkHttpClient httpClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        gitHub = new MockWebServer();
+        gitHub.start();
+        budget = new RateLimitBudget(true, clock::get);
+        httpClient = budget.applyTo(new HttpResponseCache(cacheDirectory, 1024 * 1024, 60).applyTo(new OkHttpClient.Builder())).build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gitHub.close();
+    }
+
+    @Test
+    public void shouldAdmitEveryPriorityWhileBudgetIsPlentiful() throws Exception {
+        enqueue("{}", 4000, "no-store");
+        enqueue("{}", 3999, "no-store");
+
+        get("/users/bob", "pat", RequestPriority.SEARCH_USERS);
+        get("/users/alice", "pat", RequestPriority.SEARCH_USERS);
+
+        assertThat(gitHub.getRequestCount()).isEqualTo(2);
+        assertThat(budget.throttled()).isZero();
+    }
+
+    @Test
+    public void shouldFailLowPriorityCallsFastOnceTheirShareOfTheBudgetIsSpent() throws Exception {
+        enqueue("{}", 400, "no-store");
+        enqueue("{}", 399, "no-store");
+
+        get("/users/bob", "pat", RequestPriority.AUTHENTICATE_USER);
+
+        assertThatThrownBy(() -> get("/users/alice", "pat", RequestPriority.SEARCH_USERS))
+                .isInstanceOf(RateLimitBudgetExceededException.class);
+        assertThat(get("/users/alice", "pat", RequestPriority.GET_USER_ROLES)).isEqualTo("{}");
+
+        assertThat(gitHub.getRequestCount()).isEqualTo(2);
+        assertThat(budget.throttled()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldAnswerThrottledCallsFromStaleCachedResponses() throws Exception {
+        enqueue("{\"login\": \"acme\"}", 100, "private, max-age=0");
+
+        get("/orgs/acme", "pat", RequestPriority.AUTHENTICATE_USER);
+
+        assertThat(get("/orgs/acme", "pat", RequestPriority.IS_VALID_USER)).isEqualTo("{\"login\": \"acme\"}");
+        assertThat(gitHub.getRequestCount()).isEqualTo(1);
+        assertThat(budget.servedStale()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldTrackBudgetsPerToken() throws Exception {
+        enqueue("{}", 10, "no-store");
+        enqueue("{}", 4000, "no-store");
+
+        get("/users/bob", "pat", RequestPriority.AUTHENTICATE_USER);
+
+        assertThat(get("/users/bob", "users-token", RequestPriority.SEARCH_USERS)).isEqualTo("{}");
+        assertThat(gitHub.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldAdmitAgainOnceTheBudgetIsReset() throws Exception {
+        enqueue("{}", 10, "no-store");
+        enqueue("{}", 4999, "no-store");
+
+        get("/users/bob", "pat", RequestPriority.AUTHENTICATE_USER);
+        clock.set(RESET_EPOCH_SECONDS * 1000);
+
+        assertThat(get("/users/alice", "pat", RequestPriority.SEARCH_USERS)).isEqualTo("{}");
+    }
+
+    @Test
+    public void shouldTellTheRemainingCoreBudgetOfAToken() throws Exception {
+        enqueue("{}", 1234, "no-store");
+
+        get("/users/bob", "pat", RequestPriority.AUTHENTICATE_USER);
+
+        assertThat(budget.remaining(gitHub.url("/api/v3/").toString(), "pat", RateLimitBudget.CORE)).isEqualTo(1234);
+        assertThat(budget.remaining(gitHub.url("/api/v3/").toString(), "other-token", RateLimitBudget.CORE)).isNull();
+
+        clock.set(RESET_EPOCH_SECONDS * 1000);
+        assertThat(budget.remaining(gitHub.url("/api/v3/").toString(), "pat", RateLimitBudget.CORE)).isNull();
+    }
+
+    @Test
+    public void shouldTrackBudgetsUnderTheResourceGitHubNames() throws Exception {
+        gitHub.enqueue(new MockResponse.Builder()
+                .addHeader("X-RateLimit-Limit", "30")
+                .addHeader("X-RateLimit-Remaining", "29")
+                .addHeader("X-RateLimit-Reset", String.valueOf(RESET_EPOCH_SECONDS))
+                .addHeader("X-RateLimit-Resource", "search")
+                .body("{}")
+                .build());
+
+        get("/api/v3/legacy/user/search/bob", "pat", RequestPriority.AUTHENTICATE_USER);
+
+        assertThat(budget.remaining(gitHub.url("/api/v3/").toString(), "pat", RateLimitBudget.SEARCH)).isEqualTo(29);
+        assertThat(budget.remaining(gitHub.url("/api/v3/").toString(), "pat", RateLimitBudget.CORE)).isNull();
+    }
+
+    @Test
+    public void shouldNotTrackCallsWithUsersAccessTokens() throws Exception {
+        enqueue("{}", 10, "no-store");
+        enqueue("{}", 9, "no-store");
+        httpClient = RateLimitBudget.untracked(httpClient);
+
+        get("/user", "users-token", RequestPriority.AUTHENTICATE_USER);
+
+        assertThat(get("/user", "users-token", RequestPriority.SEARCH_USERS)).isEqualTo("{}");
+        assertThat(budget.size()).isZero();
+    }
+
+    @Test
+    public void shouldDropBudgetsOnceTheyAreReset() throws Exception {
+        enqueue("{}", 10, "no-store");
+        get("/users/bob", "pat", RequestPriority.AUTHENTICATE_USER);
+
+        clock.set((RESET_EPOCH_SECONDS + 3600) * 1000);
+        gitHub.enqueue(new MockResponse.Builder()
+                .addHeader("X-RateLimit-Limit", "5000")
+                .addHeader("X-RateLimit-Remaining", "4999")
+                .addHeader("X-RateLimit-Reset", String.valueOf(RESET_EPOCH_SECONDS + 7200))
+                .body("{}")
+                .build());
+        get("/users/bob", "other-pat", RequestPriority.AUTHENTICATE_USER);
+
+        assertThat(budget.size()).isEqualTo(1);
+        assertThat(budget.remaining(gitHub.url("/api/v3/").toString(), "other-pat", RateLimitBudget.CORE)).isEqualTo(4999);
+    }
+
+    @Test
+    public void shouldCarryThePriorityOverToOtherThreads() throws Exception {
+        final Callable<RequestPriority> task = RequestPriority.SEARCH_USERS.call(() -> RequestPriority.propagate(RequestPriority::current));
+
+        assertThat(RequestPriority.current()).isEqualTo(RequestPriority.AUTHENTICATE_USER);
+        assertThat(task.call()).isEqualTo(RequestPriority.SEARCH_USERS);
+        assertThat(RequestPriority.current()).isEqualTo(RequestPriority.AUTHENTICATE_USER);
+    }
+
+    private void enqueue(String body, int remaining, String cacheControl) {
+        gitHub.enqueue(new MockResponse.Builder()
+                .addHeader("X-RateLimit-Limit", "5000")
+                .addHeader("X-RateLimit-Remaining", String.valueOf(remaining))
+                .addHeader("X-RateLimit-Reset", String.valueOf(RESET_EPOCH_SECONDS))
+                .addHeader("Cache-Control", cacheControl)
+                .addHeader("ETag", "\"v1\"")
+                .body(body)
+                .build());
+    }
+
+    private String get(String path, String token, RequestPriority priority) throws IOException {
+        return priority.call(() -> {
+            try (Response response = httpClient.newCall(new Request.Builder()
+                    .url(gitHub.url(path))
+                    .header("Authorization", "token " + token)
+                    .build()).execute()) {
+                return response.body().string();
+            }
+        });
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.client;
+
+import cd.go.authorization.github.exceptions.SecondaryRateLimitException;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RateLimitRetryTest {
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    private final List<Long> sleeps = new ArrayList<>();
+    private MockWebServer gitHub;
+    private RateLimitRetry retry;
+    private OkHttpClient httpClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        gitHub = new MockWebServer();
+        gitHub.start();
+        retry = new RateLimitRetry(Duration.ofSeconds(30), 4, Duration.ofSeconds(1), clock::get, millis -> {
+            sleeps.add(millis);
+            clock.addAndGet(millis);
+        }, () -> 1.0);
+        httpClient = retry.applyTo(new OkHttpClient.Builder()).build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gitHub.close();
+    }
+
+    @Test
+    public void shouldHonorRetryAfterOfSecondaryRateLimits() throws Exception {
+        gitHub.enqueue(new MockResponse.Builder().code(403).addHeader("Retry-After", "2").body("{\"message\": \"You have exceeded a secondary rate limit.\"}").build());
+        gitHub.enqueue(new MockResponse.Builder().body("{}").build());
+
+        assertThat(get("/orgs/acme/members/bob")).isEqualTo(200);
+
+        assertThat(sleeps).containsExactly(2_000L);
+        assertThat(retry.throttled()).isEqualTo(1);
+        assertThat(retry.retried()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldBackOffExponentiallyWithoutRetryAfter() throws Exception {
+        gitHub.enqueue(new MockResponse.Builder().code(429).build());
+        gitHub.enqueue(new MockResponse.Builder().code(403).body("{\"message\": \"You have exceeded a secondary rate limit.\"}").build());
+        gitHub.enqueue(new MockResponse.Builder().body("{}").build());
+
+        assertThat(get("/search/users")).isEqualTo(200);
+
+        assertThat(sleeps).containsExactly(1_000L, 2_000L);
+        assertThat(retry.retried()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldGiveUpWhenRetryWouldStartAfterTheDeadline() throws Exception {
+        gitHub.enqueue(new MockResponse.Builder().code(403).addHeader("Retry-After", "60").build());
+
+        assertThat(get("/orgs/acme/members/bob")).isEqualTo(403);
+
+        assertThat(sleeps).isEmpty();
+        assertThat(retry.throttled()).isEqualTo(1);
+        assertThat(retry.retried()).isZero();
+    }
+
+    @Test
+    public void shouldHoldBackOtherCallsToAHostThatAskedToBackOff() throws Exception {
+        gitHub.enqueue(new MockResponse.Builder().code(403).addHeader("Retry-After", "60").build());
+        gitHub.enqueue(new MockResponse.Builder().body("{}").build());
+
+        get("/orgs/acme/members/bob");
+
+        assertThatThrownBy(() -> get("/orgs/acme/members/alice")).isInstanceOf(SecondaryRateLimitException.class);
+        assertThat(gitHub.getRequestCount()).isEqualTo(1);
+
+        clock.addAndGet(Duration.ofSeconds(60).toMillis());
+        assertThat(get("/orgs/acme/members/alice")).isEqualTo(200);
+    }
+
+    @Test
+    public void shouldNotHoldBackOtherTokensWhenPrimaryRateLimitIsExhausted() throws Exception {
+        gitHub.enqueue(new MockResponse.Builder().code(403)
+                .addHeader("X-RateLimit-Remaining", "0")
+                .addHeader("X-RateLimit-Reset", String.valueOf(clock.get() / 1000 + 600))
+                .build());
+        gitHub.enqueue(new MockResponse.Builder().body("{}").build());
+
+        assertThat(get("/orgs/acme/members/bob")).isEqualTo(403);
+        assertThat(get("/orgs/acme/members/alice")).isEqualTo(200);
+        assertThat(sleeps).isEmpty();
+    }
+
+    @Test
+    public void shouldNotRetryOtherErrors() throws Exception {
+        gitHub.enqueue(new MockResponse.Builder().code(403).body("{\"message\": \"Must have admin rights to Repository.\"}").build());
+
+        assertThat(get("/orgs/acme/members/bob")).isEqualTo(403);
+
+        assertThat(retry.throttled()).isZero();
+        assertThat(gitHub.getRequestCount()).isEqualTo(1);
+    }
+
+    private int get(String path) throws IOException {
+        try (Response response = httpClient.newCall(new Request.Builder().url(gitHub.url(path)).build()).execute()) {
+            return response.code();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.directory;
+
+import cd.go.authorization.github.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DirectoryIndexTest {
+    private static final User BOB = new User("bob", "Robert Builder", "bob@example.com");
+    private static final User ALICE = new User("alice", "Alice Bobson", null);
+    private static final User JIMBO = new User("jimbob", null, null);
+    private static final User TOM = new User("Tom01", "Tom NoLastname", null);
+
+    private final DirectoryIndex index = new DirectoryIndex(List.of(TOM, JIMBO, BOB, ALICE));
+
+    @Test
+    public void shouldMatchStartOfLoginsAndOfWordsInNamesBeforeOtherParts() {
+        assertThat(index.search("bob", 10)).containsExactly(BOB, ALICE, JIMBO);
+    }
+
+    @Test
+    public void shouldIgnoreCase() {
+        assertThat(index.search("TOM", 10)).containsExactly(TOM);
+        assertThat(index.search("nolast", 10)).containsExactly(TOM);
+    }
+
+    @Test
+    public void shouldMatchAnyPartOfLoginsAndNames() {
+        assertThat(index.search("uild", 10)).containsExactly(BOB);
+        assertThat(index.search("imb", 10)).containsExactly(JIMBO);
+    }
+
+    @Test
+    public void shouldReturnAtMostTheRequestedNumberOfMembers() {
+        assertThat(index.search("bob", 2)).containsExactly(BOB, ALICE);
+    }
+
+    @Test
+    public void shouldNotMatchBlankTerms() {
+        assertThat(index.search(" ", 10)).isEmpty();
+        assertThat(index.search("nobody", 10)).isEmpty();
+    }
+}
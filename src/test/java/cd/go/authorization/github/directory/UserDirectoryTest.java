@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.directory;
+
+import cd.go.authorization.github.UserProfileResolver;
+import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class UserDirectoryTest {
+    private GHOrganization organization;
+    private UserProfileResolver profileResolver;
+    private GitHubConfiguration gitHubConfiguration;
+    private ScheduledExecutorService scheduler;
+    private UserDirectory directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        final GitHubClientBuilder clientBuilder = mock(GitHubClientBuilder.class);
+        final GitHub gitHub = mock(GitHub.class);
+        organization = mock(GHOrganization.class);
+        profileResolver = mock(UserProfileResolver.class);
+        gitHubConfiguration = mock(GitHubConfiguration.class);
+        scheduler = mock(ScheduledExecutorService.class);
+
+        when(gitHubConfiguration.apiUrl()).thenReturn("https://api.github.com");
+        when(gitHubConfiguration.organizationsAllowed()).thenReturn(List.of("acme"));
+        when(clientBuilder.fromServerPersonalAccessToken(gitHubConfiguration)).thenReturn(gitHub);
+        when(gitHub.getOrganization("acme")).thenReturn(organization);
+
+        directory = new UserDirectory(clientBuilder, profileResolver, Duration.ofHours(1), System::nanoTime, () -> scheduler);
+    }
+
+    @Test
+    public void shouldSearchMembersOfAllowedOrganizationsOnceListed() throws Exception {
+        final List<GHUser> members = List.of(mock(GHUser.class), mock(GHUser.class));
+        final PagedIterable<GHUser> listing = pagedIterable(members);
+        when(organization.listMembers()).thenReturn(listing);
+        when(profileResolver.profilesOf(gitHubConfiguration, members)).thenReturn(List.of(
+                new User("bob", "Bob Builder", "bob@example.com"),
+                new User("alice", "Alice", null)));
+
+        directory.register(gitHubConfiguration);
+        verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any());
+        assertThat(directory.search(gitHubConfiguration, "bob", 10)).isEmpty();
+
+        directory.refresh();
+
+        assertThat(directory.search(gitHubConfiguration, "bui", 10)).containsExactly(new User("bob", "Bob Builder", "bob@example.com"));
+    }
+
+    @Test
+    public void shouldKeepPreviousMembersWhenListingFails() throws Exception {
+        final List<GHUser> members = List.of(mock(GHUser.class));
+        final PagedIterable<GHUser> listing = pagedIterable(members);
+        when(organization.listMembers()).thenReturn(listing);
+        when(profileResolver.profilesOf(gitHubConfiguration, members)).thenReturn(List.of(new User("bob", null, null)));
+        directory.register(gitHubConfiguration);
+        directory.refresh();
+
+        when(listing.toList()).thenThrow(new IOException("Rate limit is reserved for higher priorities"));
+        directory.refresh();
+
+        assertThat(directory.search(gitHubConfiguration, "bob", 10)).containsExactly(new User("bob", null, null));
+    }
+
+    @Test
+    public void shouldStopListingMembersForGood() {
+        directory.register(gitHubConfiguration);
+
+        directory.stop();
+        directory.register(mock(GitHubConfiguration.class));
+
+        verify(scheduler).shutdownNow();
+        verify(scheduler, times(1)).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void shouldNotAnswerWhenDisabled() {
+        final UserDirectory disabled = new UserDirectory(mock(GitHubClientBuilder.class), profileResolver, Duration.ZERO, System::nanoTime, () -> scheduler);
+
+        disabled.register(gitHubConfiguration);
+
+        assertThat(disabled.search(gitHubConfiguration, "bob", 10)).isEmpty();
+        verifyNoInteractions(scheduler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PagedIterable<GHUser> pagedIterable(List<GHUser> members) throws IOException {
+        final PagedIterable<GHUser> listing = mock(PagedIterable.class);
+        when(listing.withPageSize(anyInt())).thenReturn(listing);
+        when(listing.toList()).thenReturn(members);
+        return listing;
+    }
+}
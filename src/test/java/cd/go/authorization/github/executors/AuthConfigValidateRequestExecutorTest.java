@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.executors;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.models.GitHubConfiguration;
 import cd.go.authorization.github.requests.AuthConfigValidateRequest;
 import com.google.gson.Gson;
@@ -43,7 +44,7 @@ public class AuthConfigValidateRequestExecutorTest {
     public void shouldValidateMandatoryKeys() throws Exception {
         when(request.requestBody()).thenReturn(new Gson().toJson(singletonMap("AllowedOrganizations", "Foo")));
 
-        GoPluginApiResponse response = AuthConfigValidateRequest.from(request).execute();
+        GoPluginApiResponse response = AuthConfigValidateRequest.from(request).execute(mock(GitHubServices.class));
         String json = response.responseBody();
 
         String expectedJSON = """
@@ -76,7 +77,7 @@ public class AuthConfigValidateRequestExecutorTest {
                   "PersonalAccessToken": "Foobar"
                 }""");
 
-        GoPluginApiResponse response = AuthConfigValidateRequest.from(request).execute();
+        GoPluginApiResponse response = AuthConfigValidateRequest.from(request).execute(mock(GitHubServices.class));
 
         String expectedJSON = """
                 [
@@ -102,7 +103,7 @@ public class AuthConfigValidateRequestExecutorTest {
 
         when(request.requestBody()).thenReturn(gitHubConfiguration.toJSON());
 
-        GoPluginApiResponse response = AuthConfigValidateRequest.from(request).execute();
+        GoPluginApiResponse response = AuthConfigValidateRequest.from(request).execute(mock(GitHubServices.class));
 
         String expectedJSON = """
                 [
@@ -114,4 +115,27 @@ public class AuthConfigValidateRequestExecutorTest {
 
         JSONAssert.assertEquals(expectedJSON, response.responseBody(), JSONCompareMode.NON_EXTENSIBLE);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldValidateMembershipCheckParallelism() throws Exception {
+        when(request.requestBody()).thenReturn("""
+                {
+                  "ClientId": "client-id",
+                  "ClientSecret": "client-secret",
+                  "PersonalAccessToken": "Foobar",
+                  "MembershipCheckParallelism": "0"
+                }""");
+
+        GoPluginApiResponse response = AuthConfigValidateRequest.from(request).execute(mock(GitHubServices.class));
+
+        String expectedJSON = """
+                [
+                  {
+                    "key": "MembershipCheckParallelism",
+                    "message": "MembershipCheckParallelism must be a number between 1 and 64."
+                  }
+                ]""";
+
+        JSONAssert.assertEquals(expectedJSON, response.responseBody(), JSONCompareMode.NON_EXTENSIBLE);
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.executors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConstantResponseBodyTest {
+    @Test
+    public void shouldBuildTheBodyOnceAndHandItOutFromThenOn() {
+        final AtomicInteger builds = new AtomicInteger();
+        final ConstantResponseBody body = new ConstantResponseBody(() -> "body-" + builds.incrementAndGet());
+
+        assertThat(body.get()).isEqualTo("body-1");
+        assertThat(body.get()).isSameAs(body.get()).isEqualTo("body-1");
+        assertThat(builds).hasValue(1);
+    }
+
+    @Test
+    public void shouldTryAgainAfterTheBodyCouldNotBeBuilt() {
+        final AtomicInteger builds = new AtomicInteger();
+        final ConstantResponseBody body = new ConstantResponseBody(() -> {
+            if (builds.incrementAndGet() == 1) {
+                throw new RuntimeException("Could not find resource /logo.svg");
+            }
+            return "body";
+        });
+
+        assertThatThrownBy(body::get).hasMessage("Could not find resource /logo.svg");
+        assertThat(body.get()).isEqualTo("body");
+    }
+}
@@ -17,6 +17,7 @@
 package cd.go.authorization.github.executors;
 
 import cd.go.authorization.github.Constants;
+import cd.go.authorization.github.client.GitHubClientBuilder;
 import cd.go.authorization.github.exceptions.AuthenticationException;
 import cd.go.authorization.github.exceptions.NoAuthorizationConfigurationException;
 import cd.go.authorization.github.models.AuthConfig;
@@ -58,7 +59,7 @@ public class FetchAccessTokenRequestExecutorTest {
 
         when(authConfig.gitHubConfiguration()).thenReturn(gitHubConfiguration);
 
-        executor = new FetchAccessTokenRequestExecutor(fetchAccessTokenRequest);
+        executor = new FetchAccessTokenRequestExecutor(fetchAccessTokenRequest, new GitHubClientBuilder());
     }
 
     @AfterEach
@@ -71,7 +72,7 @@ public class FetchAccessTokenRequestExecutorTest {
         final GoPluginApiRequest request = mock(GoPluginApiRequest.class);
         when(request.requestBody()).thenReturn("{\"auth_configs\":[]}");
 
-        FetchAccessTokenRequestExecutor executor = new FetchAccessTokenRequestExecutor(FetchAccessTokenRequest.from(request));
+        FetchAccessTokenRequestExecutor executor = new FetchAccessTokenRequestExecutor(FetchAccessTokenRequest.from(request), new GitHubClientBuilder());
 
         assertThrows(NoAuthorizationConfigurationException.class, executor::execute);
 
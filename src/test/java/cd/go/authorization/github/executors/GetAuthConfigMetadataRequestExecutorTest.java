@@ -86,9 +86,29 @@ public class GetAuthConfigMetadataRequestExecutorTest {
                       "required": true,
                       "secure": true
                     }
+                  },
+                  {
+                    "key": "AuthorizeUsing",
+                    "metadata": {
+                      "required": false,
+                      "secure": false
+                    }
+                  },
+                  {
+                    "key": "MembershipCheckParallelism",
+                    "metadata": {
+                      "required": false,
+                      "secure": false
+                    }
                   }
                 ]""";
 
         JSONAssert.assertEquals(expectedJSON, response.responseBody(), true);
     }
+
+    @Test
+    public void shouldAnswerWithTheSameBytesAsBefore() {
+        assertThat(new GetAuthConfigMetadataRequestExecutor().execute().responseBody())
+                .isEqualTo("[{\"key\":\"ClientId\",\"metadata\":{\"required\":true,\"secure\":true}},{\"key\":\"ClientSecret\",\"metadata\":{\"required\":true,\"secure\":true}},{\"key\":\"AuthenticateWith\",\"metadata\":{\"required\":false,\"secure\":false}},{\"key\":\"GitHubEnterpriseUrl\",\"metadata\":{\"required\":false,\"secure\":false}},{\"key\":\"AllowedOrganizations\",\"metadata\":{\"required\":false,\"secure\":false}},{\"key\":\"PersonalAccessToken\",\"metadata\":{\"required\":true,\"secure\":true}},{\"key\":\"AuthorizeUsing\",\"metadata\":{\"required\":false,\"secure\":false}},{\"key\":\"MembershipCheckParallelism\",\"metadata\":{\"required\":false,\"secure\":false}}]");
+    }
 }
@@ -67,4 +67,9 @@ public class GetAuthConfigViewRequestExecutorTest {
         //AuthenticateWith is coming twice as it is radio button
         assertThat(inputs).hasSize(MetadataHelper.getMetadata(GitHubConfiguration.class).size() + 1);
     }
+
+    @Test
+    public void shouldAnswerWithTheSameBytesAsBefore() {
+        assertThat(new GetAuthConfigViewRequestExecutor().execute().responseBody()).isEqualTo(Util.readResource("/golden/auth-config-view.json"));
+    }
 }
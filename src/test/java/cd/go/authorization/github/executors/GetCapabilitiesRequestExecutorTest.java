@@ -20,6 +20,8 @@ import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 import org.junit.jupiter.api.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 public class GetCapabilitiesRequestExecutorTest {
 
     @Test
@@ -36,4 +38,10 @@ public class GetCapabilitiesRequestExecutorTest {
 
         JSONAssert.assertEquals(expectedJSON, response.responseBody(), true);
     }
+
+    @Test
+    public void shouldAnswerWithTheSameBytesAsBefore() {
+        assertThat(new GetCapabilitiesRequestExecutor().execute().responseBody())
+                .isEqualTo("{\"supported_auth_type\":\"web\",\"can_search\":true,\"can_authorize\":true,\"can_get_user_roles\":true}");
+    }
 }
@@ -37,4 +37,9 @@ public class GetPluginIconRequestExecutorTest {
         assertThat(hashMap.get("content_type")).isEqualTo("image/svg+xml");
         assertThat(Util.readResourceBytes("/logo.svg")).isEqualTo(Base64.getDecoder().decode(hashMap.get("data")));
     }
+
+    @Test
+    public void shouldAnswerWithTheSameBytesAsBefore() {
+        assertThat(new GetPluginIconRequestExecutor().execute().responseBody()).isEqualTo(Util.readResource("/golden/plugin-icon.json"));
+    }
 }
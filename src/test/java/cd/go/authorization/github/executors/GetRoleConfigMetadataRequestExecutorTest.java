@@ -57,4 +57,10 @@ public class GetRoleConfigMetadataRequestExecutorTest {
 
         JSONAssert.assertEquals(expectedRoleConfigMetadata, response.responseBody(), true);
     }
+
+    @Test
+    public void shouldAnswerWithTheSameBytesAsBefore() {
+        assertThat(new GetRoleConfigMetadataRequestExecutor().execute().responseBody())
+                .isEqualTo("[{\"key\":\"Organizations\",\"metadata\":{\"required\":false,\"secure\":false}},{\"key\":\"Teams\",\"metadata\":{\"required\":false,\"secure\":false}},{\"key\":\"Users\",\"metadata\":{\"required\":false,\"secure\":false}}]");
+    }
 }
@@ -64,4 +64,9 @@ public class GetRoleConfigViewRequestExecutorTest {
         Map<String, String> result = GSON.fromJson(response.responseBody(), new TypeToken<>() {}.getType());
         assertThat(result).containsEntry("template", Util.readResource("/role-config.template.html"));
     }
+
+    @Test
+    public void shouldAnswerWithTheSameBytesAsBefore() {
+        assertThat(new GetRoleConfigViewRequestExecutor().execute().responseBody()).isEqualTo(Util.readResource("/golden/role-config-view.json"));
+    }
 }
@@ -17,8 +17,11 @@
 package cd.go.authorization.github.executors;
 
 import cd.go.authorization.github.GitHubAuthorizer;
+import cd.go.authorization.github.cache.RoleCache;
+import cd.go.authorization.github.cache.UserCache;
 import cd.go.authorization.github.client.GitHubClientBuilder;
 import cd.go.authorization.github.models.AuthConfig;
+import cd.go.authorization.github.models.GitHubUser;
 import cd.go.authorization.github.models.GitHubConfiguration;
 import cd.go.authorization.github.models.Role;
 import cd.go.authorization.github.requests.GetRolesRequest;
@@ -32,11 +35,16 @@ import org.mockito.InOrder;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class GetRolesExecutorTest {
@@ -54,9 +62,11 @@ public class GetRolesExecutorTest {
         AuthConfig authConfig = mock(AuthConfig.class);
         when(request.getAuthConfig()).thenReturn(authConfig);
         when(request.getUsername()).thenReturn("bob");
+        when(request.fingerprint()).thenReturn("request-fingerprint");
         when(authConfig.gitHubConfiguration()).thenReturn(mock(GitHubConfiguration.class));
 
-        executor = new GetRolesExecutor(request, authorizer, clientBuilder);
+        executor = new GetRolesExecutor(request, authorizer, clientBuilder, new UserCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1)),
+                new RoleCache(100, Duration.ZERO, Duration.ZERO, Runnable::run, System::nanoTime));
     }
 
     @Test
@@ -74,12 +84,13 @@ public class GetRolesExecutorTest {
     @Test
     public void shouldReturnSuccessResponseWithRoles() throws IOException, JSONException {
         GitHub gitHub = mock(GitHub.class);
-        GHUser ghUser = mock(GHUser.class);
+        GHUser ghUser = gitHubUser("bob", 42, "Bob", "bob@example.com");
+        GitHubUser user = new GitHubUser("bob", 42, "Bob", "bob@example.com");
 
         when(clientBuilder.fromServerPersonalAccessToken(request.getAuthConfig().gitHubConfiguration())).thenReturn(gitHub);
         when(gitHub.getUser("bob")).thenReturn(ghUser);
         when(request.getRoles()).thenReturn(rolesWithName("blackbird", "super-admin", "view"));
-        when(authorizer.authorize(ghUser, request.getAuthConfig(), request.getRoles())).thenReturn(Arrays.asList("blackbird", "super-admin"));
+        when(authorizer.authorize(user, request.getAuthConfig(), request.getRoles())).thenReturn(Arrays.asList("blackbird", "super-admin"));
 
         GoPluginApiResponse response = executor.execute();
 
@@ -89,7 +100,7 @@ public class GetRolesExecutorTest {
         InOrder inOrder = inOrder(clientBuilder, gitHub, authorizer);
         inOrder.verify(clientBuilder).fromServerPersonalAccessToken(request.getAuthConfig().gitHubConfiguration());
         inOrder.verify(gitHub).getUser(request.getUsername());
-        inOrder.verify(authorizer).authorize(ghUser, request.getAuthConfig(), request.getRoles());
+        inOrder.verify(authorizer).authorize(user, request.getAuthConfig(), request.getRoles());
     }
 
     @Test
@@ -110,6 +121,76 @@ public class GetRolesExecutorTest {
         verifyNoMoreInteractions(authorizer);
     }
 
+    @Test
+    public void shouldNotAskGitHubAgainForUsersItHasFoundRecently() throws Exception {
+        GitHub gitHub = mock(GitHub.class);
+        GHUser ghUser = gitHubUser("bob", 42, "Bob", "bob@example.com");
+
+        when(clientBuilder.fromServerPersonalAccessToken(request.getAuthConfig().gitHubConfiguration())).thenReturn(gitHub);
+        when(gitHub.getUser("bob")).thenReturn(ghUser);
+        List<Role> roles = rolesWithName("blackbird");
+        AuthConfig authConfig = request.getAuthConfig();
+        when(request.getRoles()).thenReturn(roles);
+        when(authorizer.authorize(any(GitHubUser.class), eq(authConfig), eq(roles))).thenReturn(List.of("blackbird"));
+
+        executor.execute();
+        GoPluginApiResponse response = executor.execute();
+
+        JSONAssert.assertEquals("[\"blackbird\"]", response.responseBody(), true);
+        verify(gitHub, times(1)).getUser("bob");
+        verify(authorizer, times(2)).authorize(eq(new GitHubUser("bob", 42, "Bob", "bob@example.com")), eq(authConfig), eq(roles));
+    }
+
+    @Test
+    public void shouldServeCachedRolesWhileEvaluatingThemAgainInTheBackground() throws Exception {
+        GitHub gitHub = mock(GitHub.class);
+        GHUser ghUser = gitHubUser("bob", 42, "Bob", "bob@example.com");
+        AtomicLong clock = new AtomicLong();
+        List<Runnable> refreshes = new ArrayList<>();
+        List<Role> roles = rolesWithName("blackbird", "view");
+        AuthConfig authConfig = request.getAuthConfig();
+        executor = new GetRolesExecutor(request, authorizer, clientBuilder, new UserCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1)),
+                new RoleCache(100, Duration.ofMinutes(1), Duration.ofMinutes(5), refreshes::add, clock::get));
+
+        when(clientBuilder.fromServerPersonalAccessToken(authConfig.gitHubConfiguration())).thenReturn(gitHub);
+        when(gitHub.getUser("bob")).thenReturn(ghUser);
+        when(request.getRoles()).thenReturn(roles);
+        when(authorizer.authorize(any(GitHubUser.class), eq(authConfig), eq(roles))).thenReturn(List.of("blackbird")).thenReturn(List.of("view"));
+
+        executor.execute();
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+        GoPluginApiResponse stale = executor.execute();
+
+        JSONAssert.assertEquals("[\"blackbird\"]", stale.responseBody(), true);
+        assertThat(refreshes).hasSize(1);
+
+        refreshes.get(0).run();
+        JSONAssert.assertEquals("[\"view\"]", executor.execute().responseBody(), true);
+        verify(authorizer, times(2)).authorize(any(GitHubUser.class), eq(authConfig), eq(roles));
+    }
+
+    @Test
+    public void shouldEvaluateRolesAgainWhenRoleConfigsChange() throws Exception {
+        GitHub gitHub = mock(GitHub.class);
+        GHUser ghUser = gitHubUser("bob", 42, "Bob", "bob@example.com");
+        AuthConfig authConfig = request.getAuthConfig();
+        executor = new GetRolesExecutor(request, authorizer, clientBuilder, new UserCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1)),
+                new RoleCache(100, Duration.ofMinutes(1), Duration.ofMinutes(5), Runnable::run, System::nanoTime));
+
+        when(clientBuilder.fromServerPersonalAccessToken(authConfig.gitHubConfiguration())).thenReturn(gitHub);
+        when(gitHub.getUser("bob")).thenReturn(ghUser);
+        when(authorizer.authorize(any(GitHubUser.class), eq(authConfig), any())).thenReturn(List.of("blackbird"));
+
+        when(request.getRoles()).thenReturn(rolesWithName("blackbird"));
+        executor.execute();
+        executor.execute();
+        when(request.getRoles()).thenReturn(rolesWithName("blackbird", "view"));
+        when(request.fingerprint()).thenReturn("changed-request-fingerprint");
+        executor.execute();
+
+        verify(authorizer, times(2)).authorize(any(GitHubUser.class), eq(authConfig), any());
+    }
+
     private Role roleWithName(String name) {
         return Role.fromJSON("{\"name\":\"" + name + "\"}");
     }
@@ -117,5 +198,28 @@ public class GetRolesExecutorTest {
     private List<Role> rolesWithName(String... names) {
         return Arrays.stream(names).map(this::roleWithName).collect(Collectors.toList());
     }
-}
 
+    private static GHUser gitHubUser(String username, long id, String fullName, String emailAddress) {
+        return new GHUser() {
+            @Override
+            public String getLogin() {
+                return username;
+            }
+
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return fullName;
+            }
+
+            @Override
+            public String getEmail() {
+                return emailAddress;
+            }
+        };
+    }
+}
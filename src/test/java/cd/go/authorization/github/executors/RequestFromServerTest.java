@@ -0,0 +1,48 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.executors;
+
+import cd.go.authorization.github.exceptions.NoSuchRequestHandlerException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RequestFromServerTest {
+
+    @ParameterizedTest
+    @EnumSource(RequestFromServer.class)
+    public void shouldLookUpEveryRequestByItsName(RequestFromServer requestFromServer) {
+        assertThat(RequestFromServer.fromString(requestFromServer.requestName())).isEqualTo(requestFromServer);
+    }
+
+    @Test
+    public void shouldLookUpRequestNamesIgnoringCase() {
+        assertThat(RequestFromServer.fromString("go.cd.authorization.Get-User-Roles")).isEqualTo(RequestFromServer.REQUEST_GET_USER_ROLES);
+    }
+
+    @Test
+    public void shouldRejectUnknownRequestNames() {
+        assertThatThrownBy(() -> RequestFromServer.fromString("go.cd.authorization.unknown"))
+                .isInstanceOf(NoSuchRequestHandlerException.class)
+                .hasMessage("Request go.cd.authorization.unknown is not supported by plugin.");
+        assertThatThrownBy(() -> RequestFromServer.fromString(null))
+                .isInstanceOf(NoSuchRequestHandlerException.class);
+    }
+}
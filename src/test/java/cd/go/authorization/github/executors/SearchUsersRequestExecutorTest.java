@@ -1,8 +1,14 @@
 package cd.go.authorization.github.executors;
 
+import cd.go.authorization.github.GraphQLClient;
+import cd.go.authorization.github.UserProfileResolver;
+import cd.go.authorization.github.cache.SearchResultCache;
 import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.client.LookupExecutor;
+import cd.go.authorization.github.directory.UserDirectory;
 import cd.go.authorization.github.models.AuthConfig;
 import cd.go.authorization.github.models.GitHubConfiguration;
+import cd.go.authorization.github.models.User;
 import cd.go.authorization.github.requests.SearchUsersRequest;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,7 +16,13 @@ import org.junit.jupiter.api.Test;
 import org.kohsuke.github.*;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,6 +35,8 @@ public class SearchUsersRequestExecutorTest {
     private GitHubClientBuilder clientBuilder;
     private GitHub gitHub;
     private GHUserSearchBuilder userSearchBuilder;
+    private UserProfileResolver profileResolver;
+    private UserDirectory userDirectory;
     private SearchUsersRequestExecutor executor;
 
     @BeforeEach
@@ -32,7 +46,11 @@ public class SearchUsersRequestExecutorTest {
         gitHub = mock(GitHub.class);
         userSearchBuilder = mock(GHUserSearchBuilder.class);
 
-        executor = new SearchUsersRequestExecutor(request, clientBuilder);
+        profileResolver = new UserProfileResolver(mock(GraphQLClient.class), LookupExecutor.SHARED, 100, Duration.ofHours(1));
+
+        userDirectory = new UserDirectory(clientBuilder, profileResolver, Duration.ZERO, System::nanoTime);
+
+        executor = new SearchUsersRequestExecutor(request, clientBuilder, profileResolver, userDirectory, new SearchResultCache(100, Duration.ofMinutes(1)), LookupExecutor.SHARED, Duration.ofSeconds(5));
     }
 
     @Test
@@ -62,6 +80,63 @@ public class SearchUsersRequestExecutorTest {
         JSONAssert.assertEquals("[{\"username\":\"tom01\", \"display_name\": \"Tom NoLastname\", \"email\": \"tom@gocd.org\"}]", response.responseBody(), true);
     }
 
+    @Test
+    public void shouldMergeUsersFromAllAuthConfigsDeduplicatedByLogin() throws Exception {
+        final AuthConfig github = authConfigFindingUsers("github", "tom01", "tom02");
+        final AuthConfig enterprise = authConfigFindingUsers("enterprise", "TOM01", "tom03");
+
+        when(request.getSearchTerm()).thenReturn("tom");
+        when(request.authConfigs()).thenReturn(List.of(github, enterprise));
+
+        GoPluginApiResponse response = executor.execute();
+
+        assertThat(response.responseCode()).isEqualTo(200);
+        JSONAssert.assertEquals("[{\"username\":\"tom01\"}, {\"username\":\"tom02\"}, {\"username\":\"tom03\"}]", response.responseBody(), false);
+    }
+
+    @Test
+    public void shouldLeaveOutAuthConfigsThatDoNotAnswerWithinTheSearchTimeout() throws Exception {
+        final AuthConfig fast = authConfigFindingUsers("fast", "tom01");
+        final AuthConfig slow = mock(AuthConfig.class);
+        final GitHubConfiguration slowConfiguration = mock(GitHubConfiguration.class);
+        final CountDownLatch released = new CountDownLatch(1);
+        when(slow.gitHubConfiguration()).thenReturn(slowConfiguration);
+        when(clientBuilder.fromServerPersonalAccessToken(slowConfiguration)).thenAnswer(invocation -> {
+            released.await();
+            return gitHub;
+        });
+
+        when(request.getSearchTerm()).thenReturn("tom");
+        when(request.authConfigs()).thenReturn(List.of(slow, fast));
+        final ExecutorService searchExecutor = Executors.newCachedThreadPool();
+        try {
+            final GoPluginApiResponse response = new SearchUsersRequestExecutor(request, clientBuilder, profileResolver, userDirectory, new SearchResultCache(100, Duration.ofMinutes(1)), searchExecutor, Duration.ofMillis(200)).execute();
+
+            assertThat(response.responseCode()).isEqualTo(200);
+            JSONAssert.assertEquals("[{\"username\":\"tom01\"}]", response.responseBody(), false);
+        } finally {
+            released.countDown();
+            searchExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldAnswerFromUserDirectoryWithoutSearchingGitHub() throws Exception {
+        final AuthConfig authConfig = mock(AuthConfig.class);
+        final GitHubConfiguration gitHubConfiguration = mock(GitHubConfiguration.class);
+        when(authConfig.gitHubConfiguration()).thenReturn(gitHubConfiguration);
+        when(request.getSearchTerm()).thenReturn("tom");
+        when(request.authConfigs()).thenReturn(singletonList(authConfig));
+        final UserDirectory directory = mock(UserDirectory.class);
+        when(directory.search(gitHubConfiguration, "tom", 10)).thenReturn(List.of(new User("tom01", "Tom NoLastname", "tom@gocd.org")));
+
+        final GoPluginApiResponse response = new SearchUsersRequestExecutor(request, clientBuilder, profileResolver, directory, new SearchResultCache(100, Duration.ofMinutes(1)), LookupExecutor.SHARED, Duration.ofSeconds(5)).execute();
+
+        JSONAssert.assertEquals("[{\"username\":\"tom01\", \"display_name\": \"Tom NoLastname\", \"email\": \"tom@gocd.org\"}]", response.responseBody(), true);
+        verify(directory).register(gitHubConfiguration);
+        verifyNoInteractions(clientBuilder);
+    }
+
     @Test
     public void shouldNotPerformSearchIfAuthConfigsIsEmpty() throws Exception {
         when(request.authConfigs()).thenReturn(Collections.emptyList());
@@ -72,4 +147,56 @@ public class SearchUsersRequestExecutorTest {
         assertThat(response.responseCode()).isEqualTo(200);
         JSONAssert.assertEquals("[]", response.responseBody(), false);
     }
+
+    @Test
+    public void shouldNarrowDownUserDirectoryResultsWhileTheTermIsTyped() throws Exception {
+        final AuthConfig authConfig = mock(AuthConfig.class);
+        final GitHubConfiguration gitHubConfiguration = mock(GitHubConfiguration.class);
+        when(authConfig.gitHubConfiguration()).thenReturn(gitHubConfiguration);
+        when(request.authConfigs()).thenReturn(singletonList(authConfig));
+        final UserDirectory directory = mock(UserDirectory.class);
+        when(directory.search(gitHubConfiguration, "a", 10)).thenReturn(List.of(
+                new User("alex", "Alex Smith", null), new User("alice", "Alice", null), new User("bob", "Bob Alexander", null)));
+        final SearchUsersRequestExecutor executor = new SearchUsersRequestExecutor(request, clientBuilder, profileResolver, directory,
+                new SearchResultCache(100, Duration.ofMinutes(1)), LookupExecutor.SHARED, Duration.ofSeconds(5));
+
+        when(request.getSearchTerm()).thenReturn("a", "al", "ale");
+        executor.execute();
+        executor.execute();
+        final GoPluginApiResponse response = executor.execute();
+
+        JSONAssert.assertEquals("[{\"username\":\"alex\"}, {\"username\":\"bob\"}]", response.responseBody(), false);
+        assertThat(response.responseBody()).doesNotContain("alice");
+        verify(directory).search(gitHubConfiguration, "a", 10);
+        verify(directory, never()).search(gitHubConfiguration, "al", 10);
+        verify(directory, never()).search(gitHubConfiguration, "ale", 10);
+        verifyNoInteractions(clientBuilder);
+    }
+
+    private AuthConfig authConfigFindingUsers(String id, String... logins) throws Exception {
+        final AuthConfig authConfig = mock(AuthConfig.class);
+        final GitHubConfiguration gitHubConfiguration = mock(GitHubConfiguration.class);
+        final GitHub client = mock(GitHub.class);
+        final GHUserSearchBuilder searchBuilder = mock(GHUserSearchBuilder.class);
+        @SuppressWarnings("unchecked") final PagedSearchIterable<GHUser> searchIterable = mock(PagedSearchIterable.class);
+        @SuppressWarnings("unchecked") final PagedIterator<GHUser> iterator = mock(PagedIterator.class);
+        final List<GHUser> users = new ArrayList<>();
+        for (String login : logins) {
+            final GHUser user = mock(GHUser.class);
+            when(user.getLogin()).thenReturn(login);
+            users.add(user);
+        }
+
+        when(authConfig.getId()).thenReturn(id);
+        when(authConfig.gitHubConfiguration()).thenReturn(gitHubConfiguration);
+        when(gitHubConfiguration.apiUrl()).thenReturn("https://" + id + ".example.com");
+        when(clientBuilder.fromServerPersonalAccessToken(gitHubConfiguration)).thenReturn(client);
+        when(client.searchUsers()).thenReturn(searchBuilder);
+        when(searchBuilder.q(any())).thenReturn(searchBuilder);
+        when(searchBuilder.list()).thenReturn(searchIterable);
+        when(searchIterable.withPageSize(10)).thenReturn(searchIterable);
+        when(searchIterable.iterator()).thenReturn(iterator);
+        when(iterator.nextPage()).thenReturn(users);
+        return authConfig;
+    }
 }
@@ -18,19 +18,22 @@ package cd.go.authorization.github.executors;
 
 import cd.go.authorization.github.GitHubAuthenticator;
 import cd.go.authorization.github.GitHubAuthorizer;
+import cd.go.authorization.github.Memberships;
 import cd.go.authorization.github.models.*;
 import cd.go.authorization.github.requests.UserAuthenticationRequest;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.kohsuke.github.GHMyself;
 import org.skyscreamer.jsonassert.JSONAssert;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -57,14 +60,14 @@ public class UserAuthenticationRequestExecutorTest {
         final User user = new User("bford", "Bob", "bford@example.com");
         final LoggedInUserInfo loggedInUserInfo = mock(LoggedInUserInfo.class);
         final OAuthTokenInfo tokenInfo = new OAuthTokenInfo("access-token", "token-type", "user:email,org:read");
-        final GHMyself ghUser = mock(GHMyself.class);
+        final GitHubUser gitHubUser = new GitHubUser("bford", 1, "Bob", "bford@example.com");
 
         when(loggedInUserInfo.getUser()).thenReturn(user);
-        when(loggedInUserInfo.getGitHubUser()).thenReturn(ghUser);
+        when(loggedInUserInfo.getGitHubUser()).thenReturn(gitHubUser);
         when(request.firstAuthConfig()).thenReturn(authConfig);
         when(request.oauthTokenInfo()).thenReturn(tokenInfo);
         when(authenticator.authenticate(tokenInfo, authConfig)).thenReturn(loggedInUserInfo);
-        when(authorizer.authorize(eq(ghUser), eq(authConfig), anyList())).thenReturn(Collections.emptyList());
+        when(authorizer.authorize(eq(gitHubUser), eq(authConfig), anyList(), isNull())).thenReturn(Collections.emptyList());
 
         final GoPluginApiResponse response = executor.execute();
 
@@ -88,15 +91,15 @@ public class UserAuthenticationRequestExecutorTest {
         final LoggedInUserInfo loggedInUserInfo = mock(LoggedInUserInfo.class);
         final User user = new User("bford", "Bob", "bford@example.com");
         final Role role = mock(Role.class);
-        final GHMyself ghUser = mock(GHMyself.class);
+        final GitHubUser gitHubUser = new GitHubUser("bford", 1, "Bob", "bford@example.com");
 
         when(loggedInUserInfo.getUser()).thenReturn(user);
         when(request.firstAuthConfig()).thenReturn(authConfig);
         when(request.roles()).thenReturn(Collections.singletonList(role));
         when(request.oauthTokenInfo()).thenReturn(tokenInfo);
         when(authenticator.authenticate(tokenInfo, authConfig)).thenReturn(loggedInUserInfo);
-        when(loggedInUserInfo.getGitHubUser()).thenReturn(ghUser);
-        when(authorizer.authorize(ghUser, authConfig, request.roles())).thenReturn(Collections.singletonList("admin"));
+        when(loggedInUserInfo.getGitHubUser()).thenReturn(gitHubUser);
+        when(authorizer.authorize(gitHubUser, authConfig, request.roles(), null)).thenReturn(Collections.singletonList("admin"));
 
         final GoPluginApiResponse response = executor.execute();
 
@@ -113,4 +116,27 @@ public class UserAuthenticationRequestExecutorTest {
         assertThat(response.responseCode()).isEqualTo(200);
         JSONAssert.assertEquals(expectedJSON, response.responseBody(), true);
     }
+
+    @Test
+    public void shouldAuthorizeUserWithMembershipsListedAtLogin() throws Exception {
+        final OAuthTokenInfo tokenInfo = new OAuthTokenInfo("access-token", "token-type", "user:email,read:org");
+        final LoggedInUserInfo loggedInUserInfo = mock(LoggedInUserInfo.class);
+        final Memberships memberships = new Memberships(List.of("acme"), Map.of());
+        final Role role = mock(Role.class);
+        final GitHubUser gitHubUser = new GitHubUser("bford", 1, "Bob", "bford@example.com");
+
+        when(loggedInUserInfo.getUser()).thenReturn(new User("bford", "Bob", "bford@example.com"));
+        when(loggedInUserInfo.getGitHubUser()).thenReturn(gitHubUser);
+        when(loggedInUserInfo.getMemberships()).thenReturn(memberships);
+        when(request.firstAuthConfig()).thenReturn(authConfig);
+        when(request.roles()).thenReturn(Collections.singletonList(role));
+        when(request.oauthTokenInfo()).thenReturn(tokenInfo);
+        when(authenticator.authenticate(tokenInfo, authConfig)).thenReturn(loggedInUserInfo);
+        when(authorizer.authorize(gitHubUser, authConfig, request.roles(), memberships)).thenReturn(Collections.singletonList("admin"));
+
+        final GoPluginApiResponse response = executor.execute();
+
+        assertThat(response.responseCode()).isEqualTo(200);
+        JSONAssert.assertEquals("{\"roles\": [\"admin\"]}", response.responseBody(), false);
+    }
 }
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.executors;
 
+import cd.go.authorization.github.cache.UserCache;
 import cd.go.authorization.github.client.GitHubClientBuilder;
 import cd.go.authorization.github.models.AuthConfig;
 import cd.go.authorization.github.models.GitHubConfiguration;
@@ -27,6 +28,8 @@ import org.kohsuke.github.GHUser;
 import org.kohsuke.github.GitHub;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import java.time.Duration;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -46,7 +49,7 @@ public class ValidateUserRequestExecutorTest {
         when(request.getAuthConfig()).thenReturn(authConfig);
         when(authConfig.gitHubConfiguration()).thenReturn(mock(GitHubConfiguration.class));
 
-        executor = new ValidateUserRequestExecutor(request, clientBuilder);
+        executor = new ValidateUserRequestExecutor(request, clientBuilder, new UserCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1)));
     }
 
     @Test
@@ -55,7 +58,7 @@ public class ValidateUserRequestExecutorTest {
         when(clientBuilder.fromServerPersonalAccessToken(request.getAuthConfig().gitHubConfiguration()))
                 .thenReturn(gitHub);
         when(request.getUsername()).thenReturn("bob");
-        when(gitHub.getUser("bob")).thenReturn(mock(GHUser.class));
+        when(gitHub.getUser("bob")).thenReturn(gitHubUser("bob", 42, "Bob", "bob@example.com"));
 
         GoPluginApiResponse response = executor.execute();
 
@@ -75,4 +78,28 @@ public class ValidateUserRequestExecutorTest {
 
         assertThat(response.responseCode()).isEqualTo(500);
     }
+
+    private static GHUser gitHubUser(String username, long id, String fullName, String emailAddress) {
+        return new GHUser() {
+            @Override
+            public String getLogin() {
+                return username;
+            }
+
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return fullName;
+            }
+
+            @Override
+            public String getEmail() {
+                return emailAddress;
+            }
+        };
+    }
 }
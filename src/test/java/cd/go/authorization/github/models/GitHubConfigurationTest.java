@@ -44,6 +44,14 @@ public class GitHubConfigurationTest {
         assertThat(gitHubConfiguration.gitHubEnterpriseUrl()).isEqualTo("https://enterprise.url");
         assertThat(gitHubConfiguration.authenticateWith()).isEqualTo(AuthenticateWith.GITHUB_ENTERPRISE);
         assertThat(gitHubConfiguration.personalAccessToken()).isEqualTo("personal-access-token");
+        assertThat(gitHubConfiguration.authorizeUsing()).isEqualTo(AuthorizeUsing.PERSONAL_ACCESS_TOKEN);
+    }
+
+    @Test
+    public void shouldRequestScopeToReadOrganizationsOnlyWhenAuthorizingUsingUserAccessToken() {
+        assertThat(GitHubConfiguration.fromJSON("{}").authorizeUsing()).isEqualTo(AuthorizeUsing.PERSONAL_ACCESS_TOKEN);
+        assertThat(GitHubConfiguration.fromJSON("{}").scope()).isEqualTo("user:email");
+        assertThat(GitHubConfiguration.fromJSON("{\"AuthorizeUsing\": \"UserAccessToken\"}").scope()).isEqualTo("user:email read:org");
     }
 
     @Test
@@ -76,4 +84,19 @@ public class GitHubConfigurationTest {
         assertThat(properties).containsEntry("AuthenticateWith", "GitHubEnterprise");
         assertThat(properties).containsEntry("GitHubEnterpriseUrl", "http://enterprise.url");
     }
+
+    @Test
+    public void shouldDefaultMembershipCheckParallelismWhenNotSetOrInvalid() {
+        assertThat(GitHubConfiguration.fromJSON("{}").membershipCheckParallelism()).isEqualTo(4);
+        assertThat(GitHubConfiguration.fromJSON("{\"MembershipCheckParallelism\": \"ten\"}").membershipCheckParallelism()).isEqualTo(4);
+        assertThat(GitHubConfiguration.fromJSON("{\"MembershipCheckParallelism\": \" 10 \"}").membershipCheckParallelism()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldValidateMembershipCheckParallelism() {
+        assertThat(GitHubConfiguration.fromJSON("{}").hasValidMembershipCheckParallelism()).isTrue();
+        assertThat(GitHubConfiguration.fromJSON("{\"MembershipCheckParallelism\": \"64\"}").hasValidMembershipCheckParallelism()).isTrue();
+        assertThat(GitHubConfiguration.fromJSON("{\"MembershipCheckParallelism\": \"65\"}").hasValidMembershipCheckParallelism()).isFalse();
+        assertThat(GitHubConfiguration.fromJSON("{\"MembershipCheckParallelism\": \"-1\"}").hasValidMembershipCheckParallelism()).isFalse();
+    }
 }
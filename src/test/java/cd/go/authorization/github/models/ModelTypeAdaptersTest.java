@@ -0,0 +1,127 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.models;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static cd.go.authorization.github.utils.Util.GSON;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ModelTypeAdaptersTest {
+    private static final Gson REFLECTIVE = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+
+    @Test
+    void shouldReadAndWriteAuthConfigsLikeReflectiveGson() {
+        final String json = """
+                {
+                  "id": "github",
+                  "unknown": {"nested": [1, 2]},
+                  "configuration": {
+                    "ClientId": "client-id",
+                    "ClientSecret": "client-secret",
+                    "AuthenticateWith": "GitHubEnterprise",
+                    "GitHubEnterpriseUrl": "https://ghe.example.com",
+                    "AllowedOrganizations": "acme, widgets",
+                    "PersonalAccessToken": "token",
+                    "AuthorizeUsing": "UserAccessToken",
+                    "MembershipCheckParallelism": 8
+                  }
+                }""";
+
+        final AuthConfig streamed = GSON.fromJson(json, AuthConfig.class);
+        final AuthConfig reflected = REFLECTIVE.fromJson(json, AuthConfig.class);
+
+        assertThat(streamed.getId()).isEqualTo(reflected.getId());
+        assertThat(streamed.gitHubConfiguration()).isEqualTo(reflected.gitHubConfiguration());
+        assertThat(streamed.gitHubConfiguration().membershipCheckParallelism()).isEqualTo(8);
+        assertThat(GSON.toJson(streamed)).isEqualTo(REFLECTIVE.toJson(reflected));
+    }
+
+    @Test
+    void shouldLeaveMissingAndUnknownValuesEmptyLikeReflectiveGson() {
+        final String json = "{\"ClientId\": null, \"AuthenticateWith\": \"Bitbucket\", \"AllowedOrganizations\": true}";
+
+        final GitHubConfiguration streamed = GSON.fromJson(json, GitHubConfiguration.class);
+        final GitHubConfiguration reflected = REFLECTIVE.fromJson(json, GitHubConfiguration.class);
+
+        assertThat(streamed).isEqualTo(reflected);
+        assertThat(streamed.authenticateWith()).isNull();
+        assertThat(streamed.organizationsAllowed()).containsExactly("true");
+        assertThat(GSON.toJson(streamed)).isEqualTo(REFLECTIVE.toJson(reflected));
+    }
+
+    @Test
+    void shouldReadAndWriteRolesLikeReflectiveGson() {
+        final String json = """
+                [
+                  {"name": "admins", "auth_config_id": "github", "configuration": {"Users": "bob", "Organizations": "acme"}},
+                  {"name": "developers", "configuration": {"Teams": "acme:devs\\nwidgets:ops"}},
+                  {"name": "nobody"}
+                ]""";
+
+        final List<Role> streamed = GSON.fromJson(json, new TypeToken<List<Role>>() {}.getType());
+        final List<Role> reflected = REFLECTIVE.fromJson(json, new TypeToken<List<Role>>() {}.getType());
+
+        assertThat(streamed).isEqualTo(reflected);
+        assertThat(streamed.get(0).authConfigId()).isEqualTo("github");
+        assertThat(streamed.get(1).roleConfiguration().teams()).containsOnlyKeys("acme", "widgets");
+        assertThat(streamed.get(2).roleConfiguration()).isNull();
+        assertThat(GSON.toJson(streamed)).isEqualTo(REFLECTIVE.toJson(reflected));
+    }
+
+    @Test
+    void shouldHandOutTheRoleReadBeforeForTheSameJson() {
+        final Role role = Role.fromJSON("{\"name\": \"interned-admins\", \"configuration\": {\"Users\": \"bob\"}}");
+
+        assertThat(Role.fromJSON("{ \"name\" : \"interned-admins\" , \"configuration\" : { \"Users\" : \"bob\" }, \"unknown\": 1 }")).isSameAs(role);
+        assertThat(Role.fromJSON("{\"name\": \"interned-admins\", \"configuration\": {\"Users\": \"alice\"}}")).isNotSameAs(role);
+        assertThat(Role.fromJSON("{\"name\": \"interned-admins\", \"configuration\": {\"Users\": \"bob\", \"Teams\": null}}")).isNotSameAs(role);
+    }
+
+    @Test
+    void shouldTellNullValuesApartFromTheirText() {
+        final Role role = Role.fromJSON("{\"name\": \"interned-nulls\", \"configuration\": {\"Users\": null}}");
+
+        assertThat(Role.fromJSON("{\"name\": \"interned-nulls\", \"configuration\": {\"Users\": null}}")).isSameAs(role);
+        assertThat(Role.fromJSON("{\"name\": \"interned-nulls\", \"configuration\": {\"Users\": \"null\"}}")).isNotSameAs(role);
+        assertThat(Role.fromJSON("{\"name\": \"interned-nulls\", \"configuration\": null}")).isNotSameAs(role);
+    }
+
+    @Test
+    void shouldHandOutTheAuthConfigReadBeforeOnlyForTheSameSecrets() {
+        final AuthConfig authConfig = AuthConfig.fromJSON("{\"id\": \"interned\", \"configuration\": {\"ClientSecret\": \"secret\", \"AuthenticateWith\": \"GitHub\"}}");
+
+        assertThat(AuthConfig.fromJSON("{\"id\": \"interned\", \"configuration\": {\"ClientSecret\": \"secret\", \"AuthenticateWith\": \"GitHub\"}}")).isSameAs(authConfig);
+        assertThat(AuthConfig.fromJSON("{\"id\": \"interned\", \"configuration\": {\"ClientSecret\": \"other\", \"AuthenticateWith\": \"GitHub\"}}")).isNotSameAs(authConfig);
+        assertThat(AuthConfig.fromJSON("{\"id\": \"interned\", \"configuration\": {\"ClientSecret\": \"secret\", \"AuthenticateWith\": \"GitHubEnterprise\"}}")).isNotSameAs(authConfig);
+    }
+
+    @Test
+    void shouldWriteUsersLikeReflectiveGson() {
+        final List<User> users = List.of(new User("bob", "Bob", "Bob@Example.com"), new User("alice", null, null));
+
+        final String json = GSON.toJson(users);
+
+        assertThat(json).isEqualTo(REFLECTIVE.toJson(users));
+        assertThat(GSON.<List<User>>fromJson(json, new TypeToken<List<User>>() {}.getType())).isEqualTo(users);
+    }
+}
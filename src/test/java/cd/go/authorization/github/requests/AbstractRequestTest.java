@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.RequestExecutor;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
@@ -81,7 +82,7 @@ class AbstractRequestTest {
             }
 
             @Override
-            public RequestExecutor executor() {
+            public RequestExecutor executor(GitHubServices services) {
                 return null;
             }
         }
@@ -47,8 +47,8 @@ class AuthConfigurableTest {
 
     @Test
     public void shouldReturnFirstAuthConfig() {
-        AuthConfig first = new AuthConfig();
-        AuthConfigurable authConfigurable = () -> List.of(first, new AuthConfig());
+        AuthConfig first = new AuthConfig("first", null);
+        AuthConfigurable authConfigurable = () -> List.of(first, new AuthConfig("second", null));
         assertThat(authConfigurable.firstAuthConfig())
                 .isSameAs(first);
     }
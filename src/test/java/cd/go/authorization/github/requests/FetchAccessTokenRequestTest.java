@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.exceptions.AuthenticationException;
 import cd.go.authorization.github.executors.FetchAccessTokenRequestExecutor;
 import cd.go.authorization.github.models.AuthConfig;
@@ -30,6 +31,7 @@ import java.util.Map;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
@@ -82,7 +84,7 @@ public class FetchAccessTokenRequestTest {
         final FetchAccessTokenRequest request = FetchAccessTokenRequest.from(apiRequest);
 
         assertThat(request.authConfigs()).hasSize(1);
-        assertThat(request.executor()).isInstanceOf(FetchAccessTokenRequestExecutor.class);
+        assertThat(request.executor(mock(GitHubServices.class))).isInstanceOf(FetchAccessTokenRequestExecutor.class);
 
         final AuthConfig authConfig = request.firstAuthConfig() ;
         assertThat(authConfig.getId()).isEqualTo("github-auth-config");
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.GetAuthorizationServerUrlRequestExecutor;
 import cd.go.authorization.github.models.AuthConfig;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
@@ -24,6 +25,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
@@ -58,7 +60,7 @@ public class GetAuthorizationServerUrlRequestTest {
         final GetAuthorizationServerUrlRequest request = GetAuthorizationServerUrlRequest.from(apiRequest);
 
         assertThat(request.authConfigs()).hasSize(1);
-        assertThat(request.executor()).isInstanceOf(GetAuthorizationServerUrlRequestExecutor.class);
+        assertThat(request.executor(mock(GitHubServices.class))).isInstanceOf(GetAuthorizationServerUrlRequestExecutor.class);
 
         final AuthConfig authConfig = request.authConfigs().get(0);
 
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.GetRolesExecutor;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import org.junit.jupiter.api.Test;
@@ -53,6 +54,22 @@ public class GetRolesRequestTest {
         assertThat(request.getRoles()).hasSize(0);
     }
 
+    @Test
+    public void shouldFingerprintTheRequestBodyWithoutKeepingSecrets() {
+        GoPluginApiRequest apiRequest = mock(GoPluginApiRequest.class);
+        GoPluginApiRequest otherUser = mock(GoPluginApiRequest.class);
+        when(apiRequest.requestBody()).thenReturn("{\"auth_config\": {\"id\": \"GitHub\", \"configuration\": {\"ClientSecret\": \"bar\"}}, \"role_configs\": [], \"username\": \"bob\"}");
+        when(otherUser.requestBody()).thenReturn("{\"auth_config\": {\"id\": \"GitHub\", \"configuration\": {\"ClientSecret\": \"bar\"}}, \"role_configs\": [], \"username\": \"alice\"}");
+
+        GetRolesRequest request = (GetRolesRequest) GetRolesRequest.from(apiRequest);
+
+        assertThat(request.fingerprint())
+                .hasSize(64)
+                .doesNotContain("bar")
+                .isEqualTo(((GetRolesRequest) GetRolesRequest.from(apiRequest)).fingerprint())
+                .isNotEqualTo(((GetRolesRequest) GetRolesRequest.from(otherUser)).fingerprint());
+    }
+
     @Test
     public void shouldReturnValidExecutor() {
         GoPluginApiRequest apiRequest = mock(GoPluginApiRequest.class);
@@ -75,6 +92,6 @@ public class GetRolesRequestTest {
                 }""");
 
         GetRolesRequest request = (GetRolesRequest) GetRolesRequest.from(apiRequest);
-        assertThat(request.executor() instanceof GetRolesExecutor).isEqualTo(true);
+        assertThat(request.executor(mock(GitHubServices.class)) instanceof GetRolesExecutor).isEqualTo(true);
     }
 }
\ No newline at end of file
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import com.google.gson.Gson;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
@@ -42,7 +43,7 @@ public class RoleConfigValidateRequestExecutorTest {
     public void shouldValidateEmptyRoleConfig() throws Exception {
         when(request.requestBody()).thenReturn(new Gson().toJson(Collections.emptyMap()));
 
-        GoPluginApiResponse response = RoleConfigValidateRequest.from(request).execute();
+        GoPluginApiResponse response = RoleConfigValidateRequest.from(request).execute(mock(GitHubServices.class));
         String json = response.responseBody();
 
         String expectedJSON = """
@@ -68,7 +69,7 @@ public class RoleConfigValidateRequestExecutorTest {
     public void shouldValidateRoleConfigWithBadTeamsValueFormat() throws Exception {
         when(request.requestBody()).thenReturn(new Gson().toJson(singletonMap("Teams", "Org")));
 
-        GoPluginApiResponse response = RoleConfigValidateRequest.from(request).execute();
+        GoPluginApiResponse response = RoleConfigValidateRequest.from(request).execute(mock(GitHubServices.class));
         String json = response.responseBody();
 
         String expectedJSON = """
@@ -86,7 +87,7 @@ public class RoleConfigValidateRequestExecutorTest {
     public void shouldValidateValidRoleConfig() throws Exception {
         when(request.requestBody()).thenReturn(new Gson().toJson(singletonMap("Teams", "Org:team-1")));
 
-        GoPluginApiResponse response = RoleConfigValidateRequest.from(request).execute();
+        GoPluginApiResponse response = RoleConfigValidateRequest.from(request).execute(mock(GitHubServices.class));
         String json = response.responseBody();
 
         String expectedJSON = "[]";
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.SearchUsersRequestExecutor;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import org.junit.jupiter.api.Test;
@@ -57,6 +58,6 @@ public class SearchUsersRequestTest {
 
         Request request = SearchUsersRequest.from(apiRequest);
 
-        assertThat(request.executor()).isInstanceOf(SearchUsersRequestExecutor.class);
+        assertThat(request.executor(mock(GitHubServices.class))).isInstanceOf(SearchUsersRequestExecutor.class);
     }
 }
\ No newline at end of file
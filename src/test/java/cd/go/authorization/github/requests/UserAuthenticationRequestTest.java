@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.UserAuthenticationRequestExecutor;
 import cd.go.authorization.github.models.AuthConfig;
 import cd.go.authorization.github.models.OAuthTokenInfo;
@@ -28,6 +29,7 @@ import org.mockito.Mock;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
@@ -80,7 +82,7 @@ public class UserAuthenticationRequestTest {
 
         assertThat(request.authConfigs()).hasSize(1);
         assertThat(request.roles()).hasSize(1);
-        assertThat(request.executor()).isInstanceOf(UserAuthenticationRequestExecutor.class);
+        assertThat(request.executor(mock(GitHubServices.class))).isInstanceOf(UserAuthenticationRequestExecutor.class);
 
         assertAuthConfig(request.firstAuthConfig());
         assertTokenInfo(request.oauthTokenInfo());
@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.ValidateUserRequestExecutor;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import org.junit.jupiter.api.Test;
@@ -74,6 +75,6 @@ public class ValidateUserRequestTest {
 
         Request request = ValidateUserRequest.from(apiRequest);
 
-        assertThat(request.executor() instanceof ValidateUserRequestExecutor).isEqualTo(true);
+        assertThat(request.executor(mock(GitHubServices.class)) instanceof ValidateUserRequestExecutor).isEqualTo(true);
     }
 }
\ No newline at end of file
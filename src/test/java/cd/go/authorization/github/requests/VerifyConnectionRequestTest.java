@@ -16,6 +16,7 @@
 
 package cd.go.authorization.github.requests;
 
+import cd.go.authorization.github.GitHubServices;
 import cd.go.authorization.github.executors.VerifyConnectionRequestExecutor;
 import cd.go.authorization.github.models.AuthenticateWith;
 import cd.go.authorization.github.models.GitHubConfiguration;
@@ -25,6 +26,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
@@ -53,7 +55,7 @@ public class VerifyConnectionRequestTest {
         final VerifyConnectionRequest request = VerifyConnectionRequest.from(apiRequest);
         final GitHubConfiguration gitHubConfiguration = request.githubConfiguration();
 
-        assertThat(request.executor()).isInstanceOf(VerifyConnectionRequestExecutor.class);
+        assertThat(request.executor(mock(GitHubServices.class))).isInstanceOf(VerifyConnectionRequestExecutor.class);
 
         assertThat(gitHubConfiguration.clientId()).isEqualTo("client-id");
         assertThat(gitHubConfiguration.clientSecret()).isEqualTo("client-secret");
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2022 Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.authorization.github.snapshot;
+
+import cd.go.authorization.github.MembershipQuery;
+import cd.go.authorization.github.TeamResolver;
+import cd.go.authorization.github.client.GitHubClientBuilder;
+import cd.go.authorization.github.client.RateLimitBudget;
+import cd.go.authorization.github.models.GitHubConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class MembershipSnapshotCrawlerTest {
+    private static final MembershipQuery ACME = MembershipQuery.ofOrganization("acme");
+    private static final MembershipQuery ACME_DEVELOPERS = MembershipQuery.ofTeam("acme", "developers");
+
+    private final AtomicLong clock = new AtomicLong();
+    private GitHub gitHub;
+    private GHOrganization organization;
+    private GHTeam team;
+    private GitHubConfiguration gitHubConfiguration;
+    private ScheduledExecutorService scheduler;
+    private RateLimitBudget rateLimitBudget;
+    private MembershipSnapshotCrawler crawler;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        final GitHubClientBuilder clientBuilder = mock(GitHubClientBuilder.class);
+        scheduler = mock(ScheduledExecutorService.class);
+        rateLimitBudget = mock(RateLimitBudget.class);
+        gitHub = mock(GitHub.class);
+        organization = mock(GHOrganization.class);
+        team = mock(GHTeam.class);
+        gitHubConfiguration = mock(GitHubConfiguration.class);
+
+        when(gitHubConfiguration.apiUrl()).thenReturn("https://api.github.com");
+        when(gitHubConfiguration.personalAccessToken()).thenReturn("pat");
+        when(rateLimitBudget.remaining("https://api.github.com", "pat", RateLimitBudget.CORE)).thenReturn(null);
+        when(clientBuilder.fromServerPersonalAccessToken(gitHubConfiguration)).thenReturn(gitHub);
+        when(gitHub.getOrganization("acme")).thenReturn(organization);
+        when(organization.getTeamBySlug("developers")).thenReturn(team);
+        when(team.getName()).thenReturn("Developers");
+        when(team.getSlug()).thenReturn("developers");
+
+        crawler = new MembershipSnapshotCrawler(clientBuilder, rateLimitBudget, new TeamResolver(100, Duration.ofHours(1)), Duration.ofMinutes(10), 100, clock::get, () -> scheduler);
+    }
+
+    @Test
+    public void shouldAnswerFromSnapshotOnceOrganizationsAndTeamsAreCrawled() throws Exception {
+        final PagedIterable<GHUser> organizationMembers = members("Bob", "alice");
+        final PagedIterable<GHUser> teamMembers = members("alice");
+        when(organization.listMembers()).thenReturn(organizationMembers);
+        when(team.listMembers()).thenReturn(teamMembers);
+
+        crawler.register(gitHubConfiguration, List.of(ACME, ACME_DEVELOPERS));
+        verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(0L), eq(600L), eq(TimeUnit.SECONDS));
+        assertThat(crawler.isMember(gitHubConfiguration, ACME, "bob")).isNull();
+
+        crawler.refresh();
+
+        assertThat(crawler.isMember(gitHubConfiguration, ACME, "bob")).isTrue();
+        assertThat(crawler.isMember(gitHubConfiguration, ACME_DEVELOPERS, "alice")).isTrue();
+        assertThat(crawler.isMember(gitHubConfiguration, ACME_DEVELOPERS, "bob")).isFalse();
+        assertThat(crawler.isMember(gitHubConfiguration, MembershipQuery.ofOrganization("globex"), "bob")).isNull();
+    }
+
+    @Test
+    public void shouldKeepPreviousMembersWhileRateLimitIsBelowReserve() throws Exception {
+        final PagedIterable<GHUser> organizationMembers = members("bob");
+        when(organization.listMembers()).thenReturn(organizationMembers);
+        crawler.register(gitHubConfiguration, List.of(ACME));
+        crawler.refresh();
+
+        when(rateLimitBudget.remaining("https://api.github.com", "pat", RateLimitBudget.CORE)).thenReturn(10L);
+
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+        crawler.refresh();
+
+        assertThat(crawler.isMember(gitHubConfiguration, ACME, "bob")).isTrue();
+        verify(organization, times(1)).listMembers();
+
+        clock.addAndGet(Duration.ofMinutes(30).toNanos());
+        crawler.refresh();
+
+        assertThat(crawler.isMember(gitHubConfiguration, ACME, "bob")).isNull();
+    }
+
+    @Test
+    public void shouldStopListingMembersWhenRateLimitDropsBelowReserveBetweenPages() throws Exception {
+        final PagedIterable<GHUser> previousMembers = members("bob");
+        when(organization.listMembers()).thenReturn(previousMembers);
+        crawler.register(gitHubConfiguration, List.of(ACME));
+        crawler.refresh();
+
+        final PagedIterable<GHUser> organizationMembers = pagesOf(List.of("alice"), List.of("carol"));
+        when(organization.listMembers()).thenReturn(organizationMembers);
+        when(rateLimitBudget.remaining("https://api.github.com", "pat", RateLimitBudget.CORE)).thenReturn(1_000L, 10L);
+
+        clock.addAndGet(Duration.ofMinutes(10).toNanos());
+        crawler.refresh();
+
+        assertThat(crawler.isMember(gitHubConfiguration, ACME, "bob")).isTrue();
+        assertThat(crawler.isMember(gitHubConfiguration, ACME, "alice")).isFalse();
+        verify(organizationMembers.iterator(), times(1)).nextPage();
+    }
+
+    @Test
+    public void shouldCrawlAllowedOrganizationsAndOrganizationsAndTeamsOfRoleConfigurations() throws Exception {
+        final GHOrganization globex = mock(GHOrganization.class);
+        final PagedIterable<GHUser> globexMembers = members("carol");
+        final PagedIterable<GHUser> teamMembers = members("alice");
+        when(gitHubConfiguration.organizationsAllowed()).thenReturn(List.of("globex"));
+        when(gitHub.getOrganization("globex")).thenReturn(globex);
+        when(globex.listMembers()).thenReturn(globexMembers);
+        when(team.listMembers()).thenReturn(teamMembers);
+
+        crawler.registerConfigured(gitHubConfiguration, List.of(ACME_DEVELOPERS));
+        crawler.refresh();
+
+        assertThat(crawler.isMember(gitHubConfiguration, MembershipQuery.ofOrganization("globex"), "carol")).isTrue();
+        assertThat(crawler.isMember(gitHubConfiguration, ACME_DEVELOPERS, "alice")).isTrue();
+        assertThat(crawler.isMember(gitHubConfiguration, ACME, "alice")).isNull();
+    }
+
+    @Test
+    public void shouldStopCrawlingForGood() {
+        crawler.register(gitHubConfiguration, List.of(ACME));
+
+        crawler.stop();
+        crawler.register(gitHubConfiguration, List.of(ACME_DEVELOPERS));
+
+        verify(scheduler).shutdownNow();
+        verify(scheduler, times(1)).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void shouldNotAnswerWhenDisabled() {
+        final MembershipSnapshotCrawler disabled = new MembershipSnapshotCrawler(mock(GitHubClientBuilder.class), rateLimitBudget, new TeamResolver(100, Duration.ofHours(1)), Duration.ZERO, 100, clock::get, () -> scheduler);
+
+        disabled.register(gitHubConfiguration, List.of(ACME));
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.isMember(gitHubConfiguration, ACME, "bob")).isNull();
+        verifyNoInteractions(scheduler);
+    }
+
+    private static PagedIterable<GHUser> members(String... logins) {
+        return pagesOf(List.of(logins));
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private static PagedIterable<GHUser> pagesOf(List<String>... pages) {
+        final PagedIterable<GHUser> members = mock(PagedIterable.class);
+        final PagedIterator<GHUser> iterator = mock(PagedIterator.class);
+        final List<List<GHUser>> users = new ArrayList<>();
+        for (List<String> page : pages) {
+            final List<GHUser> usersOfPage = new ArrayList<>();
+            for (String login : page) {
+                final GHUser user = mock(GHUser.class);
+                when(user.getLogin()).thenReturn(login);
+                usersOfPage.add(user);
+            }
+            users.add(usersOfPage);
+        }
+        final AtomicInteger listed = new AtomicInteger();
+        when(members.withPageSize(anyInt())).thenReturn(members);
+        when(members.iterator()).thenReturn(iterator);
+        when(iterator.hasNext()).thenAnswer(invocation -> listed.get() < users.size());
+        when(iterator.nextPage()).thenAnswer(invocation -> users.get(listed.getAndIncrement()));
+        return members;
+    }
+}